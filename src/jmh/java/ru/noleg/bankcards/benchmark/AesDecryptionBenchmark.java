@@ -0,0 +1,75 @@
+package ru.noleg.bankcards.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decryption of a 10k-card export. {@code newCipherPerCard} reproduces the former implementation,
+ * which created and initialized a cipher for every card number.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AesDecryptionBenchmark {
+
+    private static final int CARD_COUNT = 10_000;
+
+    private AesEncryptionUtil aesEncryptionUtil;
+    private SecretKeySpec secretKey;
+    private List<String> encryptedNumbers;
+
+    @Setup
+    public void setUp() {
+        aesEncryptionUtil = new AesEncryptionUtil(BenchmarkFixtures.AES_SECRET);
+        secretKey = new SecretKeySpec(BenchmarkFixtures.AES_SECRET.getBytes(), "AES");
+
+        encryptedNumbers = new ArrayList<>(CARD_COUNT);
+        for (int i = 0; i < CARD_COUNT; i++) {
+            encryptedNumbers.add(aesEncryptionUtil.encrypt(String.format("4276%012d", i)));
+        }
+    }
+
+    @Benchmark
+    public List<String> newCipherPerCard() throws Exception {
+        List<String> decrypted = new ArrayList<>(CARD_COUNT);
+        for (String encryptedNumber : encryptedNumbers) {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(Cipher.DECRYPT_MODE, secretKey);
+            decrypted.add(new String(cipher.doFinal(Base64.getDecoder().decode(encryptedNumber))));
+        }
+        return decrypted;
+    }
+
+    @Benchmark
+    public List<String> decryptPerCard() {
+        List<String> decrypted = new ArrayList<>(CARD_COUNT);
+        for (String encryptedNumber : encryptedNumbers) {
+            decrypted.add(aesEncryptionUtil.decrypt(encryptedNumber));
+        }
+        return decrypted;
+    }
+
+    @Benchmark
+    public List<String> decryptAll() {
+        return aesEncryptionUtil.decryptAll(encryptedNumbers);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.noleg.bankcards.benchmark;
+
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.repository.CardSummary;
+import ru.noleg.bankcards.security.jwt.JwtTokenProvider;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+
+import java.lang.reflect.Proxy;
+import java.time.YearMonth;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Shared setup of the benchmarks. Repositories are replaced with plain proxies instead of Mockito mocks,
+ * because mocks record every invocation and would dominate both the timings and the heap.
+ */
+final class BenchmarkFixtures {
+
+    static final Long OWNER_ID = 1L;
+    static final String AES_SECRET = "0123456789abcdef";
+    static final String HMAC_KEY = "benchmark-card-number-hmac-key-32b";
+    static final String CARD_NUMBER = "4276380012345678";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Implements {@code type} with the given method bodies keyed by method name.
+     * Any other method returns {@code null}, or zero for primitive results.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> body = methods.get(method.getName());
+            if (body != null) {
+                return body.apply(args);
+            }
+            if (method.getReturnType() == int.class) {
+                return 0;
+            }
+            if (method.getReturnType() == long.class) {
+                return 0L;
+            }
+            if (method.getReturnType() == boolean.class) {
+                return false;
+            }
+            return null;
+        });
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(OWNER_ID);
+        user.setEmail("user@mail.ru");
+        user.setRole(Role.ROLE_USER);
+        return user;
+    }
+
+    static Card card(Long id, AesEncryptionUtil aesEncryptionUtil) {
+        Card card = new Card();
+        card.setId(id);
+        card.setOwner(user());
+        card.setEncryptedNumber(aesEncryptionUtil.encrypt(CARD_NUMBER));
+        card.setLast4(CARD_NUMBER.substring(CARD_NUMBER.length() - 4));
+        card.setExpirationDate(YearMonth.now().plusYears(3));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalanceMinor(1_000_000_00L);
+        return card;
+    }
+
+    /**
+     * The listing projection of {@link #card}.
+     */
+    static CardSummary summary(Long id) {
+        return new CardSummary(id, CARD_NUMBER.substring(CARD_NUMBER.length() - 4), null, OWNER_ID,
+                YearMonth.now().plusYears(3), CardStatus.ACTIVE, 1_000_000_00L, 0);
+    }
+
+    static final String JWT_SIGNING_KEY =
+            Base64.getEncoder().encodeToString("benchmark-signing-key-of-at-least-256-bits".getBytes());
+
+    static JwtTokenProvider jwtTokenProvider() {
+        return new JwtTokenProvider(JWT_SIGNING_KEY, 3_600_000L);
+    }
+}
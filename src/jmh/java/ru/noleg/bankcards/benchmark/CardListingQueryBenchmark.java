@@ -0,0 +1,112 @@
+package ru.noleg.bankcards.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.dto.card.CardDto;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.mapper.CardMapper;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.UserRepository;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of the owner's cards read from PostgreSQL and mapped to the response DTOs, each in a read-only
+ * transaction: managed entities, as the listings loaded them before, against the {@code CardSummary} projection
+ * they use now. Unlike {@link CardMapperBenchmark} this includes the query, the result set and the persistence
+ * context, so run it with {@code -prof gc} to compare the bytes allocated per page.
+ * Needs Docker, see {@link PostgresBenchmarkContext}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardListingQueryBenchmark {
+
+    private static final int CARD_COUNT = 200;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private PostgresBenchmarkContext context;
+    private CardRepository cardRepository;
+    private CardMapper cardMapper;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private Long ownerId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = PostgresBenchmarkContext.start();
+        cardRepository = context.bean(CardRepository.class);
+        cardMapper = context.bean(CardMapper.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.bean(EntityManagerFactory.class));
+        readOnlyTransaction = new TransactionTemplate(context.bean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        UserRepository userRepository = context.bean(UserRepository.class);
+        User owner = new User(null, UUID.randomUUID() + "@benchmark.com", "password", "Benchmark", "Owner", null, Role.ROLE_USER);
+        ownerId = userRepository.save(owner).getId();
+
+        List<Card> cards = new ArrayList<>(CARD_COUNT);
+        for (int i = 0; i < CARD_COUNT; i++) {
+            Card card = new Card();
+            card.setOwner(owner);
+            card.setEncryptedNumber(UUID.randomUUID().toString());
+            card.setLast4(String.format("%04d", i));
+            card.setExpirationDate(YearMonth.now().plusYears(3));
+            card.setStatus(CardStatus.ACTIVE);
+            card.setBalanceMinor(1_000_000_00L);
+            cards.add(card);
+        }
+        cardRepository.saveAll(cards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CardDto> entities() {
+        return readOnlyTransaction.execute(status -> cardMapper.mapToCardDtos(
+                entityManager.createQuery("select c from Card c where c.owner.id = :ownerId order by c.id", Card.class)
+                        .setParameter("ownerId", ownerId)
+                        .setMaxResults(pageSize)
+                        .getResultList()
+        ));
+    }
+
+    @Benchmark
+    public List<CardDto> summaries() {
+        return readOnlyTransaction.execute(status -> cardMapper.mapSummariesToCardDtos(
+                cardRepository.findSummariesByOwnerIdAfterId(ownerId, 0L, Limit.of(pageSize))
+        ));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.noleg.bankcards.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.noleg.bankcards.dto.card.CardDto;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.mapper.CardMapper;
+import ru.noleg.bankcards.mapper.CardMapperImpl;
+import ru.noleg.bankcards.repository.CardSummary;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Mapping of a page of cards to the response DTOs, from entities and from the listing projection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardMapperBenchmark {
+
+    @Param({"10", "100"})
+    private int cardCount;
+
+    private CardMapper cardMapper;
+    private List<Card> cards;
+    private List<CardSummary> summaries;
+
+    @Setup
+    public void setUp() {
+        AesEncryptionUtil aesEncryptionUtil = new AesEncryptionUtil(BenchmarkFixtures.AES_SECRET);
+        cardMapper = new CardMapperImpl();
+        cards = LongStream.rangeClosed(1, cardCount)
+                .mapToObj(id -> BenchmarkFixtures.card(id, aesEncryptionUtil))
+                .toList();
+        summaries = LongStream.rangeClosed(1, cardCount)
+                .mapToObj(BenchmarkFixtures::summary)
+                .toList();
+    }
+
+    @Benchmark
+    public List<CardDto> mapToCardDtos() {
+        return cardMapper.mapToCardDtos(cards);
+    }
+
+    @Benchmark
+    public List<CardDto> mapSummariesToCardDtos() {
+        return cardMapper.mapSummariesToCardDtos(summaries);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.noleg.bankcards.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.CardSummary;
+import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.service.impl.CardNumberGenerator;
+import ru.noleg.bankcards.service.impl.CardServiceImpl;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+import ru.noleg.bankcards.util.CardNumberHasher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Card reads of {@link CardServiceImpl} without the database, dominated by decrypting the card numbers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardServiceBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private CardServiceImpl cardService;
+
+    @Setup
+    public void setUp() {
+        AesEncryptionUtil aesEncryptionUtil = new AesEncryptionUtil(BenchmarkFixtures.AES_SECRET);
+        Card card = BenchmarkFixtures.card(1L, aesEncryptionUtil);
+        List<CardSummary> page = LongStream.rangeClosed(1, PAGE_SIZE)
+                .mapToObj(BenchmarkFixtures::summary)
+                .toList();
+
+        CardRepository cardRepository = BenchmarkFixtures.stub(CardRepository.class, Map.of(
+                "findById", args -> Optional.of(card),
+                "findSummariesByOwnerId", args -> new PageImpl<>(page)
+        ));
+        UserRepository userRepository = BenchmarkFixtures.stub(UserRepository.class, Map.of());
+        CardNumberHasher cardNumberHasher = new CardNumberHasher(BenchmarkFixtures.HMAC_KEY);
+        CardNumberGenerator cardNumberGenerator = new CardNumberGenerator(
+                cardRepository, cardNumberHasher, new SimpleMeterRegistry(), "220000", 1
+        );
+        EntityManager entityManager = BenchmarkFixtures.stub(EntityManager.class, Map.of());
+        cardService = new CardServiceImpl(cardRepository, userRepository, aesEncryptionUtil,
+                cardNumberHasher, cardNumberGenerator, entityManager,
+                BenchmarkFixtures.stub(PlatformTransactionManager.class, Map.of()));
+    }
+
+    @Benchmark
+    public Card get() {
+        return cardService.get(1L);
+    }
+
+    @Benchmark
+    public List<CardSummary> getAllByOwner() {
+        return cardService.getAllByOwner(BenchmarkFixtures.OWNER_ID, 0, PAGE_SIZE, Sort.by("id"));
+    }
+}
@@ -0,0 +1,86 @@
+package ru.noleg.bankcards.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.noleg.bankcards.dto.transfer.BatchTransferMode;
+import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferResultDto;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.service.TransferJournalService;
+import ru.noleg.bankcards.service.impl.CardTransferOperations;
+import ru.noleg.bankcards.service.impl.CardTransferServiceImpl;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation and balance arithmetic of {@link CardTransferServiceImpl} without the database:
+ * the conditional updates always match, so only the service's own work is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardTransferServiceBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private CardTransferServiceImpl cardTransferService;
+    private BigDecimal amount;
+    private List<TransferDto> batch;
+
+    @Setup
+    public void setUp() {
+        AesEncryptionUtil aesEncryptionUtil = new AesEncryptionUtil(BenchmarkFixtures.AES_SECRET);
+        List<Card> cards = List.of(
+                BenchmarkFixtures.card(1L, aesEncryptionUtil),
+                BenchmarkFixtures.card(2L, aesEncryptionUtil)
+        );
+
+        CardRepository cardRepository = BenchmarkFixtures.stub(CardRepository.class, Map.of(
+                "debit", args -> 1,
+                "credit", args -> 1,
+                "findAllForUpdateByIdInAndOwnerId", args -> cards
+        ));
+        TransferJournalService transferJournalService = BenchmarkFixtures.stub(TransferJournalService.class, Map.of());
+        cardTransferService = new CardTransferServiceImpl(
+                cardRepository, new CardTransferOperations(cardRepository, transferJournalService)
+        );
+
+        amount = new BigDecimal("99.99");
+
+        // Transfers go back and forth between two cards, so balances stay the same between invocations.
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(i % 2 == 0 ? new TransferDto(1L, 2L, amount) : new TransferDto(2L, 1L, amount));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal transfer() {
+        cardTransferService.transfer(BenchmarkFixtures.OWNER_ID, 1L, 2L, amount);
+        return amount;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<TransferResultDto> transferBatch() {
+        return cardTransferService.transferBatch(BenchmarkFixtures.OWNER_ID, batch, BatchTransferMode.PER_ITEM);
+    }
+}
@@ -0,0 +1,163 @@
+package ru.noleg.bankcards.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+import ru.noleg.bankcards.jpa.retry.OptimisticLockRetry;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.service.CardTransferService;
+import ru.noleg.bankcards.util.Money;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transfers through one hot card on PostgreSQL: the conditional balance updates of the service against the
+ * read-modify-write path they replaced, where a lost update shows up as a retried optimistic lock failure.
+ * Even threads drain the hot card, odd threads fill it, so both lock orders are exercised. Only completed
+ * transfers count: compare the {@code completed} rates of the two benchmarks, {@code failed} shows the rest.
+ * Needs Docker, see {@link PostgresBenchmarkContext}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(16)
+public class HotCardTransferBenchmark {
+
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(100_000_000);
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        private final AtomicInteger threads = new AtomicInteger();
+
+        private PostgresBenchmarkContext context;
+        private CardTransferService cardTransferService;
+        private CardRepository cardRepository;
+        private UserRepository userRepository;
+        private OptimisticLockRetry optimisticLockRetry;
+        private TransactionTemplate transactionTemplate;
+        private Long ownerId;
+        private Long hotCardId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = PostgresBenchmarkContext.start();
+            cardTransferService = context.bean(CardTransferService.class);
+            cardRepository = context.bean(CardRepository.class);
+            userRepository = context.bean(UserRepository.class);
+            optimisticLockRetry = context.bean(OptimisticLockRetry.class);
+            transactionTemplate = new TransactionTemplate(context.bean(PlatformTransactionManager.class));
+
+            User owner = new User(null, UUID.randomUUID() + "@benchmark.com", "password", "Benchmark", "Owner", null, Role.ROLE_USER);
+            ownerId = userRepository.save(owner).getId();
+            hotCardId = this.createCard();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        Long createCard() {
+            Card card = new Card();
+            card.setOwner(userRepository.getReferenceById(ownerId));
+            card.setEncryptedNumber(UUID.randomUUID().toString());
+            card.setExpirationDate(YearMonth.now().plusYears(1));
+            card.setStatus(CardStatus.ACTIVE);
+            card.setBalanceMinor(Money.toMinor(INITIAL_BALANCE));
+            return cardRepository.save(card).getId();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Side {
+
+        public long completed;
+        public long failed;
+
+        private Long fromCardId;
+        private Long toCardId;
+
+        @Setup(Level.Trial)
+        public void setUp(Database database) {
+            Long otherCardId = database.createCard();
+            boolean fromHotCard = database.threads.getAndIncrement() % 2 == 0;
+            fromCardId = fromHotCard ? database.hotCardId : otherCardId;
+            toCardId = fromHotCard ? otherCardId : database.hotCardId;
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            completed = 0;
+            failed = 0;
+        }
+    }
+
+    @Benchmark
+    public void conditionalUpdates(Database database, Side side) {
+        try {
+            database.cardTransferService.transfer(database.ownerId, side.fromCardId, side.toCardId, AMOUNT);
+            side.completed++;
+        } catch (RuntimeException e) {
+            side.failed++;
+        }
+    }
+
+    @Benchmark
+    public void readModifyWrite(Database database, Side side) {
+        try {
+            this.readModifyWriteTransfer(database, side.fromCardId, side.toCardId);
+            side.completed++;
+        } catch (RuntimeException e) {
+            side.failed++;
+        }
+    }
+
+    /**
+     * Both cards are read, changed in Java and saved back; the entity version turns a lost update
+     * into an optimistic lock failure, retried like elsewhere.
+     */
+    private void readModifyWriteTransfer(Database database, Long fromCardId, Long toCardId) {
+        long amountMinor = Money.toMinor(AMOUNT);
+        database.optimisticLockRetry.execute("readModifyWriteTransfer", () -> database.transactionTemplate.execute(status -> {
+            Card fromCard = database.cardRepository.findByIdAndOwnerId(fromCardId, database.ownerId).orElseThrow();
+            Card toCard = database.cardRepository.findByIdAndOwnerId(toCardId, database.ownerId).orElseThrow();
+            if (!Money.covers(fromCard.getBalanceMinor(), amountMinor)) {
+                throw new BusinessLogicException("Insufficient funds on the sender card.");
+            }
+
+            fromCard.setBalanceMinor(Money.subtract(fromCard.getBalanceMinor(), amountMinor));
+            toCard.setBalanceMinor(Money.add(toCard.getBalanceMinor(), amountMinor));
+            database.cardRepository.save(fromCard);
+            database.cardRepository.save(toCard);
+            return null;
+        }));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.noleg.bankcards.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import ru.noleg.bankcards.repository.RevokedUserRepository;
+import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.security.jwt.JwtRequestFilter;
+import ru.noleg.bankcards.security.jwt.JwtTokenProvider;
+import ru.noleg.bankcards.security.jwt.SecurityVersionRegistry;
+import ru.noleg.bankcards.security.jwt.VerifiedTokenCache;
+import ru.noleg.bankcards.security.user.UserDetailsImpl;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the authentication filter for a client repeating the same token, with and without
+ * the verified-token cache. Authentication is stateless, so no user is loaded on either path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+
+    @Param({"false", "true"})
+    private boolean tokenCache;
+
+    private JwtRequestFilter jwtRequestFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain filterChain;
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider jwtTokenProvider = BenchmarkFixtures.jwtTokenProvider();
+        UserDetailsService userDetailsService = BenchmarkFixtures.stub(UserDetailsService.class, Map.of());
+        SecurityVersionRegistry securityVersionRegistry = new SecurityVersionRegistry(
+                BenchmarkFixtures.stub(UserRepository.class, Map.of()),
+                BenchmarkFixtures.stub(RevokedUserRepository.class, Map.of()),
+                3_600_000L
+        );
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), tokenCache, 10_000);
+        jwtRequestFilter = new JwtRequestFilter(
+                jwtTokenProvider, userDetailsService, securityVersionRegistry, verifiedTokenCache, true
+        );
+
+        String token = jwtTokenProvider.generateToken(new UserDetailsImpl(BenchmarkFixtures.user()));
+        request = new MockHttpServletRequest("GET", "/api/cards/1/balance");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        filterChain = (servletRequest, servletResponse) -> {
+        };
+    }
+
+    @Benchmark
+    public Authentication authenticateRequest() throws Exception {
+        jwtRequestFilter.doFilter(request, response, filterChain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.noleg.bankcards.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.noleg.bankcards.security.jwt.JwtTokenProvider;
+import ru.noleg.bankcards.security.jwt.VerifiedClaims;
+import ru.noleg.bankcards.security.user.UserDetailsImpl;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Token checks done by the authentication filter on every request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider jwtTokenProvider;
+    private UserDetailsImpl userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenProvider = BenchmarkFixtures.jwtTokenProvider();
+        userDetails = new UserDetailsImpl(BenchmarkFixtures.user());
+        token = jwtTokenProvider.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public VerifiedClaims verify() {
+        return jwtTokenProvider.verify(token);
+    }
+
+    /**
+     * What the filter does: one verification, then validation against the loaded user from the parsed claims.
+     */
+    @Benchmark
+    public boolean authenticateRequest() {
+        VerifiedClaims claims = jwtTokenProvider.verify(token);
+        return claims.username() != null && jwtTokenProvider.isTokenValid(claims, userDetails);
+    }
+
+    /**
+     * Baseline: what the filter did before, with the key decoded and the parser built for each of the three parses.
+     */
+    @Benchmark
+    public boolean authenticateRequestParsingPerClaim() {
+        String username = PerClaimParsing.extractClaim(token, Claims::getSubject);
+        return username != null
+                && PerClaimParsing.extractClaim(token, Claims::getSubject).equals(userDetails.getUsername())
+                && !PerClaimParsing.extractClaim(token, Claims::getExpiration).before(new Date());
+    }
+
+    private static final class PerClaimParsing {
+
+        static <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+            SecretKey signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(BenchmarkFixtures.JWT_SIGNING_KEY));
+            Claims claims = Jwts.parser()
+                    .verifyWith(signingKey)
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            return claimsResolver.apply(claims);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.noleg.bankcards.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.noleg.bankcards.util.Money;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic of one transfer: check the sender covers the amount, debit it, credit the recipient.
+ * Compares the former {@link BigDecimal} balances with {@code long} minor units.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private BigDecimal fromBalance;
+    private BigDecimal toBalance;
+    private BigDecimal amount;
+
+    private long fromBalanceMinor;
+    private long toBalanceMinor;
+    private long amountMinor;
+
+    @Setup
+    public void setUp() {
+        fromBalance = new BigDecimal("125000.50");
+        toBalance = new BigDecimal("310.25");
+        amount = new BigDecimal("99.99");
+
+        fromBalanceMinor = Money.toMinor(fromBalance);
+        toBalanceMinor = Money.toMinor(toBalance);
+        amountMinor = Money.toMinor(amount);
+    }
+
+    @Benchmark
+    public void bigDecimalTransfer(Blackhole blackhole) {
+        if (fromBalance.compareTo(amount) >= 0) {
+            blackhole.consume(fromBalance.subtract(amount));
+            blackhole.consume(toBalance.add(amount));
+        }
+    }
+
+    @Benchmark
+    public void minorUnitsTransfer(Blackhole blackhole) {
+        if (Money.covers(fromBalanceMinor, amountMinor)) {
+            blackhole.consume(Money.subtract(fromBalanceMinor, amountMinor));
+            blackhole.consume(Money.add(toBalanceMinor, amountMinor));
+        }
+    }
+
+    @Benchmark
+    public void decimalRequestToMinorUnitsTransfer(Blackhole blackhole) {
+        long requestMinor = Money.toMinor(amount);
+        if (Money.covers(fromBalanceMinor, requestMinor)) {
+            blackhole.consume(Money.subtract(fromBalanceMinor, requestMinor));
+            blackhole.consume(Money.add(toBalanceMinor, requestMinor));
+        }
+    }
+}
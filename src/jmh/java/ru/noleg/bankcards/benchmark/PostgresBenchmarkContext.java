@@ -0,0 +1,52 @@
+package ru.noleg.bankcards.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.noleg.bankcards.BankCardsApplication;
+
+/**
+ * The application context of the benchmarks that need the real database: PostgreSQL runs in a Testcontainers
+ * container, so these benchmarks need Docker, like the integration tests. Call {@link #close} from the
+ * {@code @TearDown} of the state that opened it.
+ */
+final class PostgresBenchmarkContext implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+
+    private PostgresBenchmarkContext(PostgreSQLContainer<?> postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static PostgresBenchmarkContext start(String... properties) {
+        PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+                .withDatabaseName("benchmarkdb")
+                .withUsername("benchmark")
+                .withPassword("benchmark");
+        postgres.start();
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BankCardsApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "server.port=0"
+                )
+                .properties(properties)
+                .run();
+        return new PostgresBenchmarkContext(postgres, context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        postgres.stop();
+    }
+}
@@ -0,0 +1,27 @@
+package ru.noleg.bankcards.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncTransferConfiguration {
+
+    /**
+     * Bounded pool for transfers accepted with {@code 202 Accepted}. The queue is bounded too,
+     * so a burst beyond its capacity is rejected instead of piling up in memory.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor transferExecutor(@Value("${app.transfer.async.pool-size:16}") int poolSize,
+                                                   @Value("${app.transfer.async.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transfer-async-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
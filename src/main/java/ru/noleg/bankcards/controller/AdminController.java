@@ -22,10 +22,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.noleg.bankcards.dto.user.UserDto;
 import ru.noleg.bankcards.dto.user.UserSort;
+import ru.noleg.bankcards.dto.user.UserWindowDto;
 import ru.noleg.bankcards.entity.Role;
 import ru.noleg.bankcards.entity.User;
 import ru.noleg.bankcards.mapper.UserMapper;
 import ru.noleg.bankcards.service.UserService;
+import ru.noleg.bankcards.util.CursorCodec;
 
 import java.util.List;
 
@@ -71,6 +73,37 @@ public class AdminController {
                 .body(userDtos);
     }
 
+    @GetMapping("/users/scroll")
+    @Operation(
+            summary = "Получение пользователей по курсору.",
+            description = "Позволяет получить пользователей системы постранично по курсору, без подсчёта общего количества."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserWindowDto> scrollUsers(
+            @Parameter(description = "Курсор из предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @Min(1) @Max(100) @RequestParam(defaultValue = "20") Integer limit,
+            @Parameter(description = "Сортировка") @RequestParam(defaultValue = "ID_ASC") UserSort sort
+    ) {
+        logger.info("Request: GET scroll users, cursor {}, limit {}.", cursor, limit);
+
+        CursorCodec.Keyset after = cursor == null ? null : CursorCodec.decodeKeyset(cursor);
+        List<User> users = userService.scrollAll(sort, after, limit + 1);
+
+        // One extra user is fetched only to learn whether a next page exists.
+        boolean hasNext = users.size() > limit;
+        List<User> page = hasNext ? users.subList(0, limit) : users;
+        String nextCursor = null;
+        if (hasNext) {
+            User last = page.get(page.size() - 1);
+            nextCursor = CursorCodec.encode(last.getId(), sort == UserSort.LAST_NAME_ASC ? last.getLastName() : null);
+        }
+
+        logger.info("Got {} users.", page.size());
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(new UserWindowDto(userMapper.mapToUserDtos(page), nextCursor));
+    }
+
     @DeleteMapping("/users/{userId}")
     @Operation(
             summary = "Удаление пользователя.",
@@ -1,14 +1,20 @@
 package ru.noleg.bankcards.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,21 +22,41 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.noleg.bankcards.dto.card.CardDto;
+import ru.noleg.bankcards.dto.card.CardExportFormat;
+import ru.noleg.bankcards.dto.card.CardNumberDto;
+import ru.noleg.bankcards.dto.card.CardSearchFilter;
 import ru.noleg.bankcards.dto.card.CardSort;
+import ru.noleg.bankcards.dto.card.CardWindowDto;
 import ru.noleg.bankcards.dto.card.CreateCardDto;
 import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.IdempotentOperation;
 import ru.noleg.bankcards.mapper.CardMapper;
+import ru.noleg.bankcards.repository.CardSummary;
 import ru.noleg.bankcards.security.user.UserDetailsImpl;
 import ru.noleg.bankcards.service.CardService;
+import ru.noleg.bankcards.service.IdempotencyService;
+import ru.noleg.bankcards.util.CursorCodec;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -45,12 +71,27 @@ public class CardController {
 
     private static final Logger logger = LoggerFactory.getLogger(CardController.class);
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String CSV_HEADER = "maskedNumber,ownerId,expirationDate,status,balance\n";
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final CardService cardService;
     private final CardMapper cardMapper;
-
-    public CardController(CardService cardService, CardMapper cardMapper) {
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final Duration exportTimeout;
+
+    public CardController(CardService cardService,
+                          CardMapper cardMapper,
+                          IdempotencyService idempotencyService,
+                          ObjectMapper objectMapper,
+                          @Value("${app.card-export.timeout:30m}") Duration exportTimeout) {
         this.cardService = cardService;
         this.cardMapper = cardMapper;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.exportTimeout = exportTimeout;
     }
 
     @PostMapping()
@@ -73,6 +114,25 @@ public class CardController {
                 .body(cardId);
     }
 
+    @PostMapping("/bulk")
+    @Operation(
+            summary = "Массовый выпуск карт.",
+            description = "Позволяет выпустить пакет банковских карт за один запрос."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Long>> createCards(
+            @RequestBody @NotEmpty @Size(max = 100000) List<@Valid CreateCardDto> cardDtos
+    ) {
+        logger.info("Request: POST create {} cards.", cardDtos.size());
+
+        List<Long> cardIds = cardService.createAll(cardMapper.mapToCardEntities(cardDtos));
+
+        logger.info("{} cards successfully created.", cardIds.size());
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(cardIds);
+    }
+
     @PostMapping("/activate/{cardId}")
     @Operation(
             summary = "Активация карты.",
@@ -113,6 +173,26 @@ public class CardController {
                 .build();
     }
 
+    @PatchMapping("/{cardId}/balance-stripes")
+    @Operation(
+            summary = "Настройка распределённого баланса.",
+            description = "Позволяет распределить пополнения карты по нескольким частям баланса (0 - отключить)."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> updateBalanceStripes(
+            @Parameter(description = "Идентификатор карты", required = true) @Min(1) @PathVariable Long cardId,
+            @Parameter(description = "Количество частей баланса", required = true) @Min(0) @Max(64) @RequestParam Integer stripes
+    ) {
+        logger.info("Request: PATCH set {} balance stripes for card with id: {}.", stripes, cardId);
+
+        cardService.updateBalanceStripes(cardId, stripes);
+
+        logger.info("Balance stripes for card with id {} successfully updated.", cardId);
+        return ResponseEntity
+                .status(HttpStatus.NO_CONTENT)
+                .build();
+    }
+
     @PostMapping("/block/self/{cardId}")
     @Operation(
             summary = "Блокировка карты пользователем.",
@@ -162,16 +242,35 @@ public class CardController {
     public ResponseEntity<Void> deposit(
             @Parameter(description = "Идентификатор карты", required = true) @Min(1) @PathVariable Long cardId,
             @Parameter(description = "Сумма пополнения карты", required = true) @Min(1) @RequestParam BigDecimal amount,
+            @Parameter(description = "Ключ идемпотентности запроса")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) @Size(min = 1, max = 100) String idempotencyKey,
             @AuthenticationPrincipal UserDetailsImpl userDetails
     ) {
         Long ownerId = userDetails.getId();
         logger.info("Request: POST deposit {} units to card with ownerId: {} for user with ownerId: {}.", amount, cardId, ownerId);
 
-        cardService.deposit(cardId, amount, ownerId);
+        Runnable deposit = () -> cardService.deposit(cardId, amount, ownerId);
+
+        if (idempotencyKey == null) {
+            deposit.run();
 
-        logger.info("Deposit {} units to card with ownerId: {} successfully completed.", amount, cardId);
+            logger.info("Deposit {} units to card with ownerId: {} successfully completed.", amount, cardId);
+            return ResponseEntity
+                    .status(HttpStatus.NO_CONTENT)
+                    .build();
+        }
+
+        String request = cardId + ":" + amount.stripTrailingZeros().toPlainString();
+        IdempotencyService.Outcome outcome = idempotencyService.execute(
+                ownerId, idempotencyKey, IdempotentOperation.DEPOSIT, request, deposit
+        );
+
+        logger.info("Deposit {} units to card with ownerId: {} successfully completed, replayed: {}.",
+                amount, cardId, outcome.replayed()
+        );
         return ResponseEntity
-                .status(HttpStatus.NO_CONTENT)
+                .status(outcome.responseStatus())
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(outcome.replayed()))
                 .build();
     }
 
@@ -215,6 +314,44 @@ public class CardController {
                 .body(cardMapper.mapToCardDto(card));
     }
 
+    @GetMapping("/by-number")
+    @Operation(
+            summary = "Поиск карты по номеру.",
+            description = "Позволяет администратору найти банковскую карту по ее полному номеру."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardDto> getCardByNumber(
+            @Parameter(description = "Номер карты", required = true) @Pattern(regexp = "\\d{16}") @RequestParam String number
+    ) {
+        logger.info("Request: GET card by number.");
+
+        Card card = cardService.getByNumber(number);
+
+        logger.info("Card with id {} successfully found by number.", card.getId());
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(cardMapper.mapToCardDto(card));
+    }
+
+    @GetMapping("/{id}/number")
+    @Operation(
+            summary = "Получение полного номера карты.",
+            description = "Позволяет администратору получить расшифрованный номер банковской карты."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardNumberDto> revealCardNumber(
+            @Parameter(description = "Идентификатор карты", required = true) @Min(1) @PathVariable Long id
+    ) {
+        logger.info("Request: GET number of card with id: {}.", id);
+
+        String number = cardService.revealNumber(id);
+
+        logger.info("Number of card with id {} successfully revealed.", id);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(new CardNumberDto(id, number));
+    }
+
     @GetMapping("/owner/me")
     @Operation(
             summary = "Получение своих карт пользователем.",
@@ -230,12 +367,36 @@ public class CardController {
         logger.info("Request: GET cards for user with id: {}.", userDetails.getId());
 
         Long ownerId = userDetails.getId();
-        List<Card> cards = cardService.getAllByOwner(ownerId, pageNumber, pageSize, sort.getSortValue());
+        List<CardSummary> cards = cardService.getAllByOwner(ownerId, pageNumber, pageSize, sort.getSortValue());
 
         logger.info("Cards for user with id {} successfully fetched.", ownerId);
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(cardMapper.mapToCardDtos(cards));
+                .body(cardMapper.mapSummariesToCardDtos(cards));
+    }
+
+    @GetMapping("/owner/me/scroll")
+    @Operation(
+            summary = "Получение своих карт пользователем по курсору.",
+            description = "Позволяет получить банковские карты владельца постранично по курсору, без подсчёта общего количества."
+    )
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CardWindowDto> scrollCardsByOwner(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @Parameter(description = "Курсор из предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @Min(1) @Max(100) @RequestParam(defaultValue = "20") Integer limit,
+            @Parameter(description = "Сортировка") @RequestParam(defaultValue = "ID_ASC") CardSort sort
+    ) {
+        Long ownerId = userDetails.getId();
+        logger.info("Request: GET scroll cards for user with id: {}, cursor {}, limit {}.", ownerId, cursor, limit);
+
+        CursorCodec.Keyset after = cursor == null ? null : CursorCodec.decodeKeyset(cursor);
+        List<CardSummary> cards = cardService.scrollAllByOwner(ownerId, sort, after, limit + 1);
+
+        logger.info("Cards for user with id {} successfully scrolled.", ownerId);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(this.toCardWindow(cards, limit, sort));
     }
 
     @GetMapping("/owner/{ownerId}")
@@ -252,12 +413,35 @@ public class CardController {
     ) {
         logger.info("Request: GET by admin: get cards for user with id: {}.", ownerId);
 
-        List<Card> cards = cardService.getAllByOwner(ownerId, pageNumber, pageSize, sort.getSortValue());
+        List<CardSummary> cards = cardService.getAllByOwner(ownerId, pageNumber, pageSize, sort.getSortValue());
 
         logger.info("Cards for user with id {} successfully fetched by admin.", ownerId);
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(cardMapper.mapToCardDtos(cards));
+                .body(cardMapper.mapSummariesToCardDtos(cards));
+    }
+
+    @GetMapping("/owner/{ownerId}/scroll")
+    @Operation(
+            summary = "Получение карт владельца по курсору.",
+            description = "Позволяет получить банковские карты владельца постранично по курсору, без подсчёта общего количества."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardWindowDto> scrollCardsByOwner(
+            @Parameter(description = "Идентификатор владельца карты", required = true) @Min(1) @PathVariable Long ownerId,
+            @Parameter(description = "Курсор из предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @Min(1) @Max(100) @RequestParam(defaultValue = "20") Integer limit,
+            @Parameter(description = "Сортировка") @RequestParam(defaultValue = "ID_ASC") CardSort sort
+    ) {
+        logger.info("Request: GET by admin: scroll cards for user with id: {}, cursor {}, limit {}.", ownerId, cursor, limit);
+
+        CursorCodec.Keyset after = cursor == null ? null : CursorCodec.decodeKeyset(cursor);
+        List<CardSummary> cards = cardService.scrollAllByOwner(ownerId, sort, after, limit + 1);
+
+        logger.info("Cards for user with id {} successfully scrolled by admin.", ownerId);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(this.toCardWindow(cards, limit, sort));
     }
 
     @GetMapping()
@@ -273,11 +457,142 @@ public class CardController {
     ) {
         logger.info("Request: GET fetching all cards.");
 
-        List<Card> cards = cardService.getAll(pageNumber, pageSize, sort.getSortValue());
+        List<CardSummary> cards = cardService.getAll(pageNumber, pageSize, sort.getSortValue());
 
         logger.info("Got {} cards.", cards.size());
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(cardMapper.mapToCardDtos(cards));
+                .body(cardMapper.mapSummariesToCardDtos(cards));
+    }
+
+    @GetMapping("/scroll")
+    @Operation(
+            summary = "Получение всех карт по курсору.",
+            description = "Позволяет получить все банковские карты постранично по курсору, без подсчёта общего количества."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardWindowDto> scrollAllCards(
+            @Parameter(description = "Курсор из предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @Min(1) @Max(100) @RequestParam(defaultValue = "20") Integer limit,
+            @Parameter(description = "Сортировка") @RequestParam(defaultValue = "ID_ASC") CardSort sort
+    ) {
+        logger.info("Request: GET scroll all cards, cursor {}, limit {}.", cursor, limit);
+
+        CursorCodec.Keyset after = cursor == null ? null : CursorCodec.decodeKeyset(cursor);
+        List<CardSummary> cards = cardService.scrollAll(sort, after, limit + 1);
+
+        logger.info("Got {} cards.", Math.min(cards.size(), limit));
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(this.toCardWindow(cards, limit, sort));
+    }
+
+    @GetMapping("/search")
+    @Operation(
+            summary = "Поиск карт.",
+            description = "Позволяет найти банковские карты по статусу, владельцу, сроку действия и балансу. "
+                    + "Незаданные условия не применяются, баланс сравнивается без незачисленных пополнений. "
+                    + "Карты возвращаются в порядке id постранично по курсору."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardWindowDto> searchCards(
+            @Parameter(description = "Идентификатор владельца карты") @Min(1) @RequestParam(required = false) Long ownerId,
+            @Parameter(description = "Статус карты") @RequestParam(required = false) CardStatus status,
+            @Parameter(description = "Дата окончания действия от (включительно)", example = "2026-01")
+            @RequestParam(required = false) YearMonth expiresFrom,
+            @Parameter(description = "Дата окончания действия до (включительно)", example = "2026-12")
+            @RequestParam(required = false) YearMonth expiresTo,
+            @Parameter(description = "Баланс от (включительно)") @RequestParam(required = false) BigDecimal balanceFrom,
+            @Parameter(description = "Баланс до (включительно)") @RequestParam(required = false) BigDecimal balanceTo,
+            @Parameter(description = "Курсор из предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @Min(1) @Max(100) @RequestParam(defaultValue = "20") Integer limit
+    ) {
+        CardSearchFilter filter = new CardSearchFilter(ownerId, status, expiresFrom, expiresTo, balanceFrom, balanceTo);
+        logger.info("Request: GET search cards by {}, cursor {}, limit {}.", filter, cursor, limit);
+
+        Long afterId = cursor == null ? null : CursorCodec.decode(cursor);
+        List<CardSummary> cards = cardService.search(filter, afterId, limit + 1);
+
+        logger.info("Found {} cards.", Math.min(cards.size(), limit));
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(this.toCardWindow(cards, limit, CardSort.ID_ASC));
+    }
+
+    @GetMapping("/export")
+    @Operation(
+            summary = "Выгрузка всех карт.",
+            description = "Позволяет выгрузить все банковские карты одним потоком в формате NDJSON или CSV."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @Parameter(description = "Формат выгрузки") @RequestParam(defaultValue = "NDJSON") CardExportFormat format,
+            HttpServletRequest request
+    ) {
+        logger.info("Request: GET export all cards as {}.", format);
+
+        // The export streams the whole table in one response, so only it gets a timeout longer than the default.
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+
+        StreamingResponseBody body = outputStream -> {
+            long exported = this.writeExport(outputStream, format);
+            logger.info("Exported {} cards as {}.", exported, format);
+        };
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+
+    /**
+     * Cards are fetched with one extra row only to learn whether a next page exists.
+     */
+    private CardWindowDto toCardWindow(List<CardSummary> cards, int limit, CardSort sort) {
+        boolean hasNext = cards.size() > limit;
+        List<CardSummary> page = hasNext ? cards.subList(0, limit) : cards;
+
+        String nextCursor = null;
+        if (hasNext) {
+            CardSummary last = page.get(page.size() - 1);
+            String key = sort == CardSort.DATE_ASC ? last.expirationDate().toString() : null;
+            nextCursor = CursorCodec.encode(last.id(), key);
+        }
+
+        return new CardWindowDto(cardMapper.mapSummariesToCardDtos(page), nextCursor);
+    }
+
+    private long writeExport(OutputStream outputStream, CardExportFormat format) throws IOException {
+        BufferedOutputStream out = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+        if (format == CardExportFormat.CSV) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        long exported;
+        try {
+            exported = cardService.exportAll(card -> {
+                CardDto dto = cardMapper.mapToCardDto(card);
+                try {
+                    if (format == CardExportFormat.CSV) {
+                        out.write(this.toCsvRow(dto).getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        out.write(objectMapper.writeValueAsBytes(dto));
+                        out.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        out.flush();
+        return exported;
+    }
+
+    private String toCsvRow(CardDto dto) {
+        return dto.maskedNumber() + ',' + dto.ownerId() + ',' + dto.expirationDate() + ','
+                + dto.status() + ',' + dto.balance().toPlainString() + '\n';
     }
 }
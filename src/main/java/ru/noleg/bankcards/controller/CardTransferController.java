@@ -1,21 +1,47 @@
 package ru.noleg.bankcards.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.noleg.bankcards.dto.transfer.AsyncTransferDto;
+import ru.noleg.bankcards.dto.transfer.BatchTransferMode;
 import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferHistoryDto;
+import ru.noleg.bankcards.dto.transfer.TransferResultDto;
+import ru.noleg.bankcards.entity.IdempotentOperation;
+import ru.noleg.bankcards.entity.TransferRecord;
+import ru.noleg.bankcards.mapper.TransferRecordMapper;
 import ru.noleg.bankcards.security.user.UserDetailsImpl;
+import ru.noleg.bankcards.service.AsyncTransferService;
 import ru.noleg.bankcards.service.CardTransferService;
+import ru.noleg.bankcards.service.IdempotencyService;
+import ru.noleg.bankcards.service.TransferJournalService;
+import ru.noleg.bankcards.util.CursorCodec;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/transfer")
@@ -23,15 +49,31 @@ import ru.noleg.bankcards.service.CardTransferService;
         name = "Контроллер для переводов.",
         description = "Позволяет переводить деньги между картами одного пользователя."
 )
+@Validated
 @SecurityRequirement(name = "JWT")
 public class CardTransferController {
 
     private static final Logger logger = LoggerFactory.getLogger(CardTransferController.class);
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final CardTransferService cardTransferService;
+    private final IdempotencyService idempotencyService;
+    private final AsyncTransferService asyncTransferService;
+    private final TransferJournalService transferJournalService;
+    private final TransferRecordMapper transferRecordMapper;
 
-    public CardTransferController(CardTransferService cardTransferService) {
+    public CardTransferController(CardTransferService cardTransferService,
+                                  IdempotencyService idempotencyService,
+                                  AsyncTransferService asyncTransferService,
+                                  TransferJournalService transferJournalService,
+                                  TransferRecordMapper transferRecordMapper) {
         this.cardTransferService = cardTransferService;
+        this.idempotencyService = idempotencyService;
+        this.asyncTransferService = asyncTransferService;
+        this.transferJournalService = transferJournalService;
+        this.transferRecordMapper = transferRecordMapper;
     }
 
     @PostMapping()
@@ -42,6 +84,8 @@ public class CardTransferController {
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<Void> transfer(
             @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @Parameter(description = "Ключ идемпотентности запроса")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) @Size(min = 1, max = 100) String idempotencyKey,
             @Valid @RequestBody TransferDto transferDto
     ) {
         Long ownerId = userDetails.getId();
@@ -50,13 +94,134 @@ public class CardTransferController {
                 ownerId, transferDto.amount(), transferDto.fromCardId(), transferDto.toCardId()
         );
 
-        cardTransferService.transfer(ownerId, transferDto.fromCardId(), transferDto.toCardId(), transferDto.amount());
+        Runnable transfer = () -> cardTransferService.transfer(
+                ownerId, transferDto.fromCardId(), transferDto.toCardId(), transferDto.amount()
+        );
+
+        if (idempotencyKey == null) {
+            transfer.run();
 
-        logger.info("Transfer from card {} to card {} successfully completed.",
-                transferDto.fromCardId(), transferDto.toCardId()
+            logger.info("Transfer from card {} to card {} successfully completed.",
+                    transferDto.fromCardId(), transferDto.toCardId()
+            );
+            return ResponseEntity
+                    .noContent()
+                    .build();
+        }
+
+        String request = transferDto.fromCardId() + ":" + transferDto.toCardId() + ":" +
+                transferDto.amount().stripTrailingZeros().toPlainString();
+        IdempotencyService.Outcome outcome = idempotencyService.execute(
+                ownerId, idempotencyKey, IdempotentOperation.TRANSFER, request, transfer
+        );
+
+        logger.info("Transfer from card {} to card {} successfully completed, replayed: {}.",
+                transferDto.fromCardId(), transferDto.toCardId(), outcome.replayed()
         );
         return ResponseEntity
-                .noContent()
+                .status(outcome.responseStatus())
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(outcome.replayed()))
                 .build();
     }
+
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Пакетный перевод средств.",
+            description = "Позволяет выполнить пакет переводов между картами пользователя в одной транзакции."
+    )
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<TransferResultDto>> transferBatch(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @Parameter(description = "Режим обработки пакета") @RequestParam(defaultValue = "ALL_OR_NOTHING") BatchTransferMode mode,
+            @RequestBody @NotEmpty @Size(max = 5000) List<@Valid TransferDto> transfers
+    ) {
+        Long ownerId = userDetails.getId();
+
+        logger.info("Request: POST /transfer/batch: User {} wants to make {} transfers in mode {}",
+                ownerId, transfers.size(), mode
+        );
+
+        List<TransferResultDto> results = cardTransferService.transferBatch(ownerId, transfers, mode);
+
+        logger.info("Batch of {} transfers for user {} successfully processed.", transfers.size(), ownerId);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(results);
+    }
+
+    @PostMapping("/async")
+    @Operation(
+            summary = "Асинхронный перевод средств.",
+            description = "Принимает перевод между картами пользователя к исполнению и сразу возвращает его идентификатор."
+    )
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<AsyncTransferDto> transferAsync(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @Valid @RequestBody TransferDto transferDto
+    ) {
+        Long ownerId = userDetails.getId();
+
+        logger.info("Request: POST /transfer/async: User {} wants to transfer {} from card {} to card {}",
+                ownerId, transferDto.amount(), transferDto.fromCardId(), transferDto.toCardId()
+        );
+
+        AsyncTransferDto transfer = asyncTransferService.submit(ownerId, transferDto);
+
+        logger.info("Transfer {} from card {} to card {} accepted.",
+                transfer.id(), transferDto.fromCardId(), transferDto.toCardId()
+        );
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/transfer/" + transfer.id()))
+                .body(transfer);
+    }
+
+    @GetMapping("/history")
+    @Operation(
+            summary = "История переводов.",
+            description = "Позволяет получить переводы пользователя от новых к старым, постранично по курсору."
+    )
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TransferHistoryDto> getHistory(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @Parameter(description = "Курсор из предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @Min(1) @Max(100) @RequestParam(defaultValue = "20") Integer limit
+    ) {
+        Long ownerId = userDetails.getId();
+        logger.info("Request: GET /transfer/history: user {}, cursor {}, limit {}", ownerId, cursor, limit);
+
+        Long beforeId = cursor == null ? null : CursorCodec.decode(cursor);
+        List<TransferRecord> records = transferJournalService.getHistory(ownerId, beforeId, limit + 1);
+
+        // One extra record is fetched only to learn whether a next page exists.
+        boolean hasNext = records.size() > limit;
+        List<TransferRecord> page = hasNext ? records.subList(0, limit) : records;
+        String nextCursor = hasNext ? CursorCodec.encode(page.get(page.size() - 1).getId()) : null;
+
+        logger.info("Got {} transfers of user {}.", page.size(), ownerId);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(new TransferHistoryDto(transferRecordMapper.mapToTransferRecordDtos(page), nextCursor));
+    }
+
+    @GetMapping("/{transferId}")
+    @Operation(
+            summary = "Статус асинхронного перевода.",
+            description = "Позволяет получить статус перевода, принятого асинхронно."
+    )
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<AsyncTransferDto> getTransferStatus(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @Parameter(description = "Идентификатор перевода", required = true) @PathVariable UUID transferId
+    ) {
+        Long ownerId = userDetails.getId();
+        logger.info("Request: GET /transfer/{}: status for user {}", transferId, ownerId);
+
+        AsyncTransferDto transfer = asyncTransferService.getStatus(ownerId, transferId);
+
+        logger.info("Status of transfer {} successfully fetched: {}.", transferId, transfer.status());
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(transfer);
+    }
 }
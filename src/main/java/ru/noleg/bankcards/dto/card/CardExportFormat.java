@@ -0,0 +1,19 @@
+package ru.noleg.bankcards.dto.card;
+
+import org.springframework.http.MediaType;
+
+public enum CardExportFormat {
+
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    private final MediaType mediaType;
+
+    CardExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+}
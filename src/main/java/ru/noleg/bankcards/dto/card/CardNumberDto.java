@@ -0,0 +1,14 @@
+package ru.noleg.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Полный номер банковской карты")
+public record CardNumberDto(
+
+        @Schema(description = "Id карты", example = "1")
+        Long id,
+
+        @Schema(description = "Номер карты", example = "1234567812345678")
+        String number
+) {
+}
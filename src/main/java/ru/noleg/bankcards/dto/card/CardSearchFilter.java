@@ -0,0 +1,30 @@
+package ru.noleg.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.noleg.bankcards.entity.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Schema(description = "Условия поиска банковских карт, незаданные условия не применяются")
+public record CardSearchFilter(
+
+        @Schema(description = "Id владельца карты", example = "1")
+        Long ownerId,
+
+        @Schema(description = "Статус карты", example = "BLOCKED")
+        CardStatus status,
+
+        @Schema(description = "Дата окончания действия карты от (включительно)", example = "2026-01")
+        YearMonth expiresFrom,
+
+        @Schema(description = "Дата окончания действия карты до (включительно)", example = "2026-12")
+        YearMonth expiresTo,
+
+        @Schema(description = "Баланс карты от (включительно)", example = "0.00")
+        BigDecimal balanceFrom,
+
+        @Schema(description = "Баланс карты до (включительно)", example = "1000.00")
+        BigDecimal balanceTo
+) {
+}
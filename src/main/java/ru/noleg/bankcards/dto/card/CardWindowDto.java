@@ -0,0 +1,16 @@
+package ru.noleg.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Страница банковских карт, полученная по курсору")
+public record CardWindowDto(
+
+        @Schema(description = "Банковские карты в порядке выбранной сортировки")
+        List<CardDto> items,
+
+        @Schema(description = "Курсор следующей страницы, отсутствует на последней странице", example = "NDI")
+        String nextCursor
+) {
+}
@@ -0,0 +1,41 @@
+package ru.noleg.bankcards.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.noleg.bankcards.entity.TransferStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Schema(description = "Асинхронный перевод")
+public record AsyncTransferDto(
+
+        @Schema(description = "Идентификатор перевода", example = "3f1c6a52-8f0e-4d7b-9a55-0c2f4e1b7d21")
+        UUID id,
+
+        @Schema(description = "Id карты с которой совершается перевод", example = "1")
+        Long fromCardId,
+
+        @Schema(description = "Id карты на которую совершается перевод", example = "2")
+        Long toCardId,
+
+        @Schema(description = "Сумма перевода", example = "100.00")
+        BigDecimal amount,
+
+        @Schema(description = "Статус перевода", example = "PENDING")
+        TransferStatus status,
+
+        @Schema(description = "Причина ошибки", example = "Insufficient funds on the sender card.")
+        String error
+) {
+    public static AsyncTransferDto pending(UUID id, TransferDto transfer) {
+        return new AsyncTransferDto(id, transfer.fromCardId(), transfer.toCardId(), transfer.amount(), TransferStatus.PENDING, null);
+    }
+
+    public AsyncTransferDto completed() {
+        return new AsyncTransferDto(id, fromCardId, toCardId, amount, TransferStatus.COMPLETED, null);
+    }
+
+    public AsyncTransferDto failed(String error) {
+        return new AsyncTransferDto(id, fromCardId, toCardId, amount, TransferStatus.FAILED, error);
+    }
+}
@@ -0,0 +1,6 @@
+package ru.noleg.bankcards.dto.transfer;
+
+public enum BatchTransferMode {
+    ALL_OR_NOTHING,
+    PER_ITEM
+}
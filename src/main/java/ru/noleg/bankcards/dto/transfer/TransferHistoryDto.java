@@ -0,0 +1,16 @@
+package ru.noleg.bankcards.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Страница журнала переводов")
+public record TransferHistoryDto(
+
+        @Schema(description = "Переводы, от новых к старым")
+        List<TransferRecordDto> items,
+
+        @Schema(description = "Курсор следующей страницы, отсутствует на последней странице", example = "NDI")
+        String nextCursor
+) {
+}
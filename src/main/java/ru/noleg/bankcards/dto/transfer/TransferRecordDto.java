@@ -0,0 +1,33 @@
+package ru.noleg.bankcards.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.noleg.bankcards.entity.TransferStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Schema(description = "Запись журнала переводов")
+public record TransferRecordDto(
+
+        @Schema(description = "Id записи", example = "42")
+        Long id,
+
+        @Schema(description = "Id карты с которой совершается перевод", example = "1")
+        Long fromCardId,
+
+        @Schema(description = "Id карты на которую совершается перевод", example = "2")
+        Long toCardId,
+
+        @Schema(description = "Сумма перевода", example = "100.00")
+        BigDecimal amount,
+
+        @Schema(description = "Статус перевода", example = "COMPLETED")
+        TransferStatus status,
+
+        @Schema(description = "Причина ошибки", example = "Insufficient funds on the sender card.")
+        String error,
+
+        @Schema(description = "Время перевода", example = "2025-07-01T12:00:00")
+        LocalDateTime createdAt
+) {
+}
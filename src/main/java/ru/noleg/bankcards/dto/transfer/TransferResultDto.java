@@ -0,0 +1,33 @@
+package ru.noleg.bankcards.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.noleg.bankcards.entity.TransferStatus;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Результат перевода")
+public record TransferResultDto(
+
+        @Schema(description = "Id карты с которой совершается перевод", example = "1")
+        Long fromCardId,
+
+        @Schema(description = "Id карты на которую совершается перевод", example = "2")
+        Long toCardId,
+
+        @Schema(description = "Сумма перевода", example = "100.00")
+        BigDecimal amount,
+
+        @Schema(description = "Статус перевода", example = "COMPLETED")
+        TransferStatus status,
+
+        @Schema(description = "Причина ошибки", example = "Insufficient funds on the sender card.")
+        String error
+) {
+    public static TransferResultDto completed(TransferDto transfer) {
+        return new TransferResultDto(transfer.fromCardId(), transfer.toCardId(), transfer.amount(), TransferStatus.COMPLETED, null);
+    }
+
+    public static TransferResultDto failed(TransferDto transfer, String error) {
+        return new TransferResultDto(transfer.fromCardId(), transfer.toCardId(), transfer.amount(), TransferStatus.FAILED, error);
+    }
+}
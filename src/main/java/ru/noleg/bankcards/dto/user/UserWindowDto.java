@@ -0,0 +1,16 @@
+package ru.noleg.bankcards.dto.user;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Страница пользователей, полученная по курсору")
+public record UserWindowDto(
+
+        @Schema(description = "Пользователи в порядке выбранной сортировки")
+        List<UserDto> items,
+
+        @Schema(description = "Курсор следующей страницы, отсутствует на последней странице", example = "NDI")
+        String nextCursor
+) {
+}
@@ -11,9 +11,12 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import ru.noleg.bankcards.jpa.converter.YearMonthAttributeConverter;
+import ru.noleg.bankcards.util.Money;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
@@ -23,15 +26,25 @@ import java.util.Objects;
 @Table(name = "t_cards")
 public class Card {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_id_generator")
+    @SequenceGenerator(name = "card_id_generator", sequenceName = "seq_cards", allocationSize = 50)
     @Column(name = "c_id")
     private Long id;
 
     @Column(name = "c_number", nullable = false, unique = true)
     private String encryptedNumber;
 
-    @Transient
-    private String maskedNumber;
+    /**
+     * HMAC of the number, see {@link ru.noleg.bankcards.util.CardNumberHasher}; used to find a card by its number.
+     */
+    @Column(name = "c_number_hash", unique = true, length = 64)
+    private String numberHash;
+
+    /**
+     * Last four digits of the number, stored in clear so that listings never have to decrypt it.
+     */
+    @Column(name = "c_last4", length = 4)
+    private String last4;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "c_owner_id")
@@ -45,8 +58,27 @@ public class Card {
     @Enumerated(value = EnumType.STRING)
     private CardStatus status;
 
-    @Column(name = "c_balance", nullable = false)
-    private BigDecimal balance = BigDecimal.ZERO;
+    /**
+     * Balance in minor units, see {@link Money}.
+     */
+    @Column(name = "c_balance_minor", nullable = false)
+    private long balanceMinor;
+
+    /**
+     * Number of sub-balance rows credits are spread over; {@code 0} means deposits go straight to {@link #balanceMinor}.
+     */
+    @Column(name = "c_balance_stripes", nullable = false)
+    private int balanceStripes;
+
+    /**
+     * Credits still held in sub-balance rows, filled in by read paths for striped cards only.
+     */
+    @Transient
+    private long pendingBalanceMinor;
+
+    @Version
+    @Column(name = "c_version", nullable = false)
+    private Long version;
 
     public Card() {
     }
@@ -67,12 +99,20 @@ public class Card {
         this.encryptedNumber = number;
     }
 
-    public String getMaskedNumber() {
-        return maskedNumber;
+    public String getNumberHash() {
+        return numberHash;
+    }
+
+    public void setNumberHash(String numberHash) {
+        this.numberHash = numberHash;
     }
 
-    public void setMaskedNumber(String maskedNumber) {
-        this.maskedNumber = maskedNumber;
+    public String getLast4() {
+        return last4;
+    }
+
+    public void setLast4(String last4) {
+        this.last4 = last4;
     }
 
     public User getOwner() {
@@ -99,12 +139,40 @@ public class Card {
         this.status = status;
     }
 
-    public BigDecimal getBalance() {
-        return balance;
+    public long getBalanceMinor() {
+        return balanceMinor;
+    }
+
+    public void setBalanceMinor(long balanceMinor) {
+        this.balanceMinor = balanceMinor;
+    }
+
+    public int getBalanceStripes() {
+        return balanceStripes;
+    }
+
+    public void setBalanceStripes(int balanceStripes) {
+        this.balanceStripes = balanceStripes;
+    }
+
+    public long getPendingBalanceMinor() {
+        return pendingBalanceMinor;
+    }
+
+    public void setPendingBalanceMinor(long pendingBalanceMinor) {
+        this.pendingBalanceMinor = pendingBalanceMinor;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
     }
 
-    public void setBalance(BigDecimal balance) {
-        this.balance = balance;
+    public BigDecimal getTotalBalance() {
+        return Money.toDecimal(Money.add(balanceMinor, pendingBalanceMinor));
     }
 
     @Override
@@ -118,15 +186,16 @@ public class Card {
         Card card = (Card) object;
         return Objects.equals(id, card.id) &&
                 Objects.equals(encryptedNumber, card.encryptedNumber) &&
-                Objects.equals(maskedNumber, card.maskedNumber) &&
+                Objects.equals(last4, card.last4) &&
                 Objects.equals(owner, card.owner) &&
                 Objects.equals(expirationDate, card.expirationDate) &&
                 status == card.status &&
-                Objects.equals(balance, card.balance);
+                balanceMinor == card.balanceMinor &&
+                balanceStripes == card.balanceStripes;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, encryptedNumber, maskedNumber, owner, expirationDate, status, balance);
+        return Objects.hash(id, encryptedNumber, last4, owner, expirationDate, status, balanceMinor, balanceStripes);
     }
 }
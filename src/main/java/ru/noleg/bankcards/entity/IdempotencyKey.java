@@ -0,0 +1,151 @@
+package ru.noleg.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "t_idempotency_keys")
+public class IdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "c_id")
+    private Long id;
+
+    @Column(name = "c_owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "c_key", nullable = false, length = 100)
+    private String key;
+
+    @Column(name = "c_operation", nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    private IdempotentOperation operation;
+
+    @Column(name = "c_request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "c_response_status", nullable = false)
+    private int responseStatus;
+
+    @Column(name = "c_error")
+    private String error;
+
+    @Column(name = "c_created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyKey() {
+    }
+
+    public IdempotencyKey(Long ownerId,
+                          String key,
+                          IdempotentOperation operation,
+                          String requestHash,
+                          int responseStatus,
+                          String error,
+                          LocalDateTime createdAt) {
+        this.ownerId = ownerId;
+        this.key = key;
+        this.operation = operation;
+        this.requestHash = requestHash;
+        this.responseStatus = responseStatus;
+        this.error = error;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public IdempotentOperation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(IdempotentOperation operation) {
+        this.operation = operation;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public int getResponseStatus() {
+        return responseStatus;
+    }
+
+    public void setResponseStatus(int responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+        IdempotencyKey that = (IdempotencyKey) object;
+        return responseStatus == that.responseStatus &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(ownerId, that.ownerId) &&
+                Objects.equals(key, that.key) &&
+                operation == that.operation &&
+                Objects.equals(requestHash, that.requestHash) &&
+                Objects.equals(error, that.error) &&
+                Objects.equals(createdAt, that.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, ownerId, key, operation, requestHash, responseStatus, error, createdAt);
+    }
+}
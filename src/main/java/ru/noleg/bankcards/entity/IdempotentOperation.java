@@ -0,0 +1,6 @@
+package ru.noleg.bankcards.entity;
+
+public enum IdempotentOperation {
+    TRANSFER,
+    DEPOSIT
+}
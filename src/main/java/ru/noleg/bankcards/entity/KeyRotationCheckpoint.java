@@ -0,0 +1,116 @@
+package ru.noleg.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Progress of re-encrypting card numbers with one key: cards up to {@link #lastCardId} are done.
+ */
+@Entity
+@Table(name = "t_key_rotation_checkpoints")
+public class KeyRotationCheckpoint {
+    @Id
+    @Column(name = "c_key_id", length = 16)
+    private String keyId;
+
+    @Column(name = "c_last_card_id", nullable = false)
+    private long lastCardId;
+
+    @Column(name = "c_reencrypted", nullable = false)
+    private long reencrypted;
+
+    /**
+     * Cards of the current pass that couldn't be re-encrypted; a pass with failures is repeated from the start.
+     */
+    @Column(name = "c_failed", nullable = false)
+    private long failed;
+
+    @Column(name = "c_completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "c_updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public KeyRotationCheckpoint() {
+    }
+
+    public KeyRotationCheckpoint(String keyId, LocalDateTime updatedAt) {
+        this.keyId = keyId;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+
+    public long getLastCardId() {
+        return lastCardId;
+    }
+
+    public void setLastCardId(long lastCardId) {
+        this.lastCardId = lastCardId;
+    }
+
+    public long getReencrypted() {
+        return reencrypted;
+    }
+
+    public void setReencrypted(long reencrypted) {
+        this.reencrypted = reencrypted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+        KeyRotationCheckpoint that = (KeyRotationCheckpoint) object;
+        return lastCardId == that.lastCardId &&
+                reencrypted == that.reencrypted &&
+                failed == that.failed &&
+                completed == that.completed &&
+                Objects.equals(keyId, that.keyId) &&
+                Objects.equals(updatedAt, that.updatedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(keyId, lastCardId, reencrypted, failed, completed, updatedAt);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.noleg.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Deleted user whose tokens must be rejected until they expire; kept for one token lifetime after {@link #revokedAt}.
+ */
+@Entity
+@Table(name = "t_revoked_users")
+public class RevokedUser {
+    @Id
+    @Column(name = "c_user_id")
+    private Long userId;
+
+    @Column(name = "c_revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    public RevokedUser() {
+    }
+
+    public RevokedUser(Long userId, LocalDateTime revokedAt) {
+        this.userId = userId;
+        this.revokedAt = revokedAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+        RevokedUser that = (RevokedUser) object;
+        return Objects.equals(userId, that.userId) &&
+                Objects.equals(revokedAt, that.revokedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, revokedAt);
+    }
+}
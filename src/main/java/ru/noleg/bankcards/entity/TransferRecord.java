@@ -0,0 +1,154 @@
+package ru.noleg.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Journal entry of one transfer attempt. Card ids are plain columns, so entries outlive deleted cards.
+ */
+@Entity
+@Table(name = "t_transfers")
+public class TransferRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "c_id")
+    private Long id;
+
+    @Column(name = "c_owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "c_from_card_id", nullable = false)
+    private Long fromCardId;
+
+    @Column(name = "c_to_card_id", nullable = false)
+    private Long toCardId;
+
+    @Column(name = "c_amount_minor", nullable = false)
+    private long amountMinor;
+
+    @Column(name = "c_status", nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    private TransferStatus status;
+
+    @Column(name = "c_error")
+    private String error;
+
+    @Column(name = "c_created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public TransferRecord() {
+    }
+
+    public TransferRecord(Long ownerId,
+                          Long fromCardId,
+                          Long toCardId,
+                          long amountMinor,
+                          TransferStatus status,
+                          String error,
+                          LocalDateTime createdAt) {
+        this.ownerId = ownerId;
+        this.fromCardId = fromCardId;
+        this.toCardId = toCardId;
+        this.amountMinor = amountMinor;
+        this.status = status;
+        this.error = error;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Long getFromCardId() {
+        return fromCardId;
+    }
+
+    public void setFromCardId(Long fromCardId) {
+        this.fromCardId = fromCardId;
+    }
+
+    public Long getToCardId() {
+        return toCardId;
+    }
+
+    public void setToCardId(Long toCardId) {
+        this.toCardId = toCardId;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public void setAmountMinor(long amountMinor) {
+        this.amountMinor = amountMinor;
+    }
+
+    public TransferStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TransferStatus status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+        TransferRecord that = (TransferRecord) object;
+        return amountMinor == that.amountMinor &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(ownerId, that.ownerId) &&
+                Objects.equals(fromCardId, that.fromCardId) &&
+                Objects.equals(toCardId, that.toCardId) &&
+                status == that.status &&
+                Objects.equals(error, that.error) &&
+                Objects.equals(createdAt, that.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, ownerId, fromCardId, toCardId, amountMinor, status, error, createdAt);
+    }
+}
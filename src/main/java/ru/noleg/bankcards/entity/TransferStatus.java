@@ -0,0 +1,7 @@
+package ru.noleg.bankcards.entity;
+
+public enum TransferStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
@@ -7,6 +7,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 import java.util.Objects;
@@ -15,7 +16,8 @@ import java.util.Objects;
 @Table(name = "t_users")
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_generator")
+    @SequenceGenerator(name = "user_id_generator", sequenceName = "seq_users", allocationSize = 50)
     @Column(name = "c_id")
     private Long id;
 
@@ -38,6 +40,12 @@ public class User {
     @Enumerated(value = EnumType.STRING)
     private Role role = Role.ROLE_USER;
 
+    /**
+     * Incremented whenever the user's access changes; tokens issued with an older value are no longer accepted.
+     */
+    @Column(name = "c_security_version", nullable = false)
+    private int securityVersion;
+
     public User() {
     }
 
@@ -89,6 +97,14 @@ public class User {
         this.role = role;
     }
 
+    public int getSecurityVersion() {
+        return securityVersion;
+    }
+
+    public void setSecurityVersion(int securityVersion) {
+        this.securityVersion = securityVersion;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -0,0 +1,17 @@
+package ru.noleg.bankcards.exception.error;
+
+/**
+ * Repeats the rejection stored for an idempotency key, with its original response status.
+ */
+public class ReplayedFailureException extends RuntimeException {
+    private final int responseStatus;
+
+    public ReplayedFailureException(int responseStatus, String message) {
+        super(message);
+        this.responseStatus = responseStatus;
+    }
+
+    public int getResponseStatus() {
+        return responseStatus;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.noleg.bankcards.exception.error;
+
+public class TransferNotFoundException extends RuntimeException {
+    public TransferNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.noleg.bankcards.exception.error;
+
+public class TransferUnavailableException extends RuntimeException {
+    public TransferUnavailableException(String message) {
+        super(message);
+    }
+}
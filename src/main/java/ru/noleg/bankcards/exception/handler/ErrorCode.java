@@ -9,6 +9,7 @@ public enum ErrorCode {
     BUSINESS_LOGIC_ERROR,
     VALIDATION_ERROR,
     MISSING_REQUIRED_PARAM,
+    CONCURRENT_MODIFICATION,
 
     DATABASE_ERROR,
     SERVICE_ERROR,
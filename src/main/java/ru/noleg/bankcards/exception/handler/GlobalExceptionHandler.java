@@ -5,7 +5,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -17,6 +19,9 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.noleg.bankcards.exception.error.BusinessLogicException;
 import ru.noleg.bankcards.exception.error.CardNotFoundException;
 import ru.noleg.bankcards.exception.error.CardTransferException;
+import ru.noleg.bankcards.exception.error.ReplayedFailureException;
+import ru.noleg.bankcards.exception.error.TransferNotFoundException;
+import ru.noleg.bankcards.exception.error.TransferUnavailableException;
 import ru.noleg.bankcards.exception.error.UserNotFoundException;
 
 import java.nio.file.AccessDeniedException;
@@ -51,6 +56,40 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(TransferNotFoundException.class)
+    public ResponseEntity<ExceptionResponse> handleTransferNotFoundException(TransferNotFoundException ex, HttpServletRequest request) {
+        return this.buildResponse(
+                HttpStatus.NOT_FOUND,
+                ex.getMessage(),
+                ErrorCode.RECOURSE_NOT_FOUND,
+                request.getRequestURI(),
+                ex
+        );
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ExceptionResponse> handleTaskRejectedException(TaskRejectedException ex, HttpServletRequest request) {
+        return this.buildResponse(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many transfers in progress, please retry later",
+                ErrorCode.SERVICE_ERROR,
+                request.getRequestURI(),
+                ex
+        );
+    }
+
+    @ExceptionHandler(TransferUnavailableException.class)
+    public ResponseEntity<ExceptionResponse> handleTransferUnavailableException(TransferUnavailableException ex,
+                                                                                HttpServletRequest request) {
+        return this.buildResponse(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                ex.getMessage(),
+                ErrorCode.SERVICE_ERROR,
+                request.getRequestURI(),
+                ex
+        );
+    }
+
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<ExceptionResponse> handleUserNotFoundException(UserNotFoundException ex, HttpServletRequest request) {
         return this.buildResponse(
@@ -73,6 +112,22 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(ReplayedFailureException.class)
+    public ResponseEntity<ExceptionResponse> handleReplayedFailureException(ReplayedFailureException ex,
+                                                                            HttpServletRequest request) {
+        HttpStatus status = HttpStatus.valueOf(ex.getResponseStatus());
+        ResponseEntity<ExceptionResponse> response = this.buildResponse(
+                status,
+                ex.getMessage(),
+                status == HttpStatus.NOT_FOUND ? ErrorCode.RECOURSE_NOT_FOUND : ErrorCode.BUSINESS_LOGIC_ERROR,
+                request.getRequestURI(),
+                ex
+        );
+        return ResponseEntity.status(status)
+                .header("Idempotent-Replayed", "true")
+                .body(response.getBody());
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ExceptionResponse> handleSqlException(DataIntegrityViolationException ex, HttpServletRequest request) {
         return this.buildResponse(
@@ -84,6 +139,18 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ExceptionResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex,
+                                                                                     HttpServletRequest request) {
+        return this.buildResponse(
+                HttpStatus.CONFLICT,
+                "Card was modified concurrently, please retry",
+                ErrorCode.CONCURRENT_MODIFICATION,
+                request.getRequestURI(),
+                ex
+        );
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<ExceptionResponse> handleMissingRequestParamException(MissingServletRequestParameterException ex,
                                                                                 HttpServletRequest request) {
@@ -0,0 +1,72 @@
+package ru.noleg.bankcards.jpa.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs an action that starts its own transaction and repeats it after an optimistic lock failure,
+ * sleeping a random time up to an exponentially growing bound between attempts.
+ */
+@Component
+public class OptimisticLockRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticLockRetry.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticLockRetry(MeterRegistry meterRegistry,
+                               @Value("${app.optimistic-lock.max-attempts:3}") int maxAttempts,
+                               @Value("${app.optimistic-lock.initial-backoff:20ms}") Duration initialBackoff,
+                               @Value("${app.optimistic-lock.max-backoff:200ms}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    this.counter("bankcards.optimistic.lock.failures", operation).increment();
+                    logger.error("Optimistic lock failure persisted after {} attempts: operation={}", attempt, operation);
+                    throw e;
+                }
+
+                this.counter("bankcards.optimistic.lock.retries", operation).increment();
+                logger.warn("Optimistic lock failure, retrying: operation={}, attempt={}", operation, attempt);
+                this.backOff(attempt, e);
+            }
+        }
+    }
+
+    private void backOff(int attempt, OptimisticLockingFailureException cause) {
+        long bound = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.noleg.bankcards.jpa.retry;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * Applies {@link OptimisticLockRetry} to {@link RetryOnOptimisticLock} methods. Ordered before the
+ * transaction interceptor, so every attempt runs and commits in a fresh transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OptimisticLockRetryAspect {
+
+    private final OptimisticLockRetry optimisticLockRetry;
+
+    public OptimisticLockRetryAspect(OptimisticLockRetry optimisticLockRetry) {
+        this.optimisticLockRetry = optimisticLockRetry;
+    }
+
+    @Around("@annotation(ru.noleg.bankcards.jpa.retry.RetryOnOptimisticLock)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." +
+                joinPoint.getSignature().getName();
+        try {
+            return optimisticLockRetry.execute(operation, () -> {
+                try {
+                    return joinPoint.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        } catch (UndeclaredThrowableException e) {
+            throw e.getUndeclaredThrowable();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.noleg.bankcards.jpa.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the annotated transactional method when its commit fails on a stale {@code @Version}.
+ * Retries happen only when the method starts its own transaction; inside a caller's transaction
+ * the failure is propagated to the caller, which owns the retry.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnOptimisticLock {
+}
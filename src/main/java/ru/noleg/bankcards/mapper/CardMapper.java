@@ -6,6 +6,7 @@ import org.mapstruct.MappingConstants;
 import ru.noleg.bankcards.dto.card.CardDto;
 import ru.noleg.bankcards.dto.card.CreateCardDto;
 import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.repository.CardSummary;
 
 import java.util.List;
 
@@ -14,17 +15,25 @@ import java.util.List;
 public interface CardMapper {
 
     @Mapping(source = "owner.id", target = "ownerId")
-    @Mapping(target = "maskedNumber", expression = "java(maskCardNumber(card.getMaskedNumber()))")
+    @Mapping(target = "maskedNumber", expression = "java(maskCardNumber(card.getLast4()))")
+    @Mapping(source = "totalBalance", target = "balance")
     CardDto mapToCardDto(Card card);
 
     List<CardDto> mapToCardDtos(List<Card> cards);
 
-    default String maskCardNumber(String cardNumber) {
-        String lastFourDigits = cardNumber.substring(cardNumber.length() - 4);
-        return "**** **** **** " + lastFourDigits;
+    @Mapping(target = "maskedNumber", expression = "java(maskCardNumber(card.last4()))")
+    @Mapping(target = "balance", expression = "java(card.totalBalance())")
+    CardDto mapToCardDto(CardSummary card);
+
+    List<CardDto> mapSummariesToCardDtos(List<CardSummary> cards);
+
+    default String maskCardNumber(String last4) {
+        return "**** **** **** " + last4;
     }
 
 
     @Mapping(source = "ownerId", target = "owner.id")
     Card mapToCardEntity(CreateCardDto createCardDto);
+
+    List<Card> mapToCardEntities(List<CreateCardDto> createCardDtos);
 }
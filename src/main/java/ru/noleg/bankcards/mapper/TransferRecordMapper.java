@@ -0,0 +1,19 @@
+package ru.noleg.bankcards.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import ru.noleg.bankcards.dto.transfer.TransferRecordDto;
+import ru.noleg.bankcards.entity.TransferRecord;
+import ru.noleg.bankcards.util.Money;
+
+import java.util.List;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, imports = Money.class)
+public interface TransferRecordMapper {
+
+    @Mapping(target = "amount", expression = "java(Money.toDecimal(record.getAmountMinor()))")
+    TransferRecordDto mapToTransferRecordDto(TransferRecord record);
+
+    List<TransferRecordDto> mapToTransferRecordDtos(List<TransferRecord> records);
+}
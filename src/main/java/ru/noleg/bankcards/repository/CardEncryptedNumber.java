@@ -0,0 +1,11 @@
+package ru.noleg.bankcards.repository;
+
+/**
+ * Id and encrypted number of a card, read without loading the whole entity.
+ */
+public interface CardEncryptedNumber {
+
+    Long getId();
+
+    String getEncryptedNumber();
+}
@@ -0,0 +1,11 @@
+package ru.noleg.bankcards.repository;
+
+/**
+ * Sum of the sub-balance rows of one striped card that haven't been folded into its balance yet.
+ */
+public interface CardPendingBalance {
+
+    Long getCardId();
+
+    Long getAmountMinor();
+}
@@ -1,14 +1,255 @@
 package ru.noleg.bankcards.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.noleg.bankcards.entity.Card;
 
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface CardRepository extends JpaRepository<Card, Long> {
-    Page<Card> findAllByOwnerId(Long ownerId, Pageable pageable);
-
+public interface CardRepository extends JpaRepository<Card, Long>, CardSummarySearch {
     Optional<Card> findByIdAndOwnerId(Long cardId, Long ownerId);
+
+    // Listings select CardSummary records instead of entities. Pages sort by the Pageable, keyset variants
+    // seek past the last returned row on an index instead of skipping an offset, so a deep page costs
+    // the same as the first one and no count query is needed.
+
+    @Query(value = CardSummary.SELECT, countQuery = "select count(c) from Card c")
+    Page<CardSummary> findSummaries(Pageable pageable);
+
+    @Query(value = CardSummary.SELECT + " where c.owner.id = :ownerId",
+            countQuery = "select count(c) from Card c where c.owner.id = :ownerId")
+    Page<CardSummary> findSummariesByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query(CardSummary.SELECT + " where c.id > :afterId order by c.id")
+    List<CardSummary> findSummariesAfterId(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(CardSummary.SELECT + " where c.id < :beforeId order by c.id desc")
+    List<CardSummary> findSummariesBeforeId(@Param("beforeId") Long beforeId, Limit limit);
+
+    @Query(CardSummary.SELECT + " order by c.expirationDate, c.id")
+    List<CardSummary> findSummariesByExpirationDate(Limit limit);
+
+    @Query(CardSummary.SELECT + """
+             where (c.expirationDate, c.id) > (:expirationDate, :afterId)
+             order by c.expirationDate, c.id
+            """)
+    List<CardSummary> findSummariesAfterExpirationDate(@Param("expirationDate") YearMonth expirationDate,
+                                                       @Param("afterId") Long afterId,
+                                                       Limit limit);
+
+    @Query(CardSummary.SELECT + " where c.owner.id = :ownerId and c.id > :afterId order by c.id")
+    List<CardSummary> findSummariesByOwnerIdAfterId(@Param("ownerId") Long ownerId,
+                                                    @Param("afterId") Long afterId,
+                                                    Limit limit);
+
+    @Query(CardSummary.SELECT + " where c.owner.id = :ownerId and c.id < :beforeId order by c.id desc")
+    List<CardSummary> findSummariesByOwnerIdBeforeId(@Param("ownerId") Long ownerId,
+                                                     @Param("beforeId") Long beforeId,
+                                                     Limit limit);
+
+    @Query(CardSummary.SELECT + " where c.owner.id = :ownerId order by c.expirationDate, c.id")
+    List<CardSummary> findSummariesByOwnerIdByExpirationDate(@Param("ownerId") Long ownerId, Limit limit);
+
+    @Query(CardSummary.SELECT + """
+             where c.owner.id = :ownerId
+               and (c.expirationDate, c.id) > (:expirationDate, :afterId)
+             order by c.expirationDate, c.id
+            """)
+    List<CardSummary> findSummariesByOwnerIdAfterExpirationDate(@Param("ownerId") Long ownerId,
+                                                                @Param("expirationDate") YearMonth expirationDate,
+                                                                @Param("afterId") Long afterId,
+                                                                Limit limit);
+
+    /**
+     * Forward-only cursor over all cards in id order. The fetch size makes the driver read rows in batches
+     * instead of buffering the whole result; on PostgreSQL that needs an open transaction.
+     * Entities are loaded read-only, so Hibernate keeps no snapshots for them. The stream must be closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Card c order by c.id")
+    Stream<Card> streamAll();
+
+    /**
+     * Loads and locks the owner's cards in one query. Rows are locked in ascending id order,
+     * the same order the single transfer path uses, so batches can't deadlock with it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :cardIds and c.owner.id = :ownerId order by c.id")
+    List<Card> findAllForUpdateByIdInAndOwnerId(@Param("cardIds") Collection<Long> cardIds,
+                                                @Param("ownerId") Long ownerId);
+
+    /**
+     * Row-locks the cards in ascending id order without loading them. Takes the same
+     * {@code FOR NO KEY UPDATE} lock as the balance statements, so inserts referencing the cards aren't blocked.
+     */
+    @Query(value = "SELECT c_id FROM t_cards WHERE c_id IN (:cardIds) ORDER BY c_id FOR NO KEY UPDATE", nativeQuery = true)
+    List<Long> lockAllByIdIn(@Param("cardIds") Collection<Long> cardIds);
+
+    /**
+     * Atomically withdraws {@code amountMinor} from an active, non-expired card of the owner.
+     * Returns the number of updated rows: {@code 0} means the card is missing, inactive,
+     * expired or has insufficient funds. Like the other balance statements it bumps {@code c_version},
+     * so an entity loaded before it can't overwrite the result on flush.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE t_cards
+               SET c_balance_minor = c_balance_minor - :amountMinor,
+                   c_version = c_version + 1
+             WHERE c_id = :cardId
+               AND c_owner_id = :ownerId
+               AND c_balance_minor >= :amountMinor
+               AND c_card_status = 'ACTIVE'
+               AND c_expiration_date >= :currentMonth
+            """, nativeQuery = true)
+    int debit(@Param("cardId") Long cardId,
+              @Param("ownerId") Long ownerId,
+              @Param("amountMinor") long amountMinor,
+              @Param("currentMonth") String currentMonth);
+
+    /**
+     * Atomically deposits {@code amountMinor} to an active, non-expired card of the owner.
+     * Returns the number of updated rows: {@code 0} means the card is missing, inactive, expired
+     * or the balance would overflow {@code BIGINT}.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE t_cards
+               SET c_balance_minor = c_balance_minor + :amountMinor,
+                   c_version = c_version + 1
+             WHERE c_id = :cardId
+               AND c_owner_id = :ownerId
+               AND c_balance_minor <= 9223372036854775807 - :amountMinor
+               AND c_card_status = 'ACTIVE'
+               AND c_expiration_date >= :currentMonth
+            """, nativeQuery = true)
+    int credit(@Param("cardId") Long cardId,
+               @Param("ownerId") Long ownerId,
+               @Param("amountMinor") long amountMinor,
+               @Param("currentMonth") String currentMonth);
+
+    /**
+     * Adds {@code amountMinor} to one sub-balance row of a striped card, creating the row on first use.
+     * Touches only the stripe row, so concurrent deposits to the card don't queue on the {@code t_cards} row.
+     * Returns {@code 0} when the stripe would overflow {@code BIGINT}.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO t_card_balance_stripes (c_card_id, c_stripe, c_amount_minor)
+            VALUES (:cardId, :stripe, :amountMinor)
+            ON CONFLICT (c_card_id, c_stripe)
+            DO UPDATE SET c_amount_minor = t_card_balance_stripes.c_amount_minor + EXCLUDED.c_amount_minor
+             WHERE t_card_balance_stripes.c_amount_minor <= 9223372036854775807 - EXCLUDED.c_amount_minor
+            """, nativeQuery = true)
+    int creditStripe(@Param("cardId") Long cardId,
+                      @Param("stripe") int stripe,
+                      @Param("amountMinor") long amountMinor);
+
+    /**
+     * Moves all sub-balances of the card into {@code c_balance_minor} and deletes them.
+     * Returns {@code 0} when the card had nothing to fold. A sum that overflows {@code BIGINT} fails the whole
+     * statement, the deletion included, so the sub-balances are kept.
+     */
+    @Modifying
+    @Query(value = """
+            WITH folded AS (
+                DELETE FROM t_card_balance_stripes WHERE c_card_id = :cardId RETURNING c_amount_minor
+            )
+            UPDATE t_cards
+               SET c_balance_minor = c_balance_minor + (SELECT SUM(c_amount_minor) FROM folded),
+                   c_version = c_version + 1
+             WHERE c_id = :cardId
+               AND EXISTS (SELECT 1 FROM folded)
+            """, nativeQuery = true)
+    int foldStripes(@Param("cardId") Long cardId);
+
+    /**
+     * Deletes all sub-balances of the card and returns their sum, for callers that hold the card
+     * as a managed entity and add the amount to it themselves.
+     */
+    @Query(value = """
+            WITH drained AS (
+                DELETE FROM t_card_balance_stripes WHERE c_card_id = :cardId RETURNING c_amount_minor
+            )
+            SELECT CAST(COALESCE(SUM(c_amount_minor), 0) AS BIGINT) FROM drained
+            """, nativeQuery = true)
+    long drainStripes(@Param("cardId") Long cardId);
+
+    @Query(value = "SELECT CAST(COALESCE(SUM(c_amount_minor), 0) AS BIGINT) FROM t_card_balance_stripes WHERE c_card_id = :cardId",
+            nativeQuery = true)
+    long sumStripes(@Param("cardId") Long cardId);
+
+    @Query(value = """
+            SELECT c_card_id AS cardId, CAST(SUM(c_amount_minor) AS BIGINT) AS amountMinor
+              FROM t_card_balance_stripes
+             WHERE c_card_id IN (:cardIds)
+             GROUP BY c_card_id
+            """, nativeQuery = true)
+    List<CardPendingBalance> sumStripesByCardIds(@Param("cardIds") Collection<Long> cardIds);
+
+    @Query(value = "SELECT DISTINCT c_card_id FROM t_card_balance_stripes", nativeQuery = true)
+    List<Long> findCardIdsWithStripes();
+
+    Optional<Card> findByNumberHash(String numberHash);
+
+    boolean existsByNumberHash(String numberHash);
+
+    @Query("select c.numberHash from Card c where c.numberHash in :numberHashes")
+    List<String> findExistingNumberHashes(@Param("numberHashes") Collection<String> numberHashes);
+
+    /**
+     * Cards created before the values derived from the number were stored, in id order starting after {@code afterId}.
+     */
+    @Query("""
+            select c.id as id, c.encryptedNumber as encryptedNumber
+              from Card c
+             where (c.last4 is null or c.numberHash is null) and c.id > :afterId
+             order by c.id
+            """)
+    List<CardEncryptedNumber> findEncryptedNumbersToBackfill(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Doesn't touch {@code c_version}: these values never change, so concurrent balance updates must not fail on it.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE t_cards
+               SET c_last4 = COALESCE(c_last4, :last4),
+                   c_number_hash = COALESCE(c_number_hash, :numberHash)
+             WHERE c_id = :cardId
+               AND (c_last4 IS NULL OR c_number_hash IS NULL)
+            """, nativeQuery = true)
+    int backfillNumberData(@Param("cardId") Long cardId,
+                           @Param("last4") String last4,
+                           @Param("numberHash") String numberHash);
+
+    @Query("select c.id as id, c.encryptedNumber as encryptedNumber from Card c where c.id > :afterId order by c.id")
+    List<CardEncryptedNumber> findEncryptedNumbersAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Replaces the ciphertext only if nobody changed it meanwhile; doesn't touch {@code c_version},
+     * since the number itself stays the same.
+     */
+    @Modifying
+    @Query(value = "UPDATE t_cards SET c_number = :newNumber WHERE c_id = :cardId AND c_number = :oldNumber", nativeQuery = true)
+    int replaceEncryptedNumber(@Param("cardId") Long cardId,
+                               @Param("oldNumber") String oldNumber,
+                               @Param("newNumber") String newNumber);
 }
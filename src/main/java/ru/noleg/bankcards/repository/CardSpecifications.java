@@ -0,0 +1,56 @@
+package ru.noleg.bankcards.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.entity.CardStatus;
+
+import java.time.YearMonth;
+
+/**
+ * Filters for the card search. Each one is a single comparison on an indexed column;
+ * combined with {@link Specification#allOf} they are rendered in the order they were added.
+ */
+public final class CardSpecifications {
+
+    private CardSpecifications() {
+    }
+
+    public static Specification<Card> ownedBy(Long ownerId) {
+        return (card, query, cb) -> cb.equal(card.get("owner").get("id"), ownerId);
+    }
+
+    /**
+     * The status is rendered as a literal rather than a bind parameter: there are only a few values, so it doesn't
+     * multiply cached plans, and the planner can match the partial indexes on status and use per-value statistics
+     * even when the driver switches to a generic plan.
+     */
+    public static Specification<Card> hasStatus(CardStatus status) {
+        return (card, query, cb) -> cb.equal(card.get("status"), cb.literal(status));
+    }
+
+    public static Specification<Card> expiresFrom(YearMonth expirationDate) {
+        return (card, query, cb) -> cb.greaterThanOrEqualTo(card.get("expirationDate"), expirationDate);
+    }
+
+    public static Specification<Card> expiresTo(YearMonth expirationDate) {
+        return (card, query, cb) -> cb.lessThanOrEqualTo(card.get("expirationDate"), expirationDate);
+    }
+
+    /**
+     * Compares the stored balance only: deposits still pending in balance stripes are not included.
+     */
+    public static Specification<Card> balanceFrom(long balanceMinor) {
+        return (card, query, cb) -> cb.greaterThanOrEqualTo(card.get("balanceMinor"), balanceMinor);
+    }
+
+    /**
+     * Compares the stored balance only: deposits still pending in balance stripes are not included.
+     */
+    public static Specification<Card> balanceTo(long balanceMinor) {
+        return (card, query, cb) -> cb.lessThanOrEqualTo(card.get("balanceMinor"), balanceMinor);
+    }
+
+    public static Specification<Card> idGreaterThan(long afterId) {
+        return (card, query, cb) -> cb.greaterThan(card.get("id"), afterId);
+    }
+}
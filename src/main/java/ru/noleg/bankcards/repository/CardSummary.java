@@ -0,0 +1,58 @@
+package ru.noleg.bankcards.repository;
+
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.util.Money;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * Columns of a card that the listings show, selected straight into a record: no managed entity,
+ * no owner proxy and no dirty-checking snapshot. {@code encryptedNumber} is only selected
+ * for cards whose last digits haven't been stored yet.
+ */
+public record CardSummary(Long id,
+                          String last4,
+                          String encryptedNumber,
+                          Long ownerId,
+                          YearMonth expirationDate,
+                          CardStatus status,
+                          long balanceMinor,
+                          int balanceStripes,
+                          long pendingBalanceMinor) {
+
+    /**
+     * Selects exactly these columns. The owner id is read from {@code c_owner_id}, without a join.
+     */
+    static final String SELECT = """
+            select new ru.noleg.bankcards.repository.CardSummary(
+                   c.id, c.last4, case when c.last4 is null then c.encryptedNumber end, c.owner.id,
+                   c.expirationDate, c.status, c.balanceMinor, c.balanceStripes)
+              from Card c
+            """;
+
+    public CardSummary(Long id,
+                       String last4,
+                       String encryptedNumber,
+                       Long ownerId,
+                       YearMonth expirationDate,
+                       CardStatus status,
+                       long balanceMinor,
+                       int balanceStripes) {
+        this(id, last4, encryptedNumber, ownerId, expirationDate, status, balanceMinor, balanceStripes, 0L);
+    }
+
+    public CardSummary withLast4(String last4) {
+        return new CardSummary(id, last4, encryptedNumber, ownerId, expirationDate, status,
+                balanceMinor, balanceStripes, pendingBalanceMinor);
+    }
+
+    public CardSummary withPendingBalanceMinor(long pendingBalanceMinor) {
+        return new CardSummary(id, last4, encryptedNumber, ownerId, expirationDate, status,
+                balanceMinor, balanceStripes, pendingBalanceMinor);
+    }
+
+    public BigDecimal totalBalance() {
+        return Money.toDecimal(Money.add(balanceMinor, pendingBalanceMinor));
+    }
+}
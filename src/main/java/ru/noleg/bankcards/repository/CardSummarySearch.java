@@ -0,0 +1,16 @@
+package ru.noleg.bankcards.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import ru.noleg.bankcards.entity.Card;
+
+import java.util.List;
+
+public interface CardSummarySearch {
+
+    /**
+     * Returns up to {@code limit} cards matching {@code specification} in id order,
+     * selected as {@link CardSummary} records the same way the listings are.
+     */
+    List<CardSummary> searchSummaries(Specification<Card> specification, Limit limit);
+}
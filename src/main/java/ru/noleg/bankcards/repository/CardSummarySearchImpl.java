@@ -0,0 +1,54 @@
+package ru.noleg.bankcards.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import ru.noleg.bankcards.entity.Card;
+
+import java.util.List;
+
+/**
+ * Criteria counterpart of {@link CardSummary#SELECT}: {@code JpaSpecificationExecutor} can only return entities,
+ * so the constructor expression is built here and the specification only contributes the where clause.
+ */
+class CardSummarySearchImpl implements CardSummarySearch {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CardSummary> searchSummaries(Specification<Card> specification, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CardSummary> query = cb.createQuery(CardSummary.class);
+        Root<Card> card = query.from(Card.class);
+
+        query.select(cb.construct(
+                CardSummary.class,
+                card.get("id"),
+                card.get("last4"),
+                cb.<String>selectCase()
+                        .when(cb.isNull(card.get("last4")), card.<String>get("encryptedNumber"))
+                        .otherwise(cb.nullLiteral(String.class)),
+                card.get("owner").get("id"),
+                card.get("expirationDate"),
+                card.get("status"),
+                card.get("balanceMinor"),
+                card.get("balanceStripes")
+        ));
+
+        Predicate predicate = specification.toPredicate(card, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(card.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+}
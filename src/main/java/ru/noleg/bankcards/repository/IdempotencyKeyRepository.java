@@ -0,0 +1,18 @@
+package ru.noleg.bankcards.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.noleg.bankcards.entity.IdempotencyKey;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+    Optional<IdempotencyKey> findByOwnerIdAndKey(Long ownerId, String key);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :threshold")
+    int deleteAllCreatedBefore(@Param("threshold") LocalDateTime threshold);
+}
@@ -0,0 +1,7 @@
+package ru.noleg.bankcards.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.noleg.bankcards.entity.KeyRotationCheckpoint;
+
+public interface KeyRotationCheckpointRepository extends JpaRepository<KeyRotationCheckpoint, String> {
+}
@@ -0,0 +1,18 @@
+package ru.noleg.bankcards.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.noleg.bankcards.entity.RevokedUser;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedUserRepository extends JpaRepository<RevokedUser, Long> {
+    List<RevokedUser> findAllByRevokedAtAfter(LocalDateTime threshold);
+
+    @Modifying
+    @Query("delete from RevokedUser r where r.revokedAt < :threshold")
+    int deleteAllRevokedBefore(@Param("threshold") LocalDateTime threshold);
+}
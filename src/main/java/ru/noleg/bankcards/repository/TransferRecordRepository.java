@@ -0,0 +1,13 @@
+package ru.noleg.bankcards.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.noleg.bankcards.entity.TransferRecord;
+
+import java.util.List;
+
+public interface TransferRecordRepository extends JpaRepository<TransferRecord, Long> {
+    List<TransferRecord> findAllByOwnerIdOrderByIdDesc(Long ownerId, Limit limit);
+
+    List<TransferRecord> findAllByOwnerIdAndIdLessThanOrderByIdDesc(Long ownerId, Long beforeId, Limit limit);
+}
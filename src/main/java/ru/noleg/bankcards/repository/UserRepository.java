@@ -1,10 +1,35 @@
 package ru.noleg.bankcards.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.noleg.bankcards.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    List<User> findAllByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<User> findAllByIdLessThanOrderByIdDesc(Long beforeId, Limit limit);
+
+    List<User> findAllByOrderByLastNameAscIdAsc(Limit limit);
+
+    @Query("""
+            select u from User u
+             where (u.lastName, u.id) > (:lastName, :afterId)
+             order by u.lastName, u.id
+            """)
+    List<User> findAllAfterLastName(@Param("lastName") String lastName,
+                                    @Param("afterId") Long afterId,
+                                    Limit limit);
+
+    /**
+     * Only users whose access has changed have a non-zero version, so this reads a small partial index.
+     */
+    @Query("select u.id as id, u.securityVersion as securityVersion from User u where u.securityVersion > 0")
+    List<UserSecurityVersion> findChangedSecurityVersions();
 }
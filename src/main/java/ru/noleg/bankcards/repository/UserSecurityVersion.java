@@ -0,0 +1,11 @@
+package ru.noleg.bankcards.repository;
+
+/**
+ * Current security version of a user whose access has changed at least once.
+ */
+public interface UserSecurityVersion {
+
+    Long getId();
+
+    Integer getSecurityVersion();
+}
@@ -4,8 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,18 +21,15 @@ public class AuthenticationServiceJwtImpl implements AuthenticationService {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationServiceJwtImpl.class);
 
     private final UserRepository userRepository;
-    private final UserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
     private final TokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
 
     public AuthenticationServiceJwtImpl(UserRepository userRepository,
-                                        UserDetailsService userDetailsService,
                                         PasswordEncoder passwordEncoder,
                                         TokenProvider jwtTokenProvider,
                                         AuthenticationManager authenticationManager) {
         this.userRepository = userRepository;
-        this.userDetailsService = userDetailsService;
         this.passwordEncoder = passwordEncoder;
         this.jwtTokenProvider = jwtTokenProvider;
         this.authenticationManager = authenticationManager;
@@ -63,11 +60,12 @@ public class AuthenticationServiceJwtImpl implements AuthenticationService {
     public String signIn(String username, String password) {
         logger.debug("Signing in user: {}.", username);
 
-        this.authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+        // The provider has already loaded the current user row to check the password; its principal is reused for the token.
+        Authentication authentication = this.authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
                 username, password
         ));
 
-        UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String token = this.jwtTokenProvider.generateToken(userDetails);
 
         logger.debug("User: {}, successfully signIn.", username);
@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,6 +16,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.noleg.bankcards.security.user.UserDetailsImpl;
 
 import java.io.IOException;
 
@@ -28,11 +30,24 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final TokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailService;
-
-
-    public JwtRequestFilter(TokenProvider jwtTokenProvider, UserDetailsService userDetailService) {
+    private final SecurityVersionRegistry securityVersionRegistry;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final boolean statelessAuthentication;
+
+    /**
+     * @param statelessAuthentication build the principal from the token claims instead of loading the user
+     *                                on every request; revoked tokens are recognized by their security version
+     */
+    public JwtRequestFilter(TokenProvider jwtTokenProvider,
+                            UserDetailsService userDetailService,
+                            SecurityVersionRegistry securityVersionRegistry,
+                            VerifiedTokenCache verifiedTokenCache,
+                            @Value("${token.stateless:false}") boolean statelessAuthentication) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailService = userDetailService;
+        this.securityVersionRegistry = securityVersionRegistry;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.statelessAuthentication = statelessAuthentication;
     }
 
     @Override
@@ -53,14 +68,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         try {
 
             final String jwt = authHeader.substring(BEARER_PREFIX.length());
-            final String username = this.jwtTokenProvider.extractUsername(jwt);
+            final VerifiedClaims claims = this.verifiedTokenCache.get(jwt, this.jwtTokenProvider::verify);
+            final String username = claims.username();
 
             if (StringUtils.hasLength(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
                 logger.debug("Authenticating user {}.", username);
 
-                UserDetails userDetails = this.userDetailService.loadUserByUsername(username);
+                UserDetails userDetails = this.resolveUser(claims);
 
-                if (this.jwtTokenProvider.isTokenValid(jwt, userDetails)) {
+                if (userDetails != null && this.jwtTokenProvider.isTokenValid(claims, userDetails)) {
                     logger.debug("JWT token is valid for user: {}.", username);
 
                     SecurityContext context = SecurityContextHolder.createEmptyContext();
@@ -86,4 +102,21 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             throw new ServletException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns {@code null} when the token was revoked by a later change of the user's access.
+     * Tokens without the identity claims fall back to loading the user.
+     */
+    private UserDetails resolveUser(VerifiedClaims claims) {
+        if (!this.statelessAuthentication || !claims.hasIdentity()) {
+            return this.userDetailService.loadUserByUsername(claims.username());
+        }
+
+        if (!this.securityVersionRegistry.isCurrent(claims.userId(), claims.securityVersion())) {
+            logger.warn("JWT token of user {} was revoked.", claims.username());
+            return null;
+        }
+
+        return UserDetailsImpl.fromClaims(claims.userId(), claims.username(), claims.role(), claims.securityVersion());
+    }
+}
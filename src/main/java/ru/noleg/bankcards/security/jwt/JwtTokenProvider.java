@@ -1,33 +1,54 @@
 package ru.noleg.bankcards.security.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import ru.noleg.bankcards.entity.Role;
 import ru.noleg.bankcards.security.user.UserDetailsImpl;
 
 import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
+/**
+ * The signing key and the parser are immutable and thread-safe, so both are built once at startup
+ * instead of decoding the key for every token.
+ */
 @Component
 public class JwtTokenProvider implements TokenProvider {
 
-    @Value("${token.signing.key}")
-    private String jwtSigningKey;
-    @Value("${token.expiration}")
-    private long jwtExpirationInMs;
+    private static final String ID_CLAIM = "id";
+    private static final String USERNAME_CLAIM = "username";
+    private static final String ROLE_CLAIM = "role";
+    private static final String SECURITY_VERSION_CLAIM = "securityVersion";
+
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final long jwtExpirationInMs;
+
+    public JwtTokenProvider(@Value("${token.signing.key}") String jwtSigningKey,
+                            @Value("${token.expiration}") long jwtExpirationInMs) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSigningKey));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(this.signingKey)
+                .build();
+        this.jwtExpirationInMs = jwtExpirationInMs;
+    }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         if (userDetails instanceof UserDetailsImpl customUserDetails) {
-            claims.put("username", customUserDetails.getUsername());
-            claims.put("role", customUserDetails.getRole());
+            claims.put(ID_CLAIM, customUserDetails.getId());
+            claims.put(USERNAME_CLAIM, customUserDetails.getUsername());
+            claims.put(ROLE_CLAIM, customUserDetails.getRole());
+            claims.put(SECURITY_VERSION_CLAIM, customUserDetails.getSecurityVersion());
         }
         return this.buildToken(claims, userDetails);
     }
@@ -38,42 +59,28 @@ public class JwtTokenProvider implements TokenProvider {
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + this.jwtExpirationInMs))
-                .signWith(getSigningKey())
+                .signWith(this.signingKey)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolvers) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolvers.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+    public VerifiedClaims verify(String token) {
+        Claims claims = this.jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
+        Number userId = claims.get(ID_CLAIM, Number.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        Number securityVersion = claims.get(SECURITY_VERSION_CLAIM, Number.class);
+
+        return new VerifiedClaims(
+                claims.getSubject(),
+                claims.getExpiration().toInstant(),
+                userId == null ? null : userId.longValue(),
+                role == null ? null : Role.valueOf(role),
+                securityVersion == null ? null : securityVersion.intValue()
+        );
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(this.jwtSigningKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public boolean isTokenValid(VerifiedClaims claims, UserDetails userDetails) {
+        return claims.username().equals(userDetails.getUsername()) && !claims.isExpired(Instant.now());
     }
-}
\ No newline at end of file
+}
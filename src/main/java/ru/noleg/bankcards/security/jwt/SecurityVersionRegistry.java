@@ -0,0 +1,98 @@
+package ru.noleg.bankcards.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.noleg.bankcards.repository.RevokedUserRepository;
+import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.repository.UserSecurityVersion;
+import ru.noleg.bankcards.service.event.UserDeletedEvent;
+import ru.noleg.bankcards.service.event.UserRoleChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory revocation table for tokens authenticated from their claims alone. It keeps the current security version
+ * of users whose access has changed, so a token with an older version is rejected, and the ids of deleted users.
+ * <p>
+ * Changes made on this instance are applied from their events right after the commit: a rolled back change
+ * must not lock the user out. Both kinds of change are also stored, the version in {@code t_users} and the deletion
+ * in {@code t_revoked_users}, and the periodic reload reads them back: changes made on other instances, and the ones
+ * made before a restart, are applied up to one reload interval late. A deleted user is remembered for one token
+ * lifetime: by then every token issued to them has expired on its own.
+ */
+@Component
+public class SecurityVersionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecurityVersionRegistry.class);
+
+    private final Map<Long, Integer> securityVersions = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> deletedUsers = new ConcurrentHashMap<>();
+    private final UserRepository userRepository;
+    private final RevokedUserRepository revokedUserRepository;
+    private final Duration tokenLifetime;
+
+    public SecurityVersionRegistry(UserRepository userRepository,
+                                   RevokedUserRepository revokedUserRepository,
+                                   @Value("${token.expiration}") long jwtExpirationInMs) {
+        this.userRepository = userRepository;
+        this.revokedUserRepository = revokedUserRepository;
+        this.tokenLifetime = Duration.ofMillis(jwtExpirationInMs);
+    }
+
+    public boolean isCurrent(Long userId, int securityVersion) {
+        return !deletedUsers.containsKey(userId)
+                && securityVersion >= securityVersions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Versions only grow, so an update that arrives late never brings back an older one.
+     */
+    public void advance(Long userId, int securityVersion) {
+        securityVersions.merge(userId, securityVersion, Math::max);
+    }
+
+    public void revokeAll(Long userId) {
+        this.revokeAll(userId, LocalDateTime.now());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRoleChanged(UserRoleChangedEvent event) {
+        this.advance(event.userId(), event.securityVersion());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        this.revokeAll(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${token.security-version.reload-interval:PT30S}")
+    @Transactional
+    public void reload() {
+        List<UserSecurityVersion> versions = userRepository.findChangedSecurityVersions();
+        versions.forEach(version -> this.advance(version.getId(), version.getSecurityVersion()));
+
+        LocalDateTime expired = LocalDateTime.now().minus(tokenLifetime);
+        revokedUserRepository.findAllByRevokedAtAfter(expired)
+                .forEach(revoked -> this.revokeAll(revoked.getUserId(), revoked.getRevokedAt()));
+        deletedUsers.values().removeIf(deletedAt -> deletedAt.isBefore(expired));
+        int purged = revokedUserRepository.deleteAllRevokedBefore(expired);
+
+        logger.debug("Reloaded security versions of {} users, {} deleted users remembered, {} purged.",
+                versions.size(), deletedUsers.size(), purged);
+    }
+
+    private void revokeAll(Long userId, LocalDateTime revokedAt) {
+        deletedUsers.merge(userId, revokedAt, (known, reloaded) -> known.isAfter(reloaded) ? known : reloaded);
+        securityVersions.remove(userId);
+    }
+}
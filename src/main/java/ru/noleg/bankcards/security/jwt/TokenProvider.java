@@ -6,7 +6,12 @@ public interface TokenProvider {
 
     String generateToken(UserDetails userDetails);
 
-    boolean isTokenValid(String token, UserDetails userDetails);
+    /**
+     * Verifies the signature and expiration of the token and parses its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    VerifiedClaims verify(String token);
 
-    String extractUsername(String token);
+    boolean isTokenValid(VerifiedClaims claims, UserDetails userDetails);
 }
@@ -0,0 +1,32 @@
+package ru.noleg.bankcards.security.jwt;
+
+import ru.noleg.bankcards.entity.Role;
+
+import java.time.Instant;
+
+/**
+ * Claims of a token whose signature has already been checked. The filter gets it from a single parse
+ * and passes it on, so the token isn't verified again for every value read from it.
+ * {@code userId}, {@code role} and {@code securityVersion} are {@code null} in tokens issued before they were added.
+ */
+public record VerifiedClaims(String username,
+                             Instant expiration,
+                             Long userId,
+                             Role role,
+                             Integer securityVersion) {
+
+    public VerifiedClaims(String username, Instant expiration) {
+        this(username, expiration, null, null, null);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiration.isBefore(now);
+    }
+
+    /**
+     * Whether the claims alone are enough to build the principal.
+     */
+    public boolean hasIdentity() {
+        return userId != null && role != null && securityVersion != null;
+    }
+}
@@ -0,0 +1,113 @@
+package ru.noleg.bankcards.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.noleg.bankcards.service.event.UserDeletedEvent;
+import ru.noleg.bankcards.service.event.UserRoleChangedEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Claims of recently verified tokens, so a client polling with the same token costs a SHA-256 and a map lookup
+ * instead of an HMAC check and a JSON parse. Entries are keyed by the token's hash, so raw tokens aren't kept
+ * in memory, and expire exactly when their token does. Failed verifications are not cached.
+ * <p>
+ * The cached claims are what the signature covers and never change; whether they are still honoured is decided
+ * after the lookup, by {@link SecurityVersionRegistry} or by loading the user. Entries of a user whose role
+ * changed or who was deleted are evicted anyway, so nothing outlives the revocation in memory.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    // MessageDigest isn't thread safe; digest() resets it, so one instance per thread can be reused.
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(VerifiedTokenCache::newDigest);
+    private final boolean enabled;
+    private final Cache<ByteBuffer, VerifiedClaims> tokens;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${token.cache.enabled:true}") boolean enabled,
+                              @Value("${token.cache.size:10000}") long cacheSize) {
+        this.enabled = enabled;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilTokenExpiration())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.tokens, "verifiedTokens");
+    }
+
+    /**
+     * Returns the cached claims of {@code token}, verifying it with {@code verifier} on a miss.
+     */
+    public VerifiedClaims get(String token, Function<String, VerifiedClaims> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+        return this.tokens.get(this.hash(token), key -> verifier.apply(token));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRoleChanged(UserRoleChangedEvent event) {
+        this.evictUser(event.email());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        this.evictUser(event.email());
+    }
+
+    /**
+     * Scans the cache: revocations are rare, and a reverse index would cost memory on every cached token.
+     */
+    private void evictUser(String email) {
+        this.tokens.asMap().values().removeIf(claims -> email.equals(claims.username()));
+        logger.debug("Evicted cached tokens of user with email: {}", email);
+    }
+
+    private ByteBuffer hash(String token) {
+        return ByteBuffer.wrap(this.sha256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class UntilTokenExpiration implements Expiry<ByteBuffer, VerifiedClaims> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, VerifiedClaims claims, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), claims.expiration()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, VerifiedClaims claims, long currentTime, long currentDuration) {
+            return this.expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, VerifiedClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -17,6 +17,19 @@ public class UserDetailsImpl implements UserDetails {
         this.user = user;
     }
 
+    /**
+     * Principal of a request authenticated from verified token claims, without loading the user.
+     * It has no password and only the fields the token carries.
+     */
+    public static UserDetailsImpl fromClaims(Long id, String email, Role role, int securityVersion) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setRole(role);
+        user.setSecurityVersion(securityVersion);
+        return new UserDetailsImpl(user);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(user.getRole().name()));
@@ -39,4 +52,8 @@ public class UserDetailsImpl implements UserDetails {
     public Long getId() {
         return user.getId();
     }
+
+    public int getSecurityVersion() {
+        return user.getSecurityVersion();
+    }
 }
\ No newline at end of file
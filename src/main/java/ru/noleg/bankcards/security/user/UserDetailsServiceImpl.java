@@ -1,26 +1,83 @@
 package ru.noleg.bankcards.security.user;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.service.event.UserDeletedEvent;
+import ru.noleg.bankcards.service.event.UserRoleChangedEvent;
 
+import java.time.Duration;
+
+/**
+ * Users are cached by email for a short time, so clients polling with the same token don't query the database
+ * on every request. A role change or deletion evicts the entry after its commit. A load still running at that
+ * moment is waited for and then dropped as well, so it can't put back the old state. The time to live bounds
+ * how long a change made on another instance stays unseen here.
+ * <p>
+ * Cached details are shared between requests; {@link UserDetailsImpl} is not a credentials container,
+ * so the authentication manager never erases the password hash in them.
+ */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
     private final UserRepository userRepository;
+    private final Cache<String, UserDetailsImpl> users;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.user-details-cache.ttl:PT5M}") Duration ttl,
+                                  @Value("${app.user-details-cache.size:10000}") long cacheSize) {
         this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.users, "userDetails");
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return this.users.get(email, this::loadFromRepository);
+    }
+
+    /**
+     * Reads the user row past the cache. Sign-in checks the password with it, so a token is never issued with
+     * the role, security version or password hash of a cached entry that another instance has already changed.
+     */
+    public UserDetails loadCurrentUserByUsername(String email) throws UsernameNotFoundException {
+        return this.loadFromRepository(email);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRoleChanged(UserRoleChangedEvent event) {
+        this.evict(event.email());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        this.evict(event.email());
+    }
+
+    private void evict(String email) {
+        this.users.invalidate(email);
+        logger.debug("Evicted cached user with email: {}", email);
+    }
+
+    private UserDetailsImpl loadFromRepository(String email) {
         return this.userRepository.findByEmail(email)
                 .map(UserDetailsImpl::new)
                 .orElseThrow(
@@ -30,4 +87,4 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                         }
                 );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+package ru.noleg.bankcards.service;
+
+import ru.noleg.bankcards.dto.transfer.AsyncTransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferDto;
+
+import java.util.UUID;
+
+public interface AsyncTransferService {
+
+    AsyncTransferDto submit(Long ownerId, TransferDto transfer);
+
+    AsyncTransferDto getStatus(Long ownerId, UUID transferId);
+}
@@ -1,20 +1,39 @@
 package ru.noleg.bankcards.service;
 
 import org.springframework.data.domain.Sort;
+import ru.noleg.bankcards.dto.card.CardSearchFilter;
+import ru.noleg.bankcards.dto.card.CardSort;
 import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.repository.CardSummary;
+import ru.noleg.bankcards.util.CursorCodec;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CardService {
 
     Long create(Card card);
 
+    List<Long> createAll(List<Card> cards);
+
     Card get(Long id);
 
-    List<Card> getAllByOwner(Long ownerId, Integer pageNumber, Integer pageSize, Sort sort);
+    Card getByNumber(String number);
+
+    String revealNumber(Long id);
+
+    List<CardSummary> getAllByOwner(Long ownerId, Integer pageNumber, Integer pageSize, Sort sort);
+
+    List<CardSummary> getAll(Integer pageNumber, Integer pageSize, Sort sort);
 
-    List<Card> getAll(Integer pageNumber, Integer pageSize, Sort sort);
+    List<CardSummary> scrollAllByOwner(Long ownerId, CardSort sort, CursorCodec.Keyset after, int limit);
+
+    List<CardSummary> scrollAll(CardSort sort, CursorCodec.Keyset after, int limit);
+
+    List<CardSummary> search(CardSearchFilter filter, Long afterId, int limit);
+
+    long exportAll(Consumer<Card> consumer);
 
     BigDecimal getBalance(Long cardId, Long ownerId);
 
@@ -25,4 +44,6 @@ public interface CardService {
     void delete(Long id);
 
     void deposit(Long cardId, BigDecimal amount, Long ownerId);
+
+    void updateBalanceStripes(Long cardId, int stripes);
 }
@@ -1,7 +1,14 @@
 package ru.noleg.bankcards.service;
 
+import ru.noleg.bankcards.dto.transfer.BatchTransferMode;
+import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferResultDto;
+
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface CardTransferService {
     void transfer(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount);
+
+    List<TransferResultDto> transferBatch(Long ownerId, List<TransferDto> transfers, BatchTransferMode mode);
 }
@@ -0,0 +1,15 @@
+package ru.noleg.bankcards.service;
+
+import ru.noleg.bankcards.entity.IdempotentOperation;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs {@code action} at most once per owner and key. A repeated key with the same request
+     * replays the stored outcome instead of running the action again.
+     */
+    Outcome execute(Long ownerId, String key, IdempotentOperation operation, String request, Runnable action);
+
+    record Outcome(int responseStatus, boolean replayed) {
+    }
+}
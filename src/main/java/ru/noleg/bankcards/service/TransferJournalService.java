@@ -0,0 +1,16 @@
+package ru.noleg.bankcards.service;
+
+import ru.noleg.bankcards.entity.TransferRecord;
+
+import java.util.List;
+
+public interface TransferJournalService {
+
+    /**
+     * Journals a transfer attempt. A completed transfer is journaled only if the surrounding transaction
+     * commits; a failed one is journaled even though its transaction rolls back.
+     */
+    void record(TransferRecord record);
+
+    List<TransferRecord> getHistory(Long ownerId, Long beforeId, int limit);
+}
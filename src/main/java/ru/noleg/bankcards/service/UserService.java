@@ -1,8 +1,10 @@
 package ru.noleg.bankcards.service;
 
 import org.springframework.data.domain.Sort;
+import ru.noleg.bankcards.dto.user.UserSort;
 import ru.noleg.bankcards.entity.Role;
 import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.util.CursorCodec;
 
 import java.util.List;
 
@@ -10,6 +12,8 @@ public interface UserService {
 
     List<User> getAll(Integer pageNumber, Integer pageSize, Sort sort);
 
+    List<User> scrollAll(UserSort sort, CursorCodec.Keyset after, int limit);
+
     User get(Long id);
 
     void delete(Long userId);
@@ -0,0 +1,7 @@
+package ru.noleg.bankcards.service.event;
+
+/**
+ * Published when a user is deleted.
+ */
+public record UserDeletedEvent(Long userId, String email) {
+}
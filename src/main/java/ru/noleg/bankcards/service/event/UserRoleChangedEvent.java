@@ -0,0 +1,9 @@
+package ru.noleg.bankcards.service.event;
+
+import ru.noleg.bankcards.entity.Role;
+
+/**
+ * Published when a user's role is changed; {@code securityVersion} is the user's new security version.
+ */
+public record UserRoleChangedEvent(Long userId, String email, Role role, int securityVersion) {
+}
@@ -0,0 +1,103 @@
+package ru.noleg.bankcards.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import ru.noleg.bankcards.dto.transfer.AsyncTransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+import ru.noleg.bankcards.exception.error.CardNotFoundException;
+import ru.noleg.bankcards.exception.error.CardTransferException;
+import ru.noleg.bankcards.exception.error.TransferNotFoundException;
+import ru.noleg.bankcards.service.AsyncTransferService;
+import ru.noleg.bankcards.service.CardTransferService;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accepts transfers without waiting for them and runs them on the transfer executor.
+ * Statuses are kept in memory, so a status is lost on restart and is only visible on the instance
+ * that accepted the transfer. Pending transfers are tracked until they finish: their number is already
+ * bounded by the executor's queue. Finished ones are kept for {@code app.transfer.async.status-ttl},
+ * and only those may be evicted early when {@code app.transfer.async.status-cache-size} is reached.
+ */
+@Service
+public class AsyncTransferServiceImpl implements AsyncTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncTransferServiceImpl.class);
+
+    private final CardTransferService cardTransferService;
+    private final TaskExecutor transferExecutor;
+    private final Map<UUID, TrackedTransfer> pendingTransfers = new ConcurrentHashMap<>();
+    private final Cache<UUID, TrackedTransfer> finishedTransfers;
+
+    public AsyncTransferServiceImpl(CardTransferService cardTransferService,
+                                    @Qualifier("transferExecutor") TaskExecutor transferExecutor,
+                                    @Value("${app.transfer.async.status-ttl:PT1H}") Duration statusTtl,
+                                    @Value("${app.transfer.async.status-cache-size:100000}") long statusCacheSize) {
+        this.cardTransferService = cardTransferService;
+        this.transferExecutor = transferExecutor;
+        this.finishedTransfers = Caffeine.newBuilder()
+                .expireAfterWrite(statusTtl)
+                .maximumSize(statusCacheSize)
+                .build();
+    }
+
+    @Override
+    public AsyncTransferDto submit(Long ownerId, TransferDto transfer) {
+        AsyncTransferDto pending = AsyncTransferDto.pending(UUID.randomUUID(), transfer);
+        pendingTransfers.put(pending.id(), new TrackedTransfer(ownerId, pending));
+
+        try {
+            transferExecutor.execute(() -> this.run(ownerId, pending));
+        } catch (RuntimeException e) {
+            pendingTransfers.remove(pending.id());
+            throw e;
+        }
+
+        logger.debug("Transfer accepted: id={}, ownerId={}", pending.id(), ownerId);
+        return pending;
+    }
+
+    @Override
+    public AsyncTransferDto getStatus(Long ownerId, UUID transferId) {
+        TrackedTransfer tracked = pendingTransfers.get(transferId);
+        if (tracked == null) {
+            tracked = finishedTransfers.getIfPresent(transferId);
+        }
+        if (tracked == null || !tracked.ownerId().equals(ownerId)) {
+            logger.error("Transfer not found: id={}, ownerId={}", transferId, ownerId);
+            throw new TransferNotFoundException("Transfer not found with ID " + transferId);
+        }
+        return tracked.transfer();
+    }
+
+    private void run(Long ownerId, AsyncTransferDto pending) {
+        AsyncTransferDto result;
+        try {
+            cardTransferService.transfer(ownerId, pending.fromCardId(), pending.toCardId(), pending.amount());
+            result = pending.completed();
+        } catch (BusinessLogicException | CardNotFoundException | CardTransferException e) {
+            result = pending.failed(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Async transfer failed: id={}, ownerId={}", pending.id(), ownerId, e);
+            result = pending.failed("Transfer could not be applied, please retry");
+        }
+
+        // Published as finished before it stops being pending, so a status query always finds one of them.
+        finishedTransfers.put(pending.id(), new TrackedTransfer(ownerId, result));
+        pendingTransfers.remove(pending.id());
+        logger.debug("Async transfer finished: id={}, status={}", pending.id(), result.status());
+    }
+
+    private record TrackedTransfer(Long ownerId, AsyncTransferDto transfer) {
+    }
+}
@@ -0,0 +1,42 @@
+package ru.noleg.bankcards.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.repository.CardRepository;
+
+import java.util.List;
+
+/**
+ * Periodically folds the sub-balance rows of striped cards back into their balances.
+ * Every card is folded in its own short transaction so that a card row is never locked for long.
+ */
+@Component
+public class BalanceStripeCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceStripeCompactor.class);
+
+    private final CardRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BalanceStripeCompactor(CardRepository cardRepository, PlatformTransactionManager transactionManager) {
+        this.cardRepository = cardRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.balance-stripes.compaction-interval:PT1M}")
+    public void compact() {
+        List<Long> cardIds = cardRepository.findCardIdsWithStripes();
+        if (cardIds.isEmpty()) {
+            return;
+        }
+
+        for (Long cardId : cardIds) {
+            transactionTemplate.executeWithoutResult(status -> cardRepository.foldStripes(cardId));
+        }
+        logger.debug("Folded balance stripes of {} cards.", cardIds.size());
+    }
+}
@@ -0,0 +1,270 @@
+package ru.noleg.bankcards.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.entity.KeyRotationCheckpoint;
+import ru.noleg.bankcards.repository.CardEncryptedNumber;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.KeyRotationCheckpointRepository;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-encrypts card numbers with the active key after a key rotation. Cards are walked in id order in chunks;
+ * every chunk is split between a bounded number of threads, each slice in its own short transaction, and the
+ * last processed id is checkpointed so a restarted job resumes where it stopped. A pass runs on the job's own
+ * thread, so it doesn't hold the scheduler thread shared by the other jobs. Reads keep working during
+ * the rotation, because {@link AesEncryptionUtil} decrypts with the key a value was encrypted with.
+ * <p>
+ * Numbers written with an old key behind the checkpoint, e.g. by an instance not yet running with the new key,
+ * would be missed by the walk: before the rotation is marked completed, a read-only sweep checks every card
+ * again, and any number still on an old key starts another pass.
+ */
+@Component
+public class CardKeyRotationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardKeyRotationJob.class);
+
+    private final CardRepository cardRepository;
+    private final KeyRotationCheckpointRepository checkpointRepository;
+    private final AesEncryptionUtil aesEncryptionUtil;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService runner;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final long pauseMillis;
+    private final Counter reencryptedCounter;
+    private final Counter failedCounter;
+    private final AtomicLong lastCardId = new AtomicLong();
+    private final AtomicBoolean inProgress = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    public CardKeyRotationJob(CardRepository cardRepository,
+                              KeyRotationCheckpointRepository checkpointRepository,
+                              AesEncryptionUtil aesEncryptionUtil,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.aes.rotation.chunk-size:1000}") int chunkSize,
+                              @Value("${app.aes.rotation.parallelism:2}") int parallelism,
+                              @Value("${app.aes.rotation.pause:100ms}") Duration pause) {
+        this.cardRepository = cardRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.aesEncryptionUtil = aesEncryptionUtil;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.pauseMillis = pause.toMillis();
+
+        this.runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "card-key-rotation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "card-key-rotation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("bankcards.key.rotation.last.card.id", lastCardId, AtomicLong::get)
+                .description("Id of the last card checked by the key rotation")
+                .register(meterRegistry);
+        this.reencryptedCounter = Counter.builder("bankcards.key.rotation.cards")
+                .description("Card numbers processed by the key rotation")
+                .tag("result", "reencrypted")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("bankcards.key.rotation.cards")
+                .description("Card numbers processed by the key rotation")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        runner.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.aes.rotation.interval:PT1M}")
+    public void scheduleRotation() {
+        if (!inProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        runner.execute(() -> {
+            try {
+                this.rotate();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Key rotation pass failed.", e);
+            } finally {
+                inProgress.set(false);
+            }
+        });
+    }
+
+    public void rotate() throws InterruptedException {
+        String keyId = aesEncryptionUtil.getActiveKeyId();
+        if (keyId.isEmpty()) {
+            return;
+        }
+
+        KeyRotationCheckpoint checkpoint = checkpointRepository.findById(keyId)
+                .orElseGet(() -> new KeyRotationCheckpoint(keyId, LocalDateTime.now()));
+        if (checkpoint.isCompleted()) {
+            return;
+        }
+        logger.info("Re-encrypting card numbers with key {} after card {}.", keyId, checkpoint.getLastCardId());
+
+        while (running) {
+            List<CardEncryptedNumber> chunk = cardRepository.findEncryptedNumbersAfter(
+                    checkpoint.getLastCardId(), Limit.of(chunkSize)
+            );
+            if (chunk.isEmpty()) {
+                this.finishPass(checkpoint);
+                return;
+            }
+
+            long[] counts = this.reencryptChunk(chunk);
+            checkpoint.setLastCardId(chunk.get(chunk.size() - 1).getId());
+            checkpoint.setReencrypted(checkpoint.getReencrypted() + counts[0]);
+            checkpoint.setFailed(checkpoint.getFailed() + counts[1]);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpoint = checkpointRepository.save(checkpoint);
+            lastCardId.set(checkpoint.getLastCardId());
+
+            TimeUnit.MILLISECONDS.sleep(pauseMillis);
+        }
+    }
+
+    private void finishPass(KeyRotationCheckpoint checkpoint) throws InterruptedException {
+        long stale;
+        if (checkpoint.getFailed() > 0) {
+            logger.error("Key rotation pass finished with {} cards not re-encrypted, starting over on the next run.",
+                    checkpoint.getFailed()
+            );
+            checkpoint.setLastCardId(0);
+            checkpoint.setFailed(0);
+        } else if ((stale = this.countStale()) != 0) {
+            if (stale < 0) {
+                // Stopped during the sweep: the pass is finished again on the next run.
+                return;
+            }
+            logger.warn("Key rotation sweep found {} cards still on an old key, starting over on the next run.", stale);
+            checkpoint.setLastCardId(0);
+        } else {
+            logger.info("Key rotation to key {} completed, {} cards re-encrypted.",
+                    checkpoint.getKeyId(), checkpoint.getReencrypted()
+            );
+            checkpoint.setCompleted(true);
+        }
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Walks all cards without changing them.
+     *
+     * @return number of card numbers not encrypted with the active key, or {@code -1} if the job was stopped
+     */
+    private long countStale() throws InterruptedException {
+        long stale = 0;
+        long afterId = 0;
+        while (running) {
+            List<CardEncryptedNumber> chunk = cardRepository.findEncryptedNumbersAfter(afterId, Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                return stale;
+            }
+
+            stale += chunk.stream()
+                    .filter(card -> !aesEncryptionUtil.isEncryptedWithActiveKey(card.getEncryptedNumber()))
+                    .count();
+            afterId = chunk.get(chunk.size() - 1).getId();
+
+            TimeUnit.MILLISECONDS.sleep(pauseMillis);
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of re-encrypted and of failed cards
+     */
+    private long[] reencryptChunk(List<CardEncryptedNumber> chunk) throws InterruptedException {
+        List<CardEncryptedNumber> stale = chunk.stream()
+                .filter(card -> !aesEncryptionUtil.isEncryptedWithActiveKey(card.getEncryptedNumber()))
+                .toList();
+        if (stale.isEmpty()) {
+            return new long[]{0, 0};
+        }
+
+        int sliceSize = (stale.size() + parallelism - 1) / parallelism;
+        List<Future<long[]>> slices = new ArrayList<>(parallelism);
+        for (int from = 0; from < stale.size(); from += sliceSize) {
+            List<CardEncryptedNumber> slice = stale.subList(from, Math.min(from + sliceSize, stale.size()));
+            slices.add(executor.submit(() -> transactionTemplate.execute(status -> this.reencryptSlice(slice))));
+        }
+
+        long[] counts = new long[2];
+        for (Future<long[]> slice : slices) {
+            try {
+                long[] sliceCounts = slice.get();
+                counts[0] += sliceCounts[0];
+                counts[1] += sliceCounts[1];
+            } catch (ExecutionException e) {
+                // The checkpoint isn't moved, so the chunk is processed again on the next run.
+                throw new IllegalStateException("Key rotation chunk failed", e.getCause());
+            }
+        }
+        return counts;
+    }
+
+    private long[] reencryptSlice(List<CardEncryptedNumber> slice) {
+        long reencrypted = 0;
+        long failed = 0;
+        for (CardEncryptedNumber card : slice) {
+            String newNumber;
+            try {
+                newNumber = aesEncryptionUtil.encrypt(aesEncryptionUtil.decrypt(card.getEncryptedNumber()));
+            } catch (RuntimeException e) {
+                logger.error("Failed to re-encrypt card number: cardId={}", card.getId(), e);
+                failedCounter.increment();
+                failed++;
+                continue;
+            }
+
+            // Zero rows means the number was changed concurrently, e.g. by another instance running the job.
+            if (cardRepository.replaceEncryptedNumber(card.getId(), card.getEncryptedNumber(), newNumber) == 1) {
+                reencryptedCounter.increment();
+                reencrypted++;
+            }
+        }
+        return new long[]{reencrypted, failed};
+    }
+}
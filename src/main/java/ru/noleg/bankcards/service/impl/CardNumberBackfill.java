@@ -0,0 +1,133 @@
+package ru.noleg.bankcards.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.repository.CardEncryptedNumber;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+import ru.noleg.bankcards.util.CardNumberHasher;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills in the values derived from the card number (last four digits and blind index) for cards created
+ * before they were stored, one short transaction per batch. New cards get them on creation,
+ * so once a full pass finds nothing the job stops querying. A pass runs on the job's own thread:
+ * on a large table it takes long, and it mustn't hold the scheduler thread shared by the other jobs.
+ */
+@Component
+public class CardNumberBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardNumberBackfill.class);
+
+    private final CardRepository cardRepository;
+    private final AesEncryptionUtil aesEncryptionUtil;
+    private final CardNumberHasher cardNumberHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ExecutorService runner;
+    private final AtomicBoolean inProgress = new AtomicBoolean();
+
+    private volatile boolean completed;
+    private volatile boolean running = true;
+
+    public CardNumberBackfill(CardRepository cardRepository,
+                              AesEncryptionUtil aesEncryptionUtil,
+                              CardNumberHasher cardNumberHasher,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.card-number.backfill-batch-size:500}") int batchSize) {
+        this.cardRepository = cardRepository;
+        this.aesEncryptionUtil = aesEncryptionUtil;
+        this.cardNumberHasher = cardNumberHasher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "card-number-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        runner.shutdownNow();
+        runner.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${app.card-number.backfill-interval:PT10M}")
+    public void scheduleBackfill() {
+        if (completed || !inProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        runner.execute(() -> {
+            try {
+                this.backfill();
+            } catch (RuntimeException e) {
+                logger.error("Card number backfill pass failed.", e);
+            } finally {
+                inProgress.set(false);
+            }
+        });
+    }
+
+    public void backfill() {
+        if (completed) {
+            return;
+        }
+
+        long afterId = 0;
+        int updated = 0;
+        int failed = 0;
+        while (running) {
+            List<CardEncryptedNumber> batch = cardRepository.findEncryptedNumbersToBackfill(afterId, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            int[] counts = transactionTemplate.execute(status -> this.backfillBatch(batch));
+            updated += counts[0];
+            failed += counts[1];
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        if (!running) {
+            logger.info("Card number backfill stopped after {} cards, resuming on the next start.", updated);
+            return;
+        }
+
+        // Cards that can't be decrypted are retried on the next run, so the job keeps going until they are fixed.
+        completed = failed == 0;
+        logger.info("Card number data backfilled for {} cards, failed: {}.", updated, failed);
+    }
+
+    private int[] backfillBatch(List<CardEncryptedNumber> batch) {
+        int updated = 0;
+        int failed = 0;
+        for (CardEncryptedNumber card : batch) {
+            String number;
+            try {
+                number = aesEncryptionUtil.decrypt(card.getEncryptedNumber());
+            } catch (RuntimeException e) {
+                logger.error("Failed to decrypt card number for backfill: cardId={}", card.getId(), e);
+                failed++;
+                continue;
+            }
+            updated += cardRepository.backfillNumberData(
+                    card.getId(), number.substring(number.length() - 4), cardNumberHasher.hash(number)
+            );
+        }
+        return new int[]{updated, failed};
+    }
+}
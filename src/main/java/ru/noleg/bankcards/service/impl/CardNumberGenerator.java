@@ -0,0 +1,202 @@
+package ru.noleg.bankcards.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.util.CardNumberHasher;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues Luhn-valid card numbers with the configured BIN prefix that are not used by any card yet.
+ * A background thread keeps a pool of checked numbers, so issuance normally takes them from the pool
+ * and only re-checks them against the blind index in case another instance has issued them meanwhile.
+ */
+@Component
+public class CardNumberGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardNumberGenerator.class);
+
+    private static final int CARD_NUMBER_LENGTH = 16;
+    private static final long REFILL_ERROR_PAUSE_MILLIS = 1000;
+    private static final int CHECK_CHUNK_SIZE = 1000;
+
+    /**
+     * A number together with its blind index, so callers don't have to hash it again.
+     */
+    public record GeneratedCardNumber(String number, String hash) {
+    }
+
+    private final CardRepository cardRepository;
+    private final CardNumberHasher cardNumberHasher;
+    private final String bin;
+    private final SecureRandom random = new SecureRandom();
+    private final BlockingQueue<GeneratedCardNumber> pool;
+    private final Set<String> pooledHashes = ConcurrentHashMap.newKeySet();
+    private final Counter poolMisses;
+    private final Thread refiller;
+
+    private volatile boolean running = true;
+
+    public CardNumberGenerator(CardRepository cardRepository,
+                               CardNumberHasher cardNumberHasher,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.card-number.bin:220000}") String bin,
+                               @Value("${app.card-number.pool-size:1000}") int poolSize) {
+        if (!bin.matches("\\d{1,15}")) {
+            throw new IllegalArgumentException("BIN must consist of 1 to 15 digits");
+        }
+        this.cardRepository = cardRepository;
+        this.cardNumberHasher = cardNumberHasher;
+        this.bin = bin;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        this.refiller = new Thread(this::refillLoop, "card-number-pool-refiller");
+        this.refiller.setDaemon(true);
+
+        Gauge.builder("bankcards.card.number.pool.size", pool, BlockingQueue::size)
+                .description("Checked card numbers ready to be issued")
+                .register(meterRegistry);
+        this.poolMisses = Counter.builder("bankcards.card.number.pool.misses")
+                .description("Card numbers generated inline because the pool was empty")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        refiller.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        refiller.interrupt();
+    }
+
+    public GeneratedCardNumber next() {
+        return this.next(1).get(0);
+    }
+
+    /**
+     * Takes {@code count} distinct unused numbers, first from the pool and then generated inline.
+     * Uniqueness is checked with one query per {@value #CHECK_CHUNK_SIZE} numbers, so bulk issuance
+     * doesn't pay a round trip per card.
+     */
+    public List<GeneratedCardNumber> next(int count) {
+        List<GeneratedCardNumber> numbers = new ArrayList<>(count);
+        Set<String> taken = new HashSet<>();
+
+        List<GeneratedCardNumber> pooled = new ArrayList<>();
+        pool.drainTo(pooled, count);
+        pooled.forEach(number -> pooledHashes.remove(number.hash()));
+        this.addUnissued(pooled, numbers, taken);
+
+        if (numbers.size() < count) {
+            poolMisses.increment(count - numbers.size());
+        }
+        while (numbers.size() < count) {
+            int chunkSize = Math.min(count - numbers.size(), CHECK_CHUNK_SIZE);
+            List<GeneratedCardNumber> candidates = new ArrayList<>(chunkSize);
+            for (int i = 0; i < chunkSize; i++) {
+                String number = this.generateLuhnNumber();
+                candidates.add(new GeneratedCardNumber(number, cardNumberHasher.hash(number)));
+            }
+            this.addUnissued(candidates, numbers, taken);
+        }
+        return numbers;
+    }
+
+    private void addUnissued(List<GeneratedCardNumber> candidates, List<GeneratedCardNumber> numbers, Set<String> taken) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Set<String> issued = new HashSet<>(cardRepository.findExistingNumberHashes(
+                candidates.stream().map(GeneratedCardNumber::hash).toList()
+        ));
+        for (GeneratedCardNumber candidate : candidates) {
+            if (issued.contains(candidate.hash()) || pooledHashes.contains(candidate.hash()) || !taken.add(candidate.hash())) {
+                logger.debug("Card number candidate is already taken, skipping it.");
+                continue;
+            }
+            numbers.add(candidate);
+        }
+    }
+
+    private void refillLoop() {
+        while (running) {
+            try {
+                GeneratedCardNumber number = this.generateUnused();
+                if (pooledHashes.add(number.hash())) {
+                    pool.put(number);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Failed to refill the card number pool.", e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(REFILL_ERROR_PAUSE_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private GeneratedCardNumber generateUnused() {
+        while (true) {
+            String number = this.generateLuhnNumber();
+            String hash = cardNumberHasher.hash(number);
+            if (!pooledHashes.contains(hash) && !cardRepository.existsByNumberHash(hash)) {
+                return new GeneratedCardNumber(number, hash);
+            }
+        }
+    }
+
+    private String generateLuhnNumber() {
+        char[] digits = new char[CARD_NUMBER_LENGTH];
+        bin.getChars(0, bin.length(), digits, 0);
+        for (int i = bin.length(); i < CARD_NUMBER_LENGTH - 1; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        digits[CARD_NUMBER_LENGTH - 1] = (char) ('0' + luhnCheckDigit(digits, CARD_NUMBER_LENGTH - 1));
+        return new String(digits);
+    }
+
+    /**
+     * Check digit for the first {@code length} digits: every second digit from the right, starting
+     * next to the check digit, is doubled.
+     */
+    private static int luhnCheckDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = digits[i] - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -1,49 +1,95 @@
 package ru.noleg.bankcards.service.impl;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.dto.card.CardSearchFilter;
+import ru.noleg.bankcards.dto.card.CardSort;
 import ru.noleg.bankcards.entity.Card;
 import ru.noleg.bankcards.entity.CardStatus;
 import ru.noleg.bankcards.entity.User;
 import ru.noleg.bankcards.exception.error.BusinessLogicException;
 import ru.noleg.bankcards.exception.error.CardNotFoundException;
 import ru.noleg.bankcards.exception.error.UserNotFoundException;
+import ru.noleg.bankcards.jpa.retry.RetryOnOptimisticLock;
+import ru.noleg.bankcards.repository.CardPendingBalance;
 import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.CardSpecifications;
+import ru.noleg.bankcards.repository.CardSummary;
 import ru.noleg.bankcards.repository.UserRepository;
 import ru.noleg.bankcards.service.CardService;
 import ru.noleg.bankcards.util.AesEncryptionUtil;
+import ru.noleg.bankcards.util.CardNumberHasher;
+import ru.noleg.bankcards.util.CursorCodec;
+import ru.noleg.bankcards.util.Money;
 
 import java.math.BigDecimal;
-import java.security.SecureRandom;
 import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class CardServiceImpl implements CardService {
 
     private static final Logger logger = LoggerFactory.getLogger(CardServiceImpl.class);
-    private static final int CARD_NUMBER_LENGTH = 16;
+    private static final int MAX_BALANCE_STRIPES = 64;
+    private static final int BULK_FLUSH_SIZE = 1000;
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_ISSUE_ATTEMPTS = 3;
+    private static final String NUMBER_HASH_INDEX = "idx_cards_number_hash";
 
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final AesEncryptionUtil aesEncryptionUtil;
+    private final CardNumberHasher cardNumberHasher;
+    private final CardNumberGenerator cardNumberGenerator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate issueSavepoint;
 
     public CardServiceImpl(CardRepository cardRepository,
                            UserRepository userRepository,
-                           AesEncryptionUtil aesEncryptionUtil) {
+                           AesEncryptionUtil aesEncryptionUtil,
+                           CardNumberHasher cardNumberHasher,
+                           CardNumberGenerator cardNumberGenerator,
+                           EntityManager entityManager,
+                           PlatformTransactionManager transactionManager) {
         this.cardRepository = cardRepository;
         this.userRepository = userRepository;
         this.aesEncryptionUtil = aesEncryptionUtil;
+        this.cardNumberHasher = cardNumberHasher;
+        this.cardNumberGenerator = cardNumberGenerator;
+        this.entityManager = entityManager;
+        this.issueSavepoint = new TransactionTemplate(transactionManager);
+        this.issueSavepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
     }
 
+    /**
+     * The generator checks numbers against the blind index, but another instance may issue the same number
+     * before this insert. The card is flushed under a savepoint, so such a collision rolls back only the insert
+     * and the card is issued again with a new number.
+     */
     @Override
     public Long create(Card card) {
         Long ownerId = card.getOwner().getId();
@@ -52,22 +98,84 @@ public class CardServiceImpl implements CardService {
             return new UserNotFoundException("User not found by id " + ownerId);
         });
 
-        String cardNumber = generateRandomCardNumber();
-        card.setOwner(owner);
-        card.setStatus(CardStatus.ACTIVE);
-        card.setEncryptedNumber(aesEncryptionUtil.encrypt(cardNumber));
+        for (int attempt = 1; ; attempt++) {
+            this.prepareForIssue(card, owner, cardNumberGenerator.next());
+            try {
+                Card savedCard = issueSavepoint.execute(savepoint -> cardRepository.saveAndFlush(card));
+                logger.debug("Card created successfully: cardId={}, ownerId={}", savedCard.getId(), ownerId);
+                return savedCard.getId();
+            } catch (DataIntegrityViolationException e) {
+                if (!isNumberHashConflict(e)) {
+                    throw e;
+                }
+                if (attempt == MAX_ISSUE_ATTEMPTS) {
+                    logger.error("Card number collided on every attempt: ownerId={}, attempts={}", ownerId, attempt);
+                    throw new BusinessLogicException("Could not issue a unique card number, please retry");
+                }
+
+                logger.warn("Issued card number is already taken, retrying: ownerId={}, attempt={}", ownerId, attempt);
+                // The failed flush leaves the card in the persistence context with the id it was given.
+                entityManager.clear();
+                card.setId(null);
+                card.setVersion(null);
+            }
+        }
+    }
 
-        Card savedCard = cardRepository.save(card);
-        logger.debug("Card created successfully: cardId={}, ownerId={}", savedCard.getId(), ownerId);
+    private static boolean isNumberHashConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return NUMBER_HASH_INDEX.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
 
-        return savedCard.getId();
+    /**
+     * Owners are checked with one query for all distinct ids, numbers are taken from the generator at once,
+     * and cards are inserted in chunks that are flushed as JDBC batches and then detached, so the persistence
+     * context stays small however many cards are issued.
+     */
+    @Override
+    public List<Long> createAll(List<Card> cards) {
+        Set<Long> ownerIds = cards.stream()
+                .map(card -> card.getOwner().getId())
+                .collect(Collectors.toSet());
+        Map<Long, User> owners = userRepository.findAllById(ownerIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        for (Long ownerId : ownerIds) {
+            if (!owners.containsKey(ownerId)) {
+                logger.error("User not found during bulk card creation: userId={}", ownerId);
+                throw new UserNotFoundException("User not found by id " + ownerId);
+            }
+        }
+
+        List<CardNumberGenerator.GeneratedCardNumber> numbers = cardNumberGenerator.next(cards.size());
+        List<Long> cardIds = new ArrayList<>(cards.size());
+        for (int from = 0; from < cards.size(); from += BULK_FLUSH_SIZE) {
+            int to = Math.min(from + BULK_FLUSH_SIZE, cards.size());
+            List<Card> chunk = cards.subList(from, to);
+            for (int i = 0; i < chunk.size(); i++) {
+                Card card = chunk.get(i);
+                this.prepareForIssue(card, owners.get(card.getOwner().getId()), numbers.get(from + i));
+            }
+
+            cardRepository.saveAll(chunk);
+            entityManager.flush();
+            chunk.forEach(card -> cardIds.add(card.getId()));
+            entityManager.clear();
+        }
+
+        logger.debug("Cards created successfully: count={}, owners={}", cardIds.size(), ownerIds.size());
+        return cardIds;
     }
 
-    private String generateRandomCardNumber() {
-        Random random = new SecureRandom();
-        return random.ints(CARD_NUMBER_LENGTH, 0, 10)
-                .mapToObj(String::valueOf)
-                .collect(Collectors.joining());
+    private void prepareForIssue(Card card, User owner, CardNumberGenerator.GeneratedCardNumber cardNumber) {
+        card.setOwner(owner);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setEncryptedNumber(aesEncryptionUtil.encrypt(cardNumber.number()));
+        card.setNumberHash(cardNumber.hash());
+        card.setLast4(cardNumber.number().substring(cardNumber.number().length() - 4));
     }
 
     @Override
@@ -78,42 +186,283 @@ public class CardServiceImpl implements CardService {
             return new CardNotFoundException("Card not found by id " + id);
         });
 
-        this.decryptCardNumber(card);
+        this.fillMissingLast4(List.of(card));
+        this.fillPendingBalances(List.of(card));
         return card;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Card> getAllByOwner(Long ownerId, Integer pageNumber, Integer pageSize, Sort sort) {
-        Page<Card> cards = cardRepository.findAllByOwnerId(ownerId, PageRequest.of(pageNumber, pageSize, sort));
+    public Card getByNumber(String number) {
+        Card card = cardRepository.findByNumberHash(cardNumberHasher.hash(number)).orElseThrow(() -> {
+            logger.error("Card not found by number");
+            return new CardNotFoundException("Card not found by number");
+        });
 
-        cards.forEach(this::decryptCardNumber);
-        logger.debug("Retrieved {} cards for owner with id: {}", cards.getNumberOfElements(), ownerId);
+        this.fillMissingLast4(List.of(card));
+        this.fillPendingBalances(List.of(card));
+        return card;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String revealNumber(Long id) {
+        Card card = cardRepository.findById(id).orElseThrow(() -> {
+            logger.error("Card not found: cardId={}", id);
+            return new CardNotFoundException("Card not found by id " + id);
+        });
 
-        return cards.getContent();
+        String number = this.decryptCardNumber(card);
+        logger.info("Card number revealed: cardId={}", id);
+        return number;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Card> getAll(Integer pageNumber, Integer pageSize, Sort sort) {
-        Page<Card> cards = cardRepository.findAll(PageRequest.of(pageNumber, pageSize, sort));
+    public List<CardSummary> getAllByOwner(Long ownerId, Integer pageNumber, Integer pageSize, Sort sort) {
+        Page<CardSummary> cards = cardRepository.findSummariesByOwnerId(ownerId, PageRequest.of(pageNumber, pageSize, sort));
+        logger.debug("Retrieved {} cards for owner with id: {}", cards.getNumberOfElements(), ownerId);
 
-        cards.forEach(this::decryptCardNumber);
+        return this.completeSummaries(cards.getContent());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CardSummary> getAll(Integer pageNumber, Integer pageSize, Sort sort) {
+        Page<CardSummary> cards = cardRepository.findSummaries(PageRequest.of(pageNumber, pageSize, sort));
         logger.debug("Retrieved {} cards", cards.getNumberOfElements());
 
-        return cards.getContent();
+        return this.completeSummaries(cards.getContent());
+    }
+
+    /**
+     * Returns up to {@code limit} cards of the owner that follow {@code after} in the given order,
+     * or the first ones when {@code after} is {@code null}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CardSummary> scrollAllByOwner(Long ownerId, CardSort sort, CursorCodec.Keyset after, int limit) {
+        Limit pageLimit = Limit.of(limit);
+        List<CardSummary> cards = switch (sort) {
+            case ID_ASC -> cardRepository.findSummariesByOwnerIdAfterId(
+                    ownerId, after == null ? 0L : after.id(), pageLimit
+            );
+            case ID_DESC -> cardRepository.findSummariesByOwnerIdBeforeId(
+                    ownerId, after == null ? Long.MAX_VALUE : after.id(), pageLimit
+            );
+            case DATE_ASC -> after == null
+                    ? cardRepository.findSummariesByOwnerIdByExpirationDate(ownerId, pageLimit)
+                    : cardRepository.findSummariesByOwnerIdAfterExpirationDate(
+                    ownerId, this.parseExpirationDate(after), after.id(), pageLimit
+            );
+        };
+        logger.debug("Scrolled {} cards for owner with id: {}", cards.size(), ownerId);
+
+        return this.completeSummaries(cards);
+    }
+
+    /**
+     * Returns up to {@code limit} cards that follow {@code after} in the given order,
+     * or the first ones when {@code after} is {@code null}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CardSummary> scrollAll(CardSort sort, CursorCodec.Keyset after, int limit) {
+        Limit pageLimit = Limit.of(limit);
+        List<CardSummary> cards = switch (sort) {
+            case ID_ASC -> cardRepository.findSummariesAfterId(after == null ? 0L : after.id(), pageLimit);
+            case ID_DESC -> cardRepository.findSummariesBeforeId(after == null ? Long.MAX_VALUE : after.id(), pageLimit);
+            case DATE_ASC -> after == null
+                    ? cardRepository.findSummariesByExpirationDate(pageLimit)
+                    : cardRepository.findSummariesAfterExpirationDate(this.parseExpirationDate(after), after.id(), pageLimit);
+        };
+        logger.debug("Scrolled {} cards", cards.size());
+
+        return this.completeSummaries(cards);
+    }
+
+    /**
+     * Returns up to {@code limit} cards matching every condition set in {@code filter}, in id order after {@code afterId},
+     * or from the first card when it is {@code null}. The balance range applies to the stored balance,
+     * without deposits still pending in balance stripes, so that it can be answered from an index.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CardSummary> search(CardSearchFilter filter, Long afterId, int limit) {
+        List<Specification<Card>> specifications = new ArrayList<>();
+        if (filter.ownerId() != null) {
+            specifications.add(CardSpecifications.ownedBy(filter.ownerId()));
+        }
+        if (filter.status() != null) {
+            specifications.add(CardSpecifications.hasStatus(filter.status()));
+        }
+        if (filter.expiresFrom() != null) {
+            specifications.add(CardSpecifications.expiresFrom(filter.expiresFrom()));
+        }
+        if (filter.expiresTo() != null) {
+            specifications.add(CardSpecifications.expiresTo(filter.expiresTo()));
+        }
+        if (filter.balanceFrom() != null) {
+            specifications.add(CardSpecifications.balanceFrom(Money.toMinor(filter.balanceFrom())));
+        }
+        if (filter.balanceTo() != null) {
+            specifications.add(CardSpecifications.balanceTo(Money.toMinor(filter.balanceTo())));
+        }
+        specifications.add(CardSpecifications.idGreaterThan(afterId == null ? 0L : afterId));
+
+        List<CardSummary> cards = cardRepository.searchSummaries(Specification.allOf(specifications), Limit.of(limit));
+        logger.debug("Found {} cards by filter: {}", cards.size(), filter);
+
+        return this.completeSummaries(cards);
     }
 
-    private void decryptCardNumber(Card card) {
+    private YearMonth parseExpirationDate(CursorCodec.Keyset after) {
+        if (after.key() == null) {
+            throw new BusinessLogicException("Invalid cursor");
+        }
+        try {
+            return YearMonth.parse(after.key());
+        } catch (DateTimeParseException e) {
+            throw new BusinessLogicException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Passes every card to {@code consumer} in id order, reading them from a cursor in chunks.
+     * Each chunk gets its last digits and pending balances filled the same way as a page does,
+     * and the persistence context is cleared after it, so memory use doesn't grow with the table.
+     * Cards handed to the consumer are detached once the next chunk starts.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAll(Consumer<Card> consumer) {
+        long exported = 0;
+        List<Card> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        try (Stream<Card> cards = cardRepository.streamAll()) {
+            Iterator<Card> iterator = cards.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE || !iterator.hasNext()) {
+                    this.fillMissingLast4(chunk);
+                    this.fillPendingBalances(chunk);
+                    chunk.forEach(consumer);
+
+                    exported += chunk.size();
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+
+        logger.debug("Exported {} cards", exported);
+        return exported;
+    }
+
+    /**
+     * Summaries counterpart of {@link #fillMissingLast4} and {@link #fillPendingBalances}. Records are immutable,
+     * so only the cards that need a value are copied; a page without striped or legacy cards is returned as is.
+     */
+    private List<CardSummary> completeSummaries(List<CardSummary> cards) {
+        List<Long> stripedCardIds = cards.stream()
+                .filter(card -> card.balanceStripes() > 0)
+                .map(CardSummary::id)
+                .toList();
+        boolean missingLast4 = cards.stream().anyMatch(card -> card.last4() == null);
+        if (stripedCardIds.isEmpty() && !missingLast4) {
+            return cards;
+        }
+
+        Map<Long, Long> pendingBalances = stripedCardIds.isEmpty()
+                ? Map.of()
+                : cardRepository.sumStripesByCardIds(stripedCardIds).stream()
+                .collect(Collectors.toMap(CardPendingBalance::getCardId, CardPendingBalance::getAmountMinor));
+
+        List<CardSummary> legacyCards = missingLast4
+                ? cards.stream().filter(card -> card.last4() == null).toList()
+                : List.of();
+        Iterator<String> numbers = this.decryptCardNumbers(
+                legacyCards.stream().map(CardSummary::id).toList(),
+                legacyCards.stream().map(CardSummary::encryptedNumber).toList()
+        ).iterator();
+
+        List<CardSummary> completed = new ArrayList<>(cards.size());
+        for (CardSummary card : cards) {
+            if (card.last4() == null) {
+                String number = numbers.next();
+                card = card.withLast4(number.substring(number.length() - 4));
+            }
+            Long pendingBalance = pendingBalances.get(card.id());
+            if (pendingBalance != null) {
+                card = card.withPendingBalanceMinor(pendingBalance);
+            }
+            completed.add(card);
+        }
+        return completed;
+    }
+
+    /**
+     * Adds the not yet folded sub-balances to striped cards, with one query for the whole page.
+     */
+    private void fillPendingBalances(List<Card> cards) {
+        Map<Long, Card> stripedCards = cards.stream()
+                .filter(card -> card.getBalanceStripes() > 0)
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        if (stripedCards.isEmpty()) {
+            return;
+        }
+
+        cardRepository.sumStripesByCardIds(stripedCards.keySet()).forEach(pending ->
+                stripedCards.get(pending.getCardId()).setPendingBalanceMinor(pending.getAmountMinor())
+        );
+    }
+
+    /**
+     * Read paths use the stored last four digits. Only cards not reached by {@link CardNumberBackfill} yet
+     * are decrypted; the digits are not saved here, the backfill does that.
+     */
+    private void fillMissingLast4(List<Card> cards) {
+        List<Card> legacyCards = cards.stream()
+                .filter(card -> card.getLast4() == null)
+                .toList();
+        if (legacyCards.isEmpty()) {
+            return;
+        }
+
+        List<String> numbers = this.decryptCardNumbers(
+                legacyCards.stream().map(Card::getId).toList(),
+                legacyCards.stream().map(Card::getEncryptedNumber).toList()
+        );
+        for (int i = 0; i < legacyCards.size(); i++) {
+            String number = numbers.get(i);
+            legacyCards.get(i).setLast4(number.substring(number.length() - 4));
+        }
+    }
+
+    private String decryptCardNumber(Card card) {
         try {
-            String decryptedNumber = aesEncryptionUtil.decrypt(card.getEncryptedNumber());
-            card.setMaskedNumber(decryptedNumber);
+            return aesEncryptionUtil.decrypt(card.getEncryptedNumber());
         } catch (Exception e) {
             logger.error("Failed to decrypt card number: cardId={}", card.getId(), e);
             throw new SecurityException("Could not decrypt card number", e);
         }
     }
 
+    /**
+     * Decrypts the numbers of a whole page in one pass, keeping their order.
+     */
+    private List<String> decryptCardNumbers(List<Long> cardIds, List<String> encryptedNumbers) {
+        if (encryptedNumbers.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            return aesEncryptionUtil.decryptAll(encryptedNumbers);
+        } catch (Exception e) {
+            logger.error("Failed to decrypt card numbers: cardIds={}", cardIds, e);
+            throw new SecurityException("Could not decrypt card number", e);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getBalance(Long cardId, Long ownerId) {
@@ -123,7 +472,10 @@ public class CardServiceImpl implements CardService {
         });
 
         this.validateCardActive(card);
-        return card.getBalance();
+        if (card.getBalanceStripes() == 0) {
+            return Money.toDecimal(card.getBalanceMinor());
+        }
+        return Money.toDecimal(Money.add(card.getBalanceMinor(), cardRepository.sumStripes(cardId)));
     }
 
     @Override
@@ -168,6 +520,7 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
+    @RetryOnOptimisticLock
     public void deposit(Long cardId, BigDecimal amount, Long ownerId) {
 
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
@@ -182,12 +535,54 @@ public class CardServiceImpl implements CardService {
 
         this.validateCardActive(card);
 
-        card.setBalance(card.getBalance().add(amount));
+        long amountMinor = Money.toMinor(amount);
+        if (card.getBalanceStripes() > 0) {
+            int stripe = ThreadLocalRandom.current().nextInt(card.getBalanceStripes());
+            if (cardRepository.creditStripe(cardId, stripe, amountMinor) == 0) {
+                logger.error("Balance stripe would overflow: cardId={}, stripe={}, amount={}", cardId, stripe, amount);
+                throw new BusinessLogicException("Resulting amount is out of the supported range");
+            }
+
+            logger.debug("Deposit to stripe successful: cardId={}, stripe={}, amount={}", cardId, stripe, amount);
+            return;
+        }
+
+        card.setBalanceMinor(Money.add(card.getBalanceMinor(), amountMinor));
         cardRepository.save(card);
 
         logger.debug("Deposit successful: cardId={}, amount={}, ownerId={}", cardId, amount, ownerId);
     }
 
+    @Override
+    public void updateBalanceStripes(Long cardId, int stripes) {
+        if (stripes < 0 || stripes > MAX_BALANCE_STRIPES) {
+            logger.error("Invalid balance stripes count: cardId={}, stripes={}", cardId, stripes);
+            throw new BusinessLogicException("Balance stripes must be between 0 and " + MAX_BALANCE_STRIPES);
+        }
+
+        // The card row stays locked from the first fold to the commit, so transfers and other count changes
+        // queue behind it. Existing stripes are folded before the card is loaded, so that the entity already
+        // carries the folded balance.
+        cardRepository.lockAllByIdIn(List.of(cardId));
+        cardRepository.foldStripes(cardId);
+
+        Card card = cardRepository.findById(cardId).orElseThrow(() -> {
+            logger.error("Card not found: cardId={}", cardId);
+            return new CardNotFoundException("Card not found by id " + cardId);
+        });
+
+        card.setBalanceStripes(stripes);
+        cardRepository.saveAndFlush(card);
+
+        // Deposits don't take the row lock: one that read the old count may have credited a stripe after the
+        // first fold. With no stripes left, balance reads stop summing them, so such money is folded right away.
+        if (stripes == 0) {
+            cardRepository.foldStripes(cardId);
+        }
+
+        logger.debug("Balance stripes updated: cardId={}, stripes={}", cardId, stripes);
+    }
+
     private void validateCardActive(Card card) {
         if (card.getStatus() != CardStatus.ACTIVE) {
             logger.error("Card is not active: id={}, status={}", card.getId(), card.getStatus());
@@ -0,0 +1,153 @@
+package ru.noleg.bankcards.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.TransferRecord;
+import ru.noleg.bankcards.entity.TransferStatus;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+import ru.noleg.bankcards.exception.error.CardNotFoundException;
+import ru.noleg.bankcards.exception.error.CardTransferException;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.service.TransferJournalService;
+import ru.noleg.bankcards.util.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+
+/**
+ * Transfer steps shared by {@link CardTransferServiceImpl} and {@link GroupCommitCardTransferService}.
+ * The bean has no transactional advice and always runs in the caller's transaction: a failing transfer
+ * doesn't mark that transaction rollback-only, so the group committer can undo it alone with a savepoint.
+ */
+@Component
+public class CardTransferOperations {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardTransferOperations.class);
+
+    private final CardRepository cardRepository;
+    private final TransferJournalService transferJournalService;
+
+    public CardTransferOperations(CardRepository cardRepository, TransferJournalService transferJournalService) {
+        this.cardRepository = cardRepository;
+        this.transferJournalService = transferJournalService;
+    }
+
+    public void transfer(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        logger.debug("Initiating transfer: ownerId={}, fromCardId={}, toCardId={}, amount={}",
+                ownerId, fromCardId, toCardId, amount
+        );
+
+        long amountMinor = this.validateTransferParameters(fromCardId, toCardId, amount);
+        String currentMonth = YearMonth.now().toString();
+
+        try {
+            // Rows are always touched in ascending id order so that concurrent opposite transfers can't deadlock.
+            boolean applied = fromCardId < toCardId
+                    ? this.debit(ownerId, fromCardId, amountMinor, currentMonth) && this.credit(ownerId, toCardId, amountMinor, currentMonth)
+                    : this.credit(ownerId, toCardId, amountMinor, currentMonth) && this.debit(ownerId, fromCardId, amountMinor, currentMonth);
+
+            if (!applied) {
+                this.rejectTransfer(ownerId, fromCardId, toCardId, amountMinor);
+            }
+        } catch (BusinessLogicException | CardNotFoundException | CardTransferException e) {
+            this.journal(ownerId, fromCardId, toCardId, amountMinor, TransferStatus.FAILED, e.getMessage());
+            throw e;
+        }
+
+        this.journal(ownerId, fromCardId, toCardId, amountMinor, TransferStatus.COMPLETED, null);
+        logger.debug("Transfer completed: {} -> {}, amount={}", fromCardId, toCardId, amount);
+    }
+
+    /**
+     * Locks the card rows in ascending id order, the order single transfers update them in, so that
+     * a transaction applying several transfers can't deadlock with the ones running next to it.
+     */
+    public void lockCards(Collection<Long> cardIds) {
+        cardRepository.lockAllByIdIn(cardIds);
+    }
+
+    /**
+     * Validates the request and returns the amount in minor units.
+     */
+    long validateTransferParameters(Long fromCardId, Long toCardId, BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) < 0) {
+            logger.error("Transfer failed: negative or null amount: {}", amount);
+            throw new BusinessLogicException("Amount can't be negative");
+        }
+
+        if (fromCardId.equals(toCardId)) {
+            logger.error("Transfer failed: sender and recipient cards are the same: {}", fromCardId);
+            throw new CardTransferException("Can't transfer to the same card");
+        }
+
+        return Money.toMinor(amount);
+    }
+
+    void validateCardActive(Card card) {
+        if (card.getStatus() != CardStatus.ACTIVE) {
+            logger.error("Card is not active: id={}, status={}", card.getId(), card.getStatus());
+            throw new CardTransferException("Card with id: " + card.getId() + " non active");
+        }
+        if (card.getExpirationDate().isBefore(YearMonth.now())) {
+            logger.error("Card is expired: id={}, expirationDate={}", card.getId(), card.getExpirationDate());
+            throw new CardTransferException("Card with id: " + card.getId() + " has expired");
+        }
+    }
+
+    void journal(Long ownerId, Long fromCardId, Long toCardId, long amountMinor, TransferStatus status, String error) {
+        transferJournalService.record(new TransferRecord(
+                ownerId, fromCardId, toCardId, amountMinor, status, error, LocalDateTime.now()
+        ));
+    }
+
+    private boolean debit(Long ownerId, Long cardId, long amountMinor, String currentMonth) {
+        if (cardRepository.debit(cardId, ownerId, amountMinor, currentMonth) == 1) {
+            return true;
+        }
+
+        // A striped card may hold the missing funds in sub-balances: fold them and try once more.
+        return cardRepository.foldStripes(cardId) == 1
+                && cardRepository.debit(cardId, ownerId, amountMinor, currentMonth) == 1;
+    }
+
+    private boolean credit(Long ownerId, Long cardId, long amountMinor, String currentMonth) {
+        return cardRepository.credit(cardId, ownerId, amountMinor, currentMonth) == 1;
+    }
+
+    /**
+     * Called only when one of the conditional updates didn't match: reads both cards to report
+     * the precise reason and always throws, so the surrounding transaction is rolled back.
+     */
+    private void rejectTransfer(Long ownerId, Long fromCardId, Long toCardId, long amountMinor) {
+        Card fromCard = cardRepository.findByIdAndOwnerId(fromCardId, ownerId).orElseThrow(() -> {
+            logger.error("Sender card not found: id={}, ownerId={}", fromCardId, ownerId);
+            return new CardNotFoundException("Sender card not found with ID " + fromCardId);
+        });
+
+        Card toCard = cardRepository.findByIdAndOwnerId(toCardId, ownerId).orElseThrow(() -> {
+            logger.error("Recipient card not found: id={}, ownerId={}", toCardId, ownerId);
+            return new CardNotFoundException("Recipient card not found with ID " + toCardId);
+        });
+
+        this.validateCardActive(fromCard);
+        this.validateCardActive(toCard);
+
+        if (!Money.covers(fromCard.getBalanceMinor(), amountMinor)) {
+            logger.error("Insufficient funds: cardId={}, attemptedTransferMinor={}", fromCardId, amountMinor);
+            throw new BusinessLogicException("Insufficient funds on the sender card.");
+        }
+
+        if (toCard.getBalanceMinor() > Long.MAX_VALUE - amountMinor) {
+            logger.error("Recipient balance would overflow: cardId={}, attemptedTransferMinor={}", toCardId, amountMinor);
+            throw new BusinessLogicException("Resulting amount is out of the supported range");
+        }
+
+        logger.error("Transfer was not applied: fromCardId={}, toCardId={}, amountMinor={}", fromCardId, toCardId, amountMinor);
+        throw new CardTransferException("Transfer could not be applied, please retry");
+    }
+}
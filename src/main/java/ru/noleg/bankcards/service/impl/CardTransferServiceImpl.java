@@ -4,16 +4,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.noleg.bankcards.dto.transfer.BatchTransferMode;
+import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferResultDto;
 import ru.noleg.bankcards.entity.Card;
-import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.TransferStatus;
 import ru.noleg.bankcards.exception.error.BusinessLogicException;
 import ru.noleg.bankcards.exception.error.CardNotFoundException;
 import ru.noleg.bankcards.exception.error.CardTransferException;
+import ru.noleg.bankcards.jpa.retry.RetryOnOptimisticLock;
 import ru.noleg.bankcards.repository.CardRepository;
 import ru.noleg.bankcards.service.CardTransferService;
+import ru.noleg.bankcards.util.Money;
 
 import java.math.BigDecimal;
-import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -22,70 +33,86 @@ public class CardTransferServiceImpl implements CardTransferService {
     private static final Logger logger = LoggerFactory.getLogger(CardTransferServiceImpl.class);
 
     private final CardRepository cardRepository;
+    private final CardTransferOperations cardTransferOperations;
 
-    public CardTransferServiceImpl(CardRepository cardRepository) {
+    public CardTransferServiceImpl(CardRepository cardRepository, CardTransferOperations cardTransferOperations) {
         this.cardRepository = cardRepository;
+        this.cardTransferOperations = cardTransferOperations;
     }
 
     @Override
+    @RetryOnOptimisticLock
     public void transfer(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount) {
-        logger.debug("Initiating transfer: ownerId={}, fromCardId={}, toCardId={}, amount={}",
-                ownerId, fromCardId, toCardId, amount
-        );
-
-        this.validateTransferParameters(fromCardId, toCardId, amount);
-
-        Card fromCard = cardRepository.findByIdAndOwnerId(fromCardId, ownerId).orElseThrow(() -> {
-            logger.error("Sender card not found: id={}, ownerId={}", fromCardId, ownerId);
-            return new CardNotFoundException("Sender card not found with ID " + fromCardId);
-        });
+        cardTransferOperations.transfer(ownerId, fromCardId, toCardId, amount);
+    }
 
-        Card toCard = cardRepository.findByIdAndOwnerId(toCardId, ownerId).orElseThrow(() -> {
-            logger.error("Recipient card not found: id={}, ownerId={}", toCardId, ownerId);
-            return new CardNotFoundException("Recipient card not found with ID " + toCardId);
+    @Override
+    @RetryOnOptimisticLock
+    public List<TransferResultDto> transferBatch(Long ownerId, List<TransferDto> transfers, BatchTransferMode mode) {
+        logger.debug("Initiating batch transfer: ownerId={}, size={}, mode={}", ownerId, transfers.size(), mode);
+
+        Set<Long> cardIds = new HashSet<>();
+        transfers.forEach(transfer -> {
+            cardIds.add(transfer.fromCardId());
+            cardIds.add(transfer.toCardId());
         });
 
-        this.validateCardActive(fromCard);
-        this.validateCardActive(toCard);
-
-        if (fromCard.getBalance().compareTo(amount) < 0) {
-            logger.error("Insufficient funds: cardId={}, attemptedTransfer={}", fromCardId, amount);
-            throw new BusinessLogicException("Insufficient funds on the sender card.");
+        Map<Long, Card> cards = cardRepository.findAllForUpdateByIdInAndOwnerId(cardIds, ownerId).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+
+        // Cards are locked now, so pending sub-balances can be moved into the managed entities safely.
+        cards.values().stream()
+                .filter(card -> card.getBalanceStripes() > 0)
+                .forEach(card -> card.setBalanceMinor(Money.add(card.getBalanceMinor(), cardRepository.drainStripes(card.getId()))));
+
+        List<TransferResultDto> results = new ArrayList<>(transfers.size());
+        for (TransferDto transfer : transfers) {
+            Long amountMinor = null;
+            try {
+                amountMinor = cardTransferOperations.validateTransferParameters(transfer.fromCardId(), transfer.toCardId(), transfer.amount());
+                this.applyBatchItem(transfer, amountMinor, cards);
+
+                cardTransferOperations.journal(ownerId, transfer.fromCardId(), transfer.toCardId(), amountMinor, TransferStatus.COMPLETED, null);
+                results.add(TransferResultDto.completed(transfer));
+            } catch (BusinessLogicException | CardNotFoundException | CardTransferException e) {
+                if (amountMinor != null) {
+                    cardTransferOperations.journal(ownerId, transfer.fromCardId(), transfer.toCardId(), amountMinor, TransferStatus.FAILED, e.getMessage());
+                }
+                if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+                    logger.error("Batch transfer rolled back: ownerId={}, reason={}", ownerId, e.getMessage());
+                    throw e;
+                }
+                results.add(TransferResultDto.failed(transfer, e.getMessage()));
+            }
         }
 
-        this.performTransfer(amount, fromCard, toCard);
-
-        logger.debug("Transfer completed: {} -> {}, amount={}", fromCardId, toCardId, amount);
+        // Balances of the changed cards are flushed on commit as one JDBC batch of updates.
+        logger.debug("Batch transfer completed: ownerId={}, size={}", ownerId, transfers.size());
+        return results;
     }
 
-    private void validateTransferParameters(Long fromCardId, Long toCardId, BigDecimal amount) {
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) < 0) {
-            logger.error("Transfer failed: negative or null amount: {}", amount);
-            throw new BusinessLogicException("Amount can't be negative");
+    private void applyBatchItem(TransferDto transfer, long amountMinor, Map<Long, Card> cards) {
+        Card fromCard = cards.get(transfer.fromCardId());
+        if (fromCard == null) {
+            logger.error("Sender card not found in batch: id={}", transfer.fromCardId());
+            throw new CardNotFoundException("Sender card not found with ID " + transfer.fromCardId());
         }
 
-        if (fromCardId.equals(toCardId)) {
-            logger.error("Transfer failed: sender and recipient cards are the same: {}", fromCardId);
-            throw new CardTransferException("Can't transfer to the same card");
+        Card toCard = cards.get(transfer.toCardId());
+        if (toCard == null) {
+            logger.error("Recipient card not found in batch: id={}", transfer.toCardId());
+            throw new CardNotFoundException("Recipient card not found with ID " + transfer.toCardId());
         }
-    }
 
-    private void validateCardActive(Card card) {
-        if (card.getStatus() != CardStatus.ACTIVE) {
-            logger.error("Card is not active: id={}, status={}", card.getId(), card.getStatus());
-            throw new CardTransferException("Card with id: " + card.getId() + " non active");
-        }
-        if (card.getExpirationDate().isBefore(YearMonth.now())) {
-            logger.error("Card is expired: id={}, expirationDate={}", card.getId(), card.getExpirationDate());
-            throw new CardTransferException("Card with id: " + card.getId() + " has expired");
-        }
-    }
+        cardTransferOperations.validateCardActive(fromCard);
+        cardTransferOperations.validateCardActive(toCard);
 
-    private void performTransfer(BigDecimal amount, Card fromCard, Card toCard) {
-        fromCard.setBalance(fromCard.getBalance().subtract(amount));
-        toCard.setBalance(toCard.getBalance().add(amount));
+        if (!Money.covers(fromCard.getBalanceMinor(), amountMinor)) {
+            logger.error("Insufficient funds: cardId={}, attemptedTransfer={}", fromCard.getId(), transfer.amount());
+            throw new BusinessLogicException("Insufficient funds on the sender card.");
+        }
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+        fromCard.setBalanceMinor(Money.subtract(fromCard.getBalanceMinor(), amountMinor));
+        toCard.setBalanceMinor(Money.add(toCard.getBalanceMinor(), amountMinor));
     }
 }
@@ -0,0 +1,265 @@
+package ru.noleg.bankcards.service.impl;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.dto.transfer.BatchTransferMode;
+import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferResultDto;
+import ru.noleg.bankcards.exception.error.TransferUnavailableException;
+import ru.noleg.bankcards.service.CardTransferService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Queues single transfers and lets one committer thread apply them in shared transactions,
+ * so that concurrent transfers pay for one commit instead of one each. The cards of a group are locked
+ * up front in ascending id order, then every transfer runs under its own savepoint through the
+ * non-transactional {@link CardTransferOperations}: a failing transfer is rolled back alone and its caller
+ * gets the error, while the rest of the group still commits.
+ * <p>
+ * Callers wait at most {@code app.transfer.group-commit.result-timeout} for their group and get a
+ * {@link TransferUnavailableException} (503) instead of hanging when the committer is stuck or shutting down.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.transfer.group-commit.enabled", havingValue = "true")
+public class GroupCommitCardTransferService implements CardTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitCardTransferService.class);
+
+    private final CardTransferServiceImpl delegate;
+    private final CardTransferOperations cardTransferOperations;
+    private final TransactionTemplate batchTransaction;
+    private final TransactionTemplate itemSavepoint;
+    private final EntityManager entityManager;
+    private final BlockingQueue<PendingTransfer> queue;
+    private final DistributionSummary batchSize;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long resultTimeoutNanos;
+    private final Thread committer;
+
+    private volatile boolean running = true;
+
+    public GroupCommitCardTransferService(CardTransferServiceImpl delegate,
+                                          CardTransferOperations cardTransferOperations,
+                                          PlatformTransactionManager transactionManager,
+                                          EntityManager entityManager,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${app.transfer.group-commit.max-batch-size:100}") int maxBatchSize,
+                                          @Value("${app.transfer.group-commit.max-delay:5ms}") Duration maxDelay,
+                                          @Value("${app.transfer.group-commit.queue-capacity:10000}") int queueCapacity,
+                                          @Value("${app.transfer.group-commit.result-timeout:30s}") Duration resultTimeout) {
+        this.delegate = delegate;
+        this.cardTransferOperations = cardTransferOperations;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.itemSavepoint = new TransactionTemplate(transactionManager);
+        this.itemSavepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.entityManager = entityManager;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.resultTimeoutNanos = resultTimeout.toNanos();
+        this.committer = new Thread(this::commitLoop, "transfer-group-committer");
+
+        Gauge.builder("bankcards.transfer.group.commit.queue.depth", queue, BlockingQueue::size)
+                .description("Transfers waiting for the group committer")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("bankcards.transfer.group.commit.batch.size")
+                .description("Transfers applied per group commit")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        committer.start();
+        logger.info("Transfer group commit enabled: maxBatchSize={}, maxDelay={}ns.", maxBatchSize, maxDelayNanos);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Whatever the committer didn't take is never applied: release those callers right away.
+        List<PendingTransfer> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        rejected.forEach(pending -> pending.result().completeExceptionally(
+                new TransferUnavailableException("Transfer was not applied: the service is shutting down, please retry")
+        ));
+        if (!rejected.isEmpty()) {
+            logger.warn("Rejected {} queued transfers on shutdown.", rejected.size());
+        }
+    }
+
+    @Override
+    public void transfer(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        // A caller that already holds a transaction (e.g. with an idempotency key) must stay atomic with it.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            delegate.transfer(ownerId, fromCardId, toCardId, amount);
+            return;
+        }
+
+        PendingTransfer pending = new PendingTransfer(ownerId, fromCardId, toCardId, amount, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            logger.warn("Group commit queue is full, applying transfer directly: {} -> {}", fromCardId, toCardId);
+            delegate.transfer(ownerId, fromCardId, toCardId, amount);
+            return;
+        }
+
+        // stop() may have flipped the flag after the check above, when the committer might already be gone.
+        if (!running && queue.remove(pending)) {
+            delegate.transfer(ownerId, fromCardId, toCardId, amount);
+            return;
+        }
+
+        this.awaitResult(pending);
+    }
+
+    private void awaitResult(PendingTransfer pending) {
+        try {
+            pending.result().get(resultTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Still queued means never applied; once the committer took it, the outcome is unknown to this caller.
+            if (queue.remove(pending)) {
+                logger.warn("Transfer timed out in the group commit queue: {} -> {}", pending.fromCardId(), pending.toCardId());
+                throw new TransferUnavailableException("Transfer was not applied in time, please retry");
+            }
+            logger.warn("Transfer result timed out: {} -> {}", pending.fromCardId(), pending.toCardId());
+            throw new TransferUnavailableException("Transfer is still being processed, check the card balance before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferUnavailableException("Interrupted while waiting for the transfer result");
+        }
+    }
+
+    @Override
+    public List<TransferResultDto> transferBatch(Long ownerId, List<TransferDto> transfers, BatchTransferMode mode) {
+        return delegate.transferBatch(ownerId, transfers, mode);
+    }
+
+    private void commitLoop() {
+        while (running || !queue.isEmpty()) {
+            List<PendingTransfer> batch = new ArrayList<>(maxBatchSize);
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingTransfer next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                this.commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().completeExceptionally(
+                        new TransferUnavailableException("Transfer was not applied: the service is shutting down, please retry")
+                ));
+                return;
+            } catch (Throwable e) {
+                // The thread must survive anything, otherwise every later caller would wait for its timeout.
+                logger.error("Unexpected error in transfer group committer.", e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void commit(List<PendingTransfer> batch) {
+        batchSize.record(batch.size());
+        List<RuntimeException> errors = new ArrayList<>(batch.size());
+
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                cardTransferOperations.lockCards(this.cardIds(batch));
+
+                for (PendingTransfer pending : batch) {
+                    try {
+                        // Going through the @Transactional delegate here would mark the whole group rollback-only on failure.
+                        itemSavepoint.executeWithoutResult(savepoint -> cardTransferOperations.transfer(
+                                pending.ownerId(), pending.fromCardId(), pending.toCardId(), pending.amount()
+                        ));
+                        errors.add(null);
+                    } catch (RuntimeException e) {
+                        errors.add(e);
+                        // The savepoint rolled the rows back, but cards read to explain the failure stay cached
+                        // with their rolled-back state; the next transfer of the group must read them afresh.
+                        entityManager.clear();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Group commit of {} transfers failed.", batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+
+        // Callers are released only once the shared transaction has committed.
+        for (int i = 0; i < batch.size(); i++) {
+            RuntimeException error = errors.get(i);
+            if (error == null) {
+                batch.get(i).result().complete(null);
+            } else {
+                batch.get(i).result().completeExceptionally(error);
+            }
+        }
+        logger.debug("Group commit of {} transfers completed.", batch.size());
+    }
+
+    private Set<Long> cardIds(List<PendingTransfer> batch) {
+        Set<Long> cardIds = new HashSet<>();
+        batch.forEach(pending -> {
+            cardIds.add(pending.fromCardId());
+            cardIds.add(pending.toCardId());
+        });
+        return cardIds;
+    }
+
+    private record PendingTransfer(Long ownerId,
+                                   Long fromCardId,
+                                   Long toCardId,
+                                   BigDecimal amount,
+                                   CompletableFuture<Void> result) {
+    }
+}
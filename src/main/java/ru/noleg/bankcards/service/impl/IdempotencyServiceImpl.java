@@ -0,0 +1,199 @@
+package ru.noleg.bankcards.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.entity.IdempotencyKey;
+import ru.noleg.bankcards.entity.IdempotentOperation;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+import ru.noleg.bankcards.exception.error.CardNotFoundException;
+import ru.noleg.bankcards.exception.error.CardTransferException;
+import ru.noleg.bankcards.exception.error.ReplayedFailureException;
+import ru.noleg.bankcards.jpa.retry.OptimisticLockRetry;
+import ru.noleg.bankcards.repository.IdempotencyKeyRepository;
+import ru.noleg.bankcards.service.IdempotencyService;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Not transactional on purpose: a repeated key is answered from the in-process cache
+ * without opening a transaction or touching the database.
+ * <p>
+ * Rejections of the action (not found, insufficient funds, inactive card) are stored too, in a new transaction
+ * after the action's one is rolled back, and replayed as a {@link ReplayedFailureException} with the same status
+ * and message. Other failures, like a database outage or an exhausted optimistic lock retry, store nothing,
+ * so the same key may be retried.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final Cache<CacheKey, StoredOutcome> outcomes;
+    private final Duration ttl;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  OptimisticLockRetry optimisticLockRetry,
+                                  @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                                  @Value("${app.idempotency.cache-size:100000}") long cacheSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.ttl = ttl;
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public Outcome execute(Long ownerId, String key, IdempotentOperation operation, String request, Runnable action) {
+        CacheKey cacheKey = new CacheKey(ownerId, key);
+        String requestHash = hash(request);
+
+        StoredOutcome cached = outcomes.getIfPresent(cacheKey);
+        if (cached != null) {
+            logger.debug("Idempotency key {} of owner {} answered from cache.", key, ownerId);
+            return this.replay(cached, operation, requestHash);
+        }
+
+        try {
+            // The action joins this transaction, so a stale card version is retried here, key claim included.
+            Outcome outcome = optimisticLockRetry.execute("IdempotencyService." + operation, () -> transactionTemplate.execute(status -> {
+                StoredOutcome existing = idempotencyKeyRepository.findByOwnerIdAndKey(ownerId, key)
+                        .map(StoredOutcome::of)
+                        .orElse(null);
+                if (existing != null) {
+                    outcomes.put(cacheKey, existing);
+                    return this.replay(existing, operation, requestHash);
+                }
+
+                // The key is claimed before the action runs: a concurrent duplicate blocks on the
+                // unique constraint and fails without moving money.
+                int responseStatus = HttpStatus.NO_CONTENT.value();
+                idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(
+                        ownerId, key, operation, requestHash, responseStatus, null, LocalDateTime.now()
+                ));
+                try {
+                    action.run();
+                } catch (BusinessLogicException | CardNotFoundException | CardTransferException e) {
+                    throw new Rejection(e);
+                }
+                return new Outcome(responseStatus, false);
+            }));
+
+            outcomes.put(cacheKey, new StoredOutcome(operation, requestHash, outcome.responseStatus(), null));
+            return outcome;
+        } catch (Rejection rejection) {
+            // The claim was rolled back together with the action: store the rejection on its own.
+            RuntimeException cause = rejection.getCause();
+            this.storeRejection(cacheKey, operation, requestHash, cause);
+            throw cause;
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Concurrent request with idempotency key {} of owner {}.", key, ownerId);
+            StoredOutcome existing = idempotencyKeyRepository.findByOwnerIdAndKey(ownerId, key)
+                    .map(StoredOutcome::of)
+                    .orElseThrow(() -> e);
+            outcomes.put(cacheKey, existing);
+            return this.replay(existing, operation, requestHash);
+        }
+    }
+
+    private void storeRejection(CacheKey cacheKey, IdempotentOperation operation, String requestHash, RuntimeException cause) {
+        int responseStatus = cause instanceof CardNotFoundException
+                ? HttpStatus.NOT_FOUND.value()
+                : HttpStatus.UNPROCESSABLE_ENTITY.value();
+        String error = cause.getMessage() != null && cause.getMessage().length() > MAX_ERROR_LENGTH
+                ? cause.getMessage().substring(0, MAX_ERROR_LENGTH)
+                : cause.getMessage();
+
+        try {
+            newTransaction.executeWithoutResult(status -> idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(
+                    cacheKey.ownerId(), cacheKey.key(), operation, requestHash, responseStatus, error, LocalDateTime.now()
+            )));
+            outcomes.put(cacheKey, new StoredOutcome(operation, requestHash, responseStatus, error));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key got there first; its outcome is the one replayed.
+            logger.warn("Idempotency key {} of owner {} was stored concurrently.", cacheKey.key(), cacheKey.ownerId());
+        }
+    }
+
+    private Outcome replay(StoredOutcome stored, IdempotentOperation operation, String requestHash) {
+        if (stored.operation() != operation || !stored.requestHash().equals(requestHash)) {
+            logger.error("Idempotency key reused for a different request: operation={}", operation);
+            throw new BusinessLogicException("Idempotency key was already used for a different request");
+        }
+        if (stored.error() != null) {
+            throw new ReplayedFailureException(stored.responseStatus(), stored.error());
+        }
+        return new Outcome(stored.responseStatus(), true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyKeyRepository.deleteAllCreatedBefore(LocalDateTime.now().minus(ttl));
+        logger.debug("Purged {} expired idempotency keys.", deleted);
+    }
+
+    private static String hash(String request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CacheKey(Long ownerId, String key) {
+    }
+
+    private record StoredOutcome(IdempotentOperation operation, String requestHash, int responseStatus, String error) {
+        static StoredOutcome of(IdempotencyKey idempotencyKey) {
+            return new StoredOutcome(
+                    idempotencyKey.getOperation(),
+                    idempotencyKey.getRequestHash(),
+                    idempotencyKey.getResponseStatus(),
+                    idempotencyKey.getError()
+            );
+        }
+    }
+
+    /**
+     * Carries a rejection of the action out of the transaction, apart from the ones thrown by the key check itself.
+     */
+    private static final class Rejection extends RuntimeException {
+        Rejection(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package ru.noleg.bankcards.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.noleg.bankcards.entity.TransferRecord;
+import ru.noleg.bankcards.entity.TransferStatus;
+import ru.noleg.bankcards.repository.TransferRecordRepository;
+import ru.noleg.bankcards.service.TransferJournalService;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In {@link Mode#ASYNC} mode records go through a bounded queue to a writer thread that stores them with
+ * multi-row inserts, so journaling costs a transfer only a queue offer. In {@link Mode#SYNC} mode records
+ * are inserted by the calling thread: completed transfers in the transfer's own transaction, failed ones in
+ * a new transaction that survives the rollback.
+ * <p>
+ * When a multi-row insert fails, the writer retries the batch row by row, so one bad record doesn't take
+ * its neighbours with it. Records that still can't be written are logged and counted in
+ * {@code bankcards.transfer.journal.dropped}.
+ */
+@Service
+public class TransferJournalServiceImpl implements TransferJournalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferJournalServiceImpl.class);
+
+    private static final String INSERT_PREFIX = "INSERT INTO t_transfers " +
+            "(c_owner_id, c_from_card_id, c_to_card_id, c_amount_minor, c_status, c_error, c_created_at) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?)";
+    private static final int INSERT_COLUMNS = 7;
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    public enum Mode {
+        ASYNC,
+        SYNC
+    }
+
+    private final TransferRecordRepository transferRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Mode mode;
+    private final BlockingQueue<TransferRecord> queue;
+    private final int maxBatchSize;
+    private final long flushIntervalNanos;
+    private final Thread writer;
+    private final Counter dropped;
+
+    private volatile boolean running = true;
+
+    public TransferJournalServiceImpl(TransferRecordRepository transferRecordRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.transfer.journal.mode:ASYNC}") Mode mode,
+                                      @Value("${app.transfer.journal.queue-capacity:10000}") int queueCapacity,
+                                      @Value("${app.transfer.journal.max-batch-size:500}") int maxBatchSize,
+                                      @Value("${app.transfer.journal.flush-interval:20ms}") Duration flushInterval) {
+        this.transferRecordRepository = transferRecordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.mode = mode;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.writer = new Thread(this::writeLoop, "transfer-journal-writer");
+
+        Gauge.builder("bankcards.transfer.journal.queue.depth", queue, BlockingQueue::size)
+                .description("Journal records waiting for the writer")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("bankcards.transfer.journal.dropped")
+                .description("Journal records the writer failed to store")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (mode == Mode.ASYNC) {
+            writer.start();
+        }
+        logger.info("Transfer journal started in {} mode.", mode);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (mode == Mode.ASYNC) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    @Override
+    public void record(TransferRecord record) {
+        if (record.getError() != null && record.getError().length() > MAX_ERROR_LENGTH) {
+            record.setError(record.getError().substring(0, MAX_ERROR_LENGTH));
+        }
+
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        boolean completed = record.getStatus() == TransferStatus.COMPLETED;
+
+        if (mode == Mode.SYNC) {
+            if (completed || !inTransaction) {
+                this.insert(List.of(record));
+            } else {
+                newTransaction.executeWithoutResult(status -> this.insert(List.of(record)));
+            }
+            return;
+        }
+
+        if (completed && inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(record);
+                }
+            });
+        } else {
+            this.enqueue(record);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransferRecord> getHistory(Long ownerId, Long beforeId, int limit) {
+        if (beforeId == null) {
+            return transferRecordRepository.findAllByOwnerIdOrderByIdDesc(ownerId, Limit.of(limit));
+        }
+        return transferRecordRepository.findAllByOwnerIdAndIdLessThanOrderByIdDesc(ownerId, beforeId, Limit.of(limit));
+    }
+
+    private void enqueue(TransferRecord record) {
+        if (running && queue.offer(record)) {
+            return;
+        }
+
+        // The journal is an audit trail: when the writer can't keep up, records are written inline instead of dropped.
+        logger.warn("Transfer journal queue is full, writing record inline.");
+        this.insert(List.of(record));
+    }
+
+    private void writeLoop() {
+        List<TransferRecord> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TransferRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    TransferRecord next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                this.write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in transfer journal writer.", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<TransferRecord> batch) {
+        try {
+            this.insert(batch);
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write {} transfer journal records at once, retrying one by one.", batch.size(), e);
+        }
+
+        for (TransferRecord record : batch) {
+            try {
+                this.insert(List.of(record));
+            } catch (RuntimeException e) {
+                dropped.increment();
+                logger.error("Dropped transfer journal record: ownerId={}, fromCardId={}, toCardId={}, amountMinor={}, status={}, createdAt={}",
+                        record.getOwnerId(), record.getFromCardId(), record.getToCardId(), record.getAmountMinor(),
+                        record.getStatus(), record.getCreatedAt(), e
+                );
+            }
+        }
+    }
+
+    private void insert(List<TransferRecord> records) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + records.size() * (INSERT_ROW.length() + 2))
+                .append(INSERT_PREFIX);
+        Object[] args = new Object[records.size() * INSERT_COLUMNS];
+
+        int i = 0;
+        for (TransferRecord record : records) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(INSERT_ROW);
+            args[i++] = record.getOwnerId();
+            args[i++] = record.getFromCardId();
+            args[i++] = record.getToCardId();
+            args[i++] = record.getAmountMinor();
+            args[i++] = record.getStatus().name();
+            args[i++] = record.getError();
+            args[i++] = Timestamp.valueOf(record.getCreatedAt());
+        }
+
+        jdbcTemplate.update(sql.toString(), args);
+    }
+}
@@ -2,18 +2,27 @@ package ru.noleg.bankcards.service.impl;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.noleg.bankcards.dto.user.UserSort;
+import ru.noleg.bankcards.entity.RevokedUser;
 import ru.noleg.bankcards.entity.Role;
 import ru.noleg.bankcards.entity.User;
 import ru.noleg.bankcards.exception.error.BusinessLogicException;
 import ru.noleg.bankcards.exception.error.UserNotFoundException;
+import ru.noleg.bankcards.repository.RevokedUserRepository;
 import ru.noleg.bankcards.repository.UserRepository;
 import ru.noleg.bankcards.service.UserService;
+import ru.noleg.bankcards.service.event.UserDeletedEvent;
+import ru.noleg.bankcards.service.event.UserRoleChangedEvent;
+import ru.noleg.bankcards.util.CursorCodec;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 
@@ -24,9 +33,15 @@ public class UserServiceImpl implements UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
     private final UserRepository userRepository;
+    private final RevokedUserRepository revokedUserRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository,
+                           RevokedUserRepository revokedUserRepository,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.revokedUserRepository = revokedUserRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -39,6 +54,36 @@ public class UserServiceImpl implements UserService {
         return users;
     }
 
+    /**
+     * Returns up to {@code limit} users that follow {@code after} in the given order,
+     * or the first ones when {@code after} is {@code null}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> scrollAll(UserSort sort, CursorCodec.Keyset after, int limit) {
+        Limit pageLimit = Limit.of(limit);
+        List<User> users = switch (sort) {
+            case ID_ASC -> userRepository.findAllByIdGreaterThanOrderByIdAsc(
+                    after == null ? 0L : after.id(), pageLimit
+            );
+            case ID_DESC -> userRepository.findAllByIdLessThanOrderByIdDesc(
+                    after == null ? Long.MAX_VALUE : after.id(), pageLimit
+            );
+            case LAST_NAME_ASC -> {
+                if (after == null) {
+                    yield userRepository.findAllByOrderByLastNameAscIdAsc(pageLimit);
+                }
+                if (after.key() == null) {
+                    throw new BusinessLogicException("Invalid cursor");
+                }
+                yield userRepository.findAllAfterLastName(after.key(), after.id(), pageLimit);
+            }
+        };
+
+        logger.debug("Scrolled {} users", users.size());
+        return users;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public User get(Long id) {
@@ -61,6 +106,9 @@ public class UserServiceImpl implements UserService {
         }
 
         this.userRepository.delete(user);
+        // Stored with the deletion, so every instance rejects the user's tokens, also after a restart.
+        this.revokedUserRepository.save(new RevokedUser(userId, LocalDateTime.now()));
+        this.eventPublisher.publishEvent(new UserDeletedEvent(userId, user.getEmail()));
         logger.debug("Deleted user with ID: {}", userId);
     }
 
@@ -72,8 +120,11 @@ public class UserServiceImpl implements UserService {
         });
         Role oldRole = user.getRole();
 
+        int securityVersion = user.getSecurityVersion() + 1;
         user.setRole(newRole);
+        user.setSecurityVersion(securityVersion);
         userRepository.save(user);
+        this.eventPublisher.publishEvent(new UserRoleChangedEvent(userId, user.getEmail(), newRole, securityVersion));
 
         logger.info("Updated role for user ID {}: {} -> {}", userId, oldRole, newRole);
     }
@@ -1,45 +1,162 @@
 package ru.noleg.bankcards.util;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Encrypts with the active key and decrypts with whichever key a value was encrypted with, so keys can be
+ * rotated while the application is running. Values encrypted with a versioned key look like
+ * {@code <keyId>:<base64>}; values without a key id were encrypted with the original {@code app.aes.secret}.
+ */
 @Component
 public class AesEncryptionUtil {
 
     private static final String ALGORITHM = "AES";
-    private final SecretKeySpec secretKey;
+    private static final String LEGACY_KEY_ID = "";
+    private static final char KEY_ID_SEPARATOR = ':';
 
-    public AesEncryptionUtil(@Value("${app.aes.secret}") String secret) {
-        if (secret == null || secret.length() != 16) {
-            throw new IllegalArgumentException("Secret must be exactly 16 characters long");
+    private final Map<String, SecretKeySpec> keys;
+    private final String activeKeyId;
+
+    // Cipher isn't thread safe, but once initialized it can be reused: doFinal resets it to the initialized state.
+    private final ThreadLocal<Map<String, Cipher>> encryptCiphers = ThreadLocal.withInitial(HashMap::new);
+    private final ThreadLocal<Map<String, Cipher>> decryptCiphers = ThreadLocal.withInitial(HashMap::new);
+
+    public AesEncryptionUtil(String secret) {
+        this(secret, "", LEGACY_KEY_ID);
+    }
+
+    /**
+     * @param versionedKeys comma separated {@code <keyId>:<secret>} pairs, key ids are up to 16 letters or digits
+     * @param activeKeyId   key used for encryption, empty for the original secret
+     */
+    @Autowired
+    public AesEncryptionUtil(@Value("${app.aes.secret}") String secret,
+                             @Value("${app.aes.keys:}") String versionedKeys,
+                             @Value("${app.aes.active-key-id:}") String activeKeyId) {
+        Map<String, SecretKeySpec> parsedKeys = new HashMap<>();
+        parsedKeys.put(LEGACY_KEY_ID, toKey(secret));
+
+        for (String entry : versionedKeys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(KEY_ID_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Versioned key must look like <keyId>:<secret>");
+            }
+            String keyId = entry.substring(0, separator).trim();
+            if (!keyId.matches("[A-Za-z0-9]{1,16}")) {
+                throw new IllegalArgumentException("Key id must consist of 1 to 16 letters or digits");
+            }
+            if (parsedKeys.put(keyId, toKey(entry.substring(separator + 1).trim())) != null) {
+                throw new IllegalArgumentException("Duplicate key id " + keyId);
+            }
         }
-        this.secretKey = new SecretKeySpec(secret.getBytes(), ALGORITHM);
+
+        if (!parsedKeys.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("Active key id " + activeKeyId + " is not configured");
+        }
+        this.keys = Map.copyOf(parsedKeys);
+        this.activeKeyId = activeKeyId;
     }
 
     public String encrypt(String data) {
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            byte[] encrypted = cipher.doFinal(data.getBytes());
-            return Base64.getEncoder().encodeToString(encrypted);
+            byte[] encrypted = this.cipher(encryptCiphers, activeKeyId, Cipher.ENCRYPT_MODE).doFinal(data.getBytes());
+            String encoded = Base64.getEncoder().encodeToString(encrypted);
+            return activeKeyId.isEmpty() ? encoded : activeKeyId + KEY_ID_SEPARATOR + encoded;
         } catch (Exception e) {
+            encryptCiphers.get().remove(activeKeyId);
             throw new RuntimeException("Error encrypting", e);
         }
     }
 
     public String decrypt(String encryptedData) {
+        String keyId = keyIdOf(encryptedData);
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
-            byte[] decrypted = cipher.doFinal(decodedBytes);
+            byte[] decodedBytes = Base64.getDecoder().decode(payloadOf(encryptedData, keyId));
+            byte[] decrypted = this.cipher(decryptCiphers, keyId, Cipher.DECRYPT_MODE).doFinal(decodedBytes);
             return new String(decrypted);
         } catch (Exception e) {
+            decryptCiphers.get().remove(keyId);
+            throw new RuntimeException("Error decrypting", e);
+        }
+    }
+
+    /**
+     * Decrypts a whole page with one decoder and the thread's ciphers, keeping the order of the input.
+     */
+    public List<String> decryptAll(List<String> encryptedData) {
+        Base64.Decoder decoder = Base64.getDecoder();
+
+        List<String> decrypted = new ArrayList<>(encryptedData.size());
+        String keyId = LEGACY_KEY_ID;
+        try {
+            for (String data : encryptedData) {
+                keyId = keyIdOf(data);
+                Cipher cipher = this.cipher(decryptCiphers, keyId, Cipher.DECRYPT_MODE);
+                decrypted.add(new String(cipher.doFinal(decoder.decode(payloadOf(data, keyId)))));
+            }
+        } catch (Exception e) {
+            decryptCiphers.get().remove(keyId);
             throw new RuntimeException("Error decrypting", e);
         }
+        return decrypted;
+    }
+
+    public boolean isEncryptedWithActiveKey(String encryptedData) {
+        return keyIdOf(encryptedData).equals(activeKeyId);
+    }
+
+    /**
+     * Id of the key new values are encrypted with, empty for the original secret.
+     */
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    private Cipher cipher(ThreadLocal<Map<String, Cipher>> ciphers, String keyId, int mode) {
+        return ciphers.get().computeIfAbsent(keyId, id -> this.initCipher(id, mode));
+    }
+
+    private Cipher initCipher(String keyId, int mode) {
+        SecretKeySpec key = keys.get(keyId);
+        if (key == null) {
+            throw new IllegalStateException("Unknown encryption key id " + keyId);
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(mode, key);
+            return cipher;
+        } catch (Exception e) {
+            throw new IllegalStateException("Error initializing cipher", e);
+        }
+    }
+
+    private static String keyIdOf(String encryptedData) {
+        // Base64 never contains the separator, so a value without it was encrypted with the original secret.
+        int separator = encryptedData.indexOf(KEY_ID_SEPARATOR);
+        return separator < 0 ? LEGACY_KEY_ID : encryptedData.substring(0, separator);
+    }
+
+    private static String payloadOf(String encryptedData, String keyId) {
+        return keyId.isEmpty() ? encryptedData : encryptedData.substring(keyId.length() + 1);
+    }
+
+    private static SecretKeySpec toKey(String secret) {
+        if (secret == null || secret.length() != 16) {
+            throw new IllegalArgumentException("Secret must be exactly 16 characters long");
+        }
+        return new SecretKeySpec(secret.getBytes(), ALGORITHM);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package ru.noleg.bankcards.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+/**
+ * Keyed blind index of card numbers: the same number always gives the same hash, so a card can be found
+ * with one indexed lookup, while the hash can't be reversed or recomputed without the key.
+ */
+@Component
+public class CardNumberHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private final SecretKeySpec secretKey;
+
+    // Mac isn't thread safe; doFinal resets it, so one instance per thread can be reused.
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::initMac);
+
+    public CardNumberHasher(@Value("${app.card-number.hmac-key}") String key) {
+        if (key == null || key.length() < MIN_KEY_LENGTH) {
+            throw new IllegalArgumentException("HMAC key must be at least " + MIN_KEY_LENGTH + " characters long");
+        }
+        this.secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String hash(String cardNumber) {
+        byte[] digest = mac.get().doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private Mac initMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(secretKey);
+            return instance;
+        } catch (Exception e) {
+            throw new IllegalStateException("Error initializing HMAC", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.noleg.bankcards.util;
+
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset positions as opaque URL-safe cursors, so clients don't build or depend on them.
+ * A position is the id of the last returned row, optionally preceded by the value of the sort key
+ * for listings that aren't ordered by id alone.
+ */
+public final class CursorCodec {
+
+    private static final char KEY_SEPARATOR = ':';
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Position after the row with {@code id}; {@code key} is the row's sort key value, or {@code null}
+     * when the listing is ordered by id only.
+     */
+    public record Keyset(long id, String key) {
+    }
+
+    public static String encode(long id) {
+        return encodeRaw(Long.toString(id));
+    }
+
+    public static String encode(long id, String key) {
+        return key == null ? encode(id) : encodeRaw(Long.toString(id) + KEY_SEPARATOR + key);
+    }
+
+    public static long decode(String cursor) {
+        try {
+            return Long.parseLong(decodeRaw(cursor));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessLogicException("Invalid cursor");
+        }
+    }
+
+    public static Keyset decodeKeyset(String cursor) {
+        try {
+            String value = decodeRaw(cursor);
+            int separator = value.indexOf(KEY_SEPARATOR);
+            if (separator < 0) {
+                return new Keyset(Long.parseLong(value), null);
+            }
+            return new Keyset(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessLogicException("Invalid cursor");
+        }
+    }
+
+    private static String encodeRaw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeRaw(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.noleg.bankcards.util;
+
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts are kept as {@code long} minor units (kopecks) everywhere below the REST layer.
+ * Decimal amounts are converted once on the way in and once on the way out; the arithmetic in
+ * between works on primitives and never allocates.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new BusinessLogicException("Amount must fit in " + SCALE + " decimal places and the supported range");
+        }
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long add(long minor, long amountMinor) {
+        try {
+            return Math.addExact(minor, amountMinor);
+        } catch (ArithmeticException e) {
+            throw new BusinessLogicException("Resulting amount is out of the supported range");
+        }
+    }
+
+    public static long subtract(long minor, long amountMinor) {
+        try {
+            return Math.subtractExact(minor, amountMinor);
+        } catch (ArithmeticException e) {
+            throw new BusinessLogicException("Resulting amount is out of the supported range");
+        }
+    }
+
+    public static boolean covers(long balanceMinor, long amountMinor) {
+        return balanceMinor >= amountMinor;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.noleg.bankcards.controller;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
@@ -10,7 +11,9 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import ru.noleg.bankcards.security.jwt.JwtRequestFilter;
+import ru.noleg.bankcards.security.jwt.SecurityVersionRegistry;
 import ru.noleg.bankcards.security.jwt.TokenProvider;
+import ru.noleg.bankcards.security.jwt.VerifiedTokenCache;
 
 @TestConfiguration
 @EnableWebSecurity
@@ -28,8 +31,16 @@ public class JwtTestSecurityConfig {
     }
 
     @Bean
-    public JwtRequestFilter jwtRequestFilter(TokenProvider tokenProvider, UserDetailsService userDetailsService) {
-        return new JwtRequestFilter(tokenProvider, userDetailsService);
+    public SecurityVersionRegistry securityVersionRegistry() {
+        return Mockito.mock(SecurityVersionRegistry.class);
+    }
+
+    @Bean
+    public JwtRequestFilter jwtRequestFilter(TokenProvider tokenProvider,
+                                             UserDetailsService userDetailsService,
+                                             SecurityVersionRegistry securityVersionRegistry) {
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), false, 0);
+        return new JwtRequestFilter(tokenProvider, userDetailsService, securityVersionRegistry, verifiedTokenCache, true);
     }
 
     @Bean
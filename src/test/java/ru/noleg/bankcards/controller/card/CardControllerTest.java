@@ -12,23 +12,34 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.noleg.bankcards.controller.CardController;
 import ru.noleg.bankcards.controller.JwtTestSecurityConfig;
 import ru.noleg.bankcards.dto.card.CardDto;
+import ru.noleg.bankcards.dto.card.CardSearchFilter;
 import ru.noleg.bankcards.dto.card.CardSort;
 import ru.noleg.bankcards.dto.card.CreateCardDto;
 import ru.noleg.bankcards.entity.Card;
 import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.IdempotentOperation;
 import ru.noleg.bankcards.entity.Role;
 import ru.noleg.bankcards.entity.User;
 import ru.noleg.bankcards.mapper.CardMapper;
+import ru.noleg.bankcards.repository.CardSummary;
 import ru.noleg.bankcards.security.user.UserDetailsImpl;
 import ru.noleg.bankcards.service.CardService;
+import ru.noleg.bankcards.service.IdempotencyService;
+import ru.noleg.bankcards.util.CursorCodec;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.YearMonth;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -48,6 +59,9 @@ class CardControllerTest {
     @Autowired
     private CardMapper cardMapper;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -55,6 +69,7 @@ class CardControllerTest {
     void resetMocks() {
         Mockito.reset(cardService);
         Mockito.reset(cardMapper);
+        Mockito.reset(idempotencyService);
     }
 
     @Test
@@ -80,6 +95,43 @@ class CardControllerTest {
         verify(cardMapper, times(1)).mapToCardEntity(dto);
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void createCards_shouldReturn201WithIds_forAdmin() throws Exception {
+        // Arrange
+        List<CreateCardDto> dtos = List.of(
+                new CreateCardDto(1L, YearMonth.now().plusMonths(1)),
+                new CreateCardDto(2L, YearMonth.now().plusMonths(2))
+        );
+        List<Card> cards = List.of(new Card(), new Card());
+        when(cardMapper.mapToCardEntities(dtos)).thenReturn(cards);
+        when(cardService.createAll(cards)).thenReturn(List.of(100L, 101L));
+
+        // Act | Assert
+        mockMvc.perform(post("/api/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dtos))
+                        .with(csrf()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0]").value(100L))
+                .andExpect(jsonPath("$[1]").value(101L));
+
+        verify(cardService, times(1)).createAll(cards);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void createCards_shouldReturn400_whenListIsEmpty() throws Exception {
+        // Act | Assert
+        mockMvc.perform(post("/api/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verify(cardService, never()).createAll(any());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void createCard_shouldReturn400_forInvalidRequest() throws Exception {
@@ -291,6 +343,35 @@ class CardControllerTest {
         verify(cardService).deposit(cardId, new BigDecimal(amount), ownerId);
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void deposit_shouldReplayOutcome_whenIdempotencyKeyIsRepeated() throws Exception {
+        // Arrange
+        Long cardId = 1L;
+        Long ownerId = 100L;
+
+        User user = new User();
+        user.setId(ownerId);
+
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
+        );
+
+        when(idempotencyService.execute(eq(ownerId), eq("key-1"), eq(IdempotentOperation.DEPOSIT), eq("1:100.5"), any()))
+                .thenReturn(new IdempotencyService.Outcome(204, true));
+
+        // Act | Assert
+        mockMvc.perform(post("/api/cards/deposit/{cardId}", cardId)
+                        .param("amount", "100.50")
+                        .header("Idempotency-Key", "key-1")
+                        .with(csrf()))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        verify(cardService, never()).deposit(anyLong(), any(), anyLong());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void deposit_shouldReturn403_whenNotUser() throws Exception {
@@ -452,6 +533,69 @@ class CardControllerTest {
         verify(cardService, never()).get(anyLong());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getCardByNumber_shouldReturn200WithCardDto_whenCardExists() throws Exception {
+        // Arrange
+        String number = "1234567812345678";
+        Card card = new Card();
+        card.setId(1L);
+
+        CardDto dto = new CardDto(
+                "**** **** **** 5678",
+                42L,
+                YearMonth.of(2030, 1),
+                CardStatus.ACTIVE,
+                new BigDecimal("1000.00")
+        );
+
+        when(cardService.getByNumber(number)).thenReturn(card);
+        when(cardMapper.mapToCardDto(card)).thenReturn(dto);
+
+        // Act | Assert
+        mockMvc.perform(get("/api/cards/by-number").param("number", number))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maskedNumber").value("**** **** **** 5678"));
+
+        verify(cardService, times(1)).getByNumber(number);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getCardByNumber_shouldReturn400_whenNumberIsInvalid() throws Exception {
+        // Act | Assert
+        mockMvc.perform(get("/api/cards/by-number").param("number", "1234"))
+                .andExpect(status().isBadRequest());
+
+        verify(cardService, never()).getByNumber(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void revealCardNumber_shouldReturn200WithNumber_whenCardExists() throws Exception {
+        // Arrange
+        Long cardId = 1L;
+        when(cardService.revealNumber(cardId)).thenReturn("1234567812345678");
+
+        // Act | Assert
+        mockMvc.perform(get("/api/cards/{id}/number", cardId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(cardId))
+                .andExpect(jsonPath("$.number").value("1234567812345678"));
+
+        verify(cardService, times(1)).revealNumber(cardId);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void revealCardNumber_shouldReturn403_whenNotAdmin() throws Exception {
+        // Act | Assert
+        mockMvc.perform(get("/api/cards/{id}/number", 1L))
+                .andExpect(status().isForbidden());
+
+        verify(cardService, never()).revealNumber(anyLong());
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void getAllCardsByOwner_shouldReturn200WithList_whenValidRequest() throws Exception {
@@ -464,17 +608,13 @@ class CardControllerTest {
         User user = new User();
         user.setId(userId);
 
-        Long card1Id = 1L;
-        Card card1 = new Card();
-        card1.setId(card1Id);
-        card1.setOwner(user);
-
-        Long card2Id = 2L;
-        Card card2 = new Card();
-        card2.setId(card2Id);
-        card2.setOwner(user);
-
-        List<Card> cards = List.of(card1, card2);
+        CardSummary card1 = new CardSummary(
+                1L, "1234", null, userId, YearMonth.of(2023, 1), CardStatus.ACTIVE, 100_000L, 0
+        );
+        CardSummary card2 = new CardSummary(
+                2L, "3456", null, userId, YearMonth.of(2023, 2), CardStatus.ACTIVE, 150_000L, 0
+        );
+        List<CardSummary> cards = List.of(card1, card2);
 
         CardDto cardDto1 = new CardDto(
                 "**** **** **** 1234",
@@ -495,7 +635,7 @@ class CardControllerTest {
 
         when(cardService.getAllByOwner(userId, pageNumber, pageSize, sort.getSortValue()))
                 .thenReturn(cards);
-        when(cardMapper.mapToCardDtos(cards)).thenReturn(dtos);
+        when(cardMapper.mapSummariesToCardDtos(cards)).thenReturn(dtos);
 
         UserDetailsImpl principal = new UserDetailsImpl(user);
         SecurityContextHolder.getContext().setAuthentication(
@@ -514,7 +654,7 @@ class CardControllerTest {
 
         verify(cardService, times(1))
                 .getAllByOwner(userId, pageNumber, pageSize, sort.getSortValue());
-        verify(cardMapper, times(1)).mapToCardDtos(cards);
+        verify(cardMapper, times(1)).mapSummariesToCardDtos(cards);
     }
 
     @Test
@@ -541,17 +681,13 @@ class CardControllerTest {
         User user = new User();
         user.setId(userId);
 
-        Long card1Id = 1L;
-        Card card1 = new Card();
-        card1.setId(card1Id);
-        card1.setOwner(user);
-
-        Long card2Id = 2L;
-        Card card2 = new Card();
-        card2.setId(card2Id);
-        card2.setOwner(user);
-
-        List<Card> cards = List.of(card1, card2);
+        CardSummary card1 = new CardSummary(
+                1L, "1234", null, userId, YearMonth.of(2023, 1), CardStatus.ACTIVE, 100_000L, 0
+        );
+        CardSummary card2 = new CardSummary(
+                2L, "3456", null, userId, YearMonth.of(2023, 2), CardStatus.ACTIVE, 150_000L, 0
+        );
+        List<CardSummary> cards = List.of(card1, card2);
 
         CardDto cardDto1 = new CardDto(
                 "**** **** **** 1234",
@@ -572,7 +708,7 @@ class CardControllerTest {
 
         when(cardService.getAll(pageNumber, pageSize, sort.getSortValue()))
                 .thenReturn(cards);
-        when(cardMapper.mapToCardDtos(cards)).thenReturn(dtos);
+        when(cardMapper.mapSummariesToCardDtos(cards)).thenReturn(dtos);
 
         mockMvc.perform(get("/api/cards")
                         .param("pageNumber", "0")
@@ -586,7 +722,7 @@ class CardControllerTest {
 
         verify(cardService, times(1))
                 .getAll(pageNumber, pageSize, sort.getSortValue());
-        verify(cardMapper, times(1)).mapToCardDtos(cards);
+        verify(cardMapper, times(1)).mapSummariesToCardDtos(cards);
     }
 
     @Test
@@ -610,4 +746,216 @@ class CardControllerTest {
                         .param("sort", "DATE_ASC"))
                 .andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @SuppressWarnings("unchecked")
+    void exportCards_shouldStreamNdjson_forAdmin() throws Exception {
+        // Arrange
+        Card card1 = new Card();
+        card1.setId(1L);
+        Card card2 = new Card();
+        card2.setId(2L);
+        CardDto cardDto1 = new CardDto(
+                "**** **** **** 1234", 1L, YearMonth.of(2030, 1), CardStatus.ACTIVE, new BigDecimal("1000.00")
+        );
+        CardDto cardDto2 = new CardDto(
+                "**** **** **** 3456", 2L, YearMonth.of(2030, 2), CardStatus.BLOCKED, new BigDecimal("15.50")
+        );
+        when(cardMapper.mapToCardDto(card1)).thenReturn(cardDto1);
+        when(cardMapper.mapToCardDto(card2)).thenReturn(cardDto2);
+        // The body is held back until the request thread is done, so both don't write response headers at once.
+        CountDownLatch requestHandled = new CountDownLatch(1);
+        when(cardService.exportAll(any())).thenAnswer(invocation -> {
+            requestHandled.await();
+            Consumer<Card> consumer = invocation.getArgument(0);
+            consumer.accept(card1);
+            consumer.accept(card2);
+            return 2L;
+        });
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/cards/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String expected = objectMapper.writeValueAsString(cardDto1) + "\n"
+                + objectMapper.writeValueAsString(cardDto2) + "\n";
+        requestHandled.countDown();
+        result.getAsyncResult();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(expected));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @SuppressWarnings("unchecked")
+    void exportCards_shouldStreamCsv_whenFormatIsCsv() throws Exception {
+        // Arrange
+        Card card = new Card();
+        CardDto cardDto = new CardDto(
+                "**** **** **** 1234", 1L, YearMonth.of(2030, 1), CardStatus.ACTIVE, new BigDecimal("1000.00")
+        );
+        when(cardMapper.mapToCardDto(card)).thenReturn(cardDto);
+        CountDownLatch requestHandled = new CountDownLatch(1);
+        when(cardService.exportAll(any())).thenAnswer(invocation -> {
+            requestHandled.await();
+            ((Consumer<Card>) invocation.getArgument(0)).accept(card);
+            return 1L;
+        });
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/cards/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        requestHandled.countDown();
+        result.getAsyncResult();
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string(
+                        "maskedNumber,ownerId,expirationDate,status,balance\n"
+                                + "**** **** **** 1234,1,2030-01,ACTIVE,1000.00\n"
+                ));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void exportCards_shouldReturn403_whenNotAdmin() throws Exception {
+        mockMvc.perform(get("/api/cards/export"))
+                .andExpect(status().isForbidden());
+
+        verify(cardService, never()).exportAll(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void scrollAllCards_shouldReturnPageWithNextCursor_whenMoreCardsExist() throws Exception {
+        // Arrange
+        CardSummary card1 = new CardSummary(
+                5L, "1234", null, 1L, YearMonth.of(2030, 1), CardStatus.ACTIVE, 1_000L, 0
+        );
+        CardSummary card2 = new CardSummary(
+                9L, "5678", null, 1L, YearMonth.of(2030, 2), CardStatus.ACTIVE, 2_000L, 0
+        );
+        CardSummary extra = new CardSummary(
+                3L, "9012", null, 1L, YearMonth.of(2030, 3), CardStatus.ACTIVE, 0L, 0
+        );
+        CardDto cardDto1 = new CardDto(
+                "**** **** **** 1234", 1L, YearMonth.of(2030, 1), CardStatus.ACTIVE, new BigDecimal("10.00")
+        );
+        CardDto cardDto2 = new CardDto(
+                "**** **** **** 5678", 1L, YearMonth.of(2030, 2), CardStatus.ACTIVE, new BigDecimal("20.00")
+        );
+        CursorCodec.Keyset after = new CursorCodec.Keyset(4L, "2029-12");
+
+        when(cardService.scrollAll(CardSort.DATE_ASC, after, 3)).thenReturn(List.of(card1, card2, extra));
+        when(cardMapper.mapSummariesToCardDtos(List.of(card1, card2))).thenReturn(List.of(cardDto1, cardDto2));
+
+        // Act | Assert
+        mockMvc.perform(get("/api/cards/scroll")
+                        .param("cursor", CursorCodec.encode(4L, "2029-12"))
+                        .param("limit", "2")
+                        .param("sort", "DATE_ASC"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[1].maskedNumber").value("**** **** **** 5678"))
+                .andExpect(jsonPath("$.nextCursor").value(CursorCodec.encode(9L, "2030-02")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void scrollCardsByOwner_shouldReturnLastPageWithoutCursor_forAdmin() throws Exception {
+        // Arrange
+        CardSummary card = new CardSummary(
+                5L, "1234", null, 7L, YearMonth.of(2030, 1), CardStatus.ACTIVE, 1_000L, 0
+        );
+        CardDto cardDto = new CardDto(
+                "**** **** **** 1234", 7L, YearMonth.of(2030, 1), CardStatus.ACTIVE, new BigDecimal("10.00")
+        );
+        when(cardService.scrollAllByOwner(7L, CardSort.ID_ASC, null, 21)).thenReturn(List.of(card));
+        when(cardMapper.mapSummariesToCardDtos(List.of(card))).thenReturn(List.of(cardDto));
+
+        // Act | Assert
+        mockMvc.perform(get("/api/cards/owner/7/scroll"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void scrollAllCards_shouldReturn422_whenCursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/cards/scroll")
+                        .param("cursor", "%%%"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(cardService, never()).scrollAll(any(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchCards_shouldPassFilterAndReturnPageWithNextCursor() throws Exception {
+        // Arrange
+        CardSummary card1 = new CardSummary(
+                5L, "1234", null, 7L, YearMonth.of(2030, 1), CardStatus.BLOCKED, 1_000L, 0
+        );
+        CardSummary extra = new CardSummary(
+                9L, "5678", null, 7L, YearMonth.of(2030, 2), CardStatus.BLOCKED, 2_000L, 0
+        );
+        CardDto cardDto1 = new CardDto(
+                "**** **** **** 1234", 7L, YearMonth.of(2030, 1), CardStatus.BLOCKED, new BigDecimal("10.00")
+        );
+        CardSearchFilter filter = new CardSearchFilter(
+                7L, CardStatus.BLOCKED, YearMonth.of(2030, 1), YearMonth.of(2030, 6), null, new BigDecimal("50.00")
+        );
+
+        when(cardService.search(filter, 4L, 2)).thenReturn(List.of(card1, extra));
+        when(cardMapper.mapSummariesToCardDtos(List.of(card1))).thenReturn(List.of(cardDto1));
+
+        // Act | Assert
+        mockMvc.perform(get("/api/cards/search")
+                        .param("ownerId", "7")
+                        .param("status", "BLOCKED")
+                        .param("expiresFrom", "2030-01")
+                        .param("expiresTo", "2030-06")
+                        .param("balanceTo", "50.00")
+                        .param("cursor", CursorCodec.encode(4L))
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("BLOCKED"))
+                .andExpect(jsonPath("$.nextCursor").value(CursorCodec.encode(5L)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchCards_shouldSearchWithoutConditions_whenNoFilterGiven() throws Exception {
+        // Arrange
+        CardSearchFilter filter = new CardSearchFilter(null, null, null, null, null, null);
+        when(cardService.search(filter, null, 21)).thenReturn(List.of());
+        when(cardMapper.mapSummariesToCardDtos(List.of())).thenReturn(List.of());
+
+        // Act | Assert
+        mockMvc.perform(get("/api/cards/search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void searchCards_shouldReturn403_whenNotAdmin() throws Exception {
+        mockMvc.perform(get("/api/cards/search")
+                        .param("status", "BLOCKED"))
+                .andExpect(status().isForbidden());
+
+        verify(cardService, never()).search(any(), any(), anyInt());
+    }
+}
@@ -14,16 +14,33 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.noleg.bankcards.controller.CardTransferController;
 import ru.noleg.bankcards.controller.JwtTestSecurityConfig;
+import ru.noleg.bankcards.dto.transfer.AsyncTransferDto;
+import ru.noleg.bankcards.dto.transfer.BatchTransferMode;
 import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferResultDto;
+import ru.noleg.bankcards.entity.IdempotentOperation;
+import ru.noleg.bankcards.entity.TransferRecord;
+import ru.noleg.bankcards.entity.TransferStatus;
 import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.exception.error.TransferNotFoundException;
 import ru.noleg.bankcards.security.user.UserDetailsImpl;
+import ru.noleg.bankcards.service.AsyncTransferService;
 import ru.noleg.bankcards.service.CardTransferService;
+import ru.noleg.bankcards.service.IdempotencyService;
+import ru.noleg.bankcards.service.TransferJournalService;
+import ru.noleg.bankcards.util.CursorCodec;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(CardTransferController.class)
@@ -36,12 +53,24 @@ class CardTransferControllerTest {
     @Autowired
     private CardTransferService cardTransferService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private AsyncTransferService asyncTransferService;
+
+    @Autowired
+    private TransferJournalService transferJournalService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @AfterEach
     void resetMocks() {
         Mockito.reset(cardTransferService);
+        Mockito.reset(idempotencyService);
+        Mockito.reset(asyncTransferService);
+        Mockito.reset(transferJournalService);
     }
 
     @Test
@@ -74,6 +103,40 @@ class CardTransferControllerTest {
                 .transfer(userId, fromCardId, toCardId, amount);
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void transfer_shouldRunThroughIdempotencyService_whenKeyIsPresent() throws Exception {
+        // Arrange
+        TransferDto transferDto = new TransferDto(1L, 2L, new BigDecimal("100.00"));
+
+        User user = new User();
+        Long userId = 10L;
+        user.setId(userId);
+
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
+        );
+
+        when(idempotencyService.execute(eq(userId), eq("key-1"), eq(IdempotentOperation.TRANSFER), eq("1:2:100"), any()))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(4, Runnable.class).run();
+                    return new IdempotencyService.Outcome(204, false);
+                });
+
+        // Act | Assert
+        mockMvc.perform(post("/api/transfer")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto))
+                        .with(csrf()))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+
+        verify(cardTransferService, times(1))
+                .transfer(userId, 1L, 2L, new BigDecimal("100.00"));
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void transfer_shouldReturn400_whenInputIsInvalid() throws Exception {
@@ -112,4 +175,211 @@ class CardTransferControllerTest {
 
         verify(cardTransferService, never()).transfer(anyLong(), anyLong(), anyLong(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void transferBatch_shouldReturn200_withPerItemResults() throws Exception {
+        // Arrange
+        List<TransferDto> transfers = List.of(
+                new TransferDto(1L, 2L, BigDecimal.valueOf(100)),
+                new TransferDto(1L, 3L, BigDecimal.valueOf(5000))
+        );
+
+        User user = new User();
+        Long userId = 10L;
+        user.setId(userId);
+
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
+        );
+
+        when(cardTransferService.transferBatch(userId, transfers, BatchTransferMode.PER_ITEM)).thenReturn(List.of(
+                TransferResultDto.completed(transfers.get(0)),
+                TransferResultDto.failed(transfers.get(1), "Insufficient funds on the sender card.")
+        ));
+
+        // Act | Assert
+        mockMvc.perform(post("/api/transfer/batch")
+                        .param("mode", "PER_ITEM")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfers))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[1].error").value("Insufficient funds on the sender card."));
+
+        verify(cardTransferService, times(1)).transferBatch(userId, transfers, BatchTransferMode.PER_ITEM);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void transferBatch_shouldReturn400_whenItemIsInvalid() throws Exception {
+        // Arrange
+        List<TransferDto> transfers = List.of(
+                new TransferDto(1L, 2L, BigDecimal.valueOf(100)),
+                new TransferDto(1L, null, BigDecimal.valueOf(-1))
+        );
+
+        // Act | Assert
+        mockMvc.perform(post("/api/transfer/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfers))
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verify(cardTransferService, never()).transferBatch(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void transferBatch_shouldReturn400_whenBatchIsEmpty() throws Exception {
+        // Act | Assert
+        mockMvc.perform(post("/api/transfer/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verify(cardTransferService, never()).transferBatch(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void transferAsync_shouldReturn202WithTransferId() throws Exception {
+        // Arrange
+        TransferDto transferDto = new TransferDto(1L, 2L, BigDecimal.valueOf(100));
+        UUID transferId = UUID.randomUUID();
+
+        User user = new User();
+        Long userId = 10L;
+        user.setId(userId);
+
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
+        );
+
+        when(asyncTransferService.submit(userId, transferDto)).thenReturn(AsyncTransferDto.pending(transferId, transferDto));
+
+        // Act | Assert
+        mockMvc.perform(post("/api/transfer/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto))
+                        .with(csrf()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/transfer/" + transferId))
+                .andExpect(jsonPath("$.id").value(transferId.toString()))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(asyncTransferService, times(1)).submit(userId, transferDto);
+        verify(cardTransferService, never()).transfer(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getTransferStatus_shouldReturnStatus() throws Exception {
+        // Arrange
+        TransferDto transferDto = new TransferDto(1L, 2L, BigDecimal.valueOf(100));
+        UUID transferId = UUID.randomUUID();
+
+        User user = new User();
+        Long userId = 10L;
+        user.setId(userId);
+
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
+        );
+
+        when(asyncTransferService.getStatus(userId, transferId))
+                .thenReturn(AsyncTransferDto.pending(transferId, transferDto).completed());
+
+        // Act | Assert
+        mockMvc.perform(get("/api/transfer/{transferId}", transferId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getTransferStatus_shouldReturn404_whenTransferUnknown() throws Exception {
+        // Arrange
+        UUID transferId = UUID.randomUUID();
+
+        User user = new User();
+        Long userId = 10L;
+        user.setId(userId);
+
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
+        );
+
+        when(asyncTransferService.getStatus(userId, transferId))
+                .thenThrow(new TransferNotFoundException("Transfer not found with ID " + transferId));
+
+        // Act | Assert
+        mockMvc.perform(get("/api/transfer/{transferId}", transferId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getHistory_shouldReturnPageWithNextCursor_whenMoreRecordsExist() throws Exception {
+        // Arrange
+        User user = new User();
+        Long userId = 10L;
+        user.setId(userId);
+
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
+        );
+
+        when(transferJournalService.getHistory(userId, null, 3)).thenReturn(List.of(
+                transferRecord(30L), transferRecord(20L), transferRecord(10L)
+        ));
+
+        // Act | Assert
+        mockMvc.perform(get("/api/transfer/history").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(30))
+                .andExpect(jsonPath("$.items[0].amount").value(150.75))
+                .andExpect(jsonPath("$.nextCursor").value(CursorCodec.encode(20L)));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getHistory_shouldContinueFromCursor_andOmitCursorOnLastPage() throws Exception {
+        // Arrange
+        User user = new User();
+        Long userId = 10L;
+        user.setId(userId);
+
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())
+        );
+
+        when(transferJournalService.getHistory(userId, 20L, 3)).thenReturn(List.of(transferRecord(10L)));
+
+        // Act | Assert
+        mockMvc.perform(get("/api/transfer/history")
+                        .param("cursor", CursorCodec.encode(20L))
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    private TransferRecord transferRecord(Long id) {
+        TransferRecord record = new TransferRecord(
+                10L, 1L, 2L, 15_075L, TransferStatus.COMPLETED, null, LocalDateTime.now()
+        );
+        record.setId(id);
+        return record;
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import ru.noleg.bankcards.mapper.CardMapper;
 import ru.noleg.bankcards.service.CardService;
+import ru.noleg.bankcards.service.IdempotencyService;
 
 @TestConfiguration
 public class TestCardControllerMocksConfig {
@@ -18,4 +19,9 @@ public class TestCardControllerMocksConfig {
     public CardMapper cardMapper() {
         return Mockito.mock(CardMapper.class);
     }
+
+    @Bean
+    public IdempotencyService idempotencyService() {
+        return Mockito.mock(IdempotencyService.class);
+    }
 }
\ No newline at end of file
@@ -3,7 +3,12 @@ package ru.noleg.bankcards.controller.card;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import ru.noleg.bankcards.mapper.TransferRecordMapper;
+import ru.noleg.bankcards.mapper.TransferRecordMapperImpl;
+import ru.noleg.bankcards.service.AsyncTransferService;
 import ru.noleg.bankcards.service.CardTransferService;
+import ru.noleg.bankcards.service.IdempotencyService;
+import ru.noleg.bankcards.service.TransferJournalService;
 
 @TestConfiguration
 public class TestTransferCardControllerMocksConfig {
@@ -13,4 +18,23 @@ public class TestTransferCardControllerMocksConfig {
         return Mockito.mock(CardTransferService.class);
     }
 
+    @Bean
+    public AsyncTransferService asyncTransferService() {
+        return Mockito.mock(AsyncTransferService.class);
+    }
+
+    @Bean
+    public TransferJournalService transferJournalService() {
+        return Mockito.mock(TransferJournalService.class);
+    }
+
+    @Bean
+    public TransferRecordMapper transferRecordMapper() {
+        return new TransferRecordMapperImpl();
+    }
+
+    @Bean
+    public IdempotencyService idempotencyService() {
+        return Mockito.mock(IdempotencyService.class);
+    }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import ru.noleg.bankcards.entity.Role;
 import ru.noleg.bankcards.entity.User;
 import ru.noleg.bankcards.mapper.UserMapper;
 import ru.noleg.bankcards.service.UserService;
+import ru.noleg.bankcards.util.CursorCodec;
 
 import java.util.List;
 
@@ -169,4 +170,35 @@ class AdminControllerTest {
                         .param("role", "ROLE_USER"))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void scrollUsers_shouldReturnPageWithLastNameCursor_whenMoreUsersExist() throws Exception {
+        // Arrange
+        User user1 = new User(3L, "email1", "password1", "Иван", "Иванов", null, Role.ROLE_USER);
+        User user2 = new User(8L, "email2", "password2", "Петр", "Петров", null, Role.ROLE_USER);
+        List<UserDto> dtos = List.of(
+                new UserDto(3L, "Иван", "Иванов", null, "email1", Role.ROLE_USER)
+        );
+        when(userService.scrollAll(UserSort.LAST_NAME_ASC, null, 2)).thenReturn(List.of(user1, user2));
+        when(userMapper.mapToUserDtos(List.of(user1))).thenReturn(dtos);
+
+        // Act | Assert
+        mockMvc.perform(get("/api/admin/users/scroll")
+                        .param("limit", "1")
+                        .param("sort", "LAST_NAME_ASC"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].lastName").value("Иванов"))
+                .andExpect(jsonPath("$.nextCursor").value(CursorCodec.encode(3L, "Иванов")));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void scrollUsers_shouldReturn403_ifWrongRole() throws Exception {
+        mockMvc.perform(get("/api/admin/users/scroll"))
+                .andExpect(status().isForbidden());
+
+        verify(userService, never()).scrollAll(any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,98 @@
+package ru.noleg.bankcards.jpa.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.noleg.bankcards.entity.Card;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticLockRetryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticLockRetry optimisticLockRetry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        optimisticLockRetry = new OptimisticLockRetry(meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(2));
+    }
+
+    @Test
+    void execute_shouldRetryAndCountRetries_whenVersionIsStale() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        String result = optimisticLockRetry.execute("deposit", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Card.class, 1L);
+            }
+            return "done";
+        });
+
+        // Assert
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, meterRegistry.get("bankcards.optimistic.lock.retries").tag("operation", "deposit").counter().count());
+    }
+
+    @Test
+    void execute_shouldRethrowAndCountFailure_whenAttemptsExhausted() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act | Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> optimisticLockRetry.execute("transfer", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Card.class, 1L);
+        }));
+        assertEquals(3, attempts.get());
+        assertEquals(1, meterRegistry.get("bankcards.optimistic.lock.failures").tag("operation", "transfer").counter().count());
+    }
+
+    @Test
+    void execute_shouldNotRetry_whenFailureIsNotOptimisticLock() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act | Assert
+        assertThrows(IllegalStateException.class, () -> optimisticLockRetry.execute("transfer", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void aspect_shouldRetryAnnotatedMethod() {
+        // Arrange
+        FlakyService target = new FlakyService();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new OptimisticLockRetryAspect(optimisticLockRetry));
+        FlakyService proxy = proxyFactory.getProxy();
+
+        // Act
+        proxy.update();
+
+        // Assert
+        assertEquals(2, target.calls.get());
+    }
+
+    static class FlakyService {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @RetryOnOptimisticLock
+        public void update() {
+            if (calls.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException(Card.class, 1L);
+            }
+        }
+    }
+}
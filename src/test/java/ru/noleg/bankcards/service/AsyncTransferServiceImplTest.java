@@ -0,0 +1,109 @@
+package ru.noleg.bankcards.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import ru.noleg.bankcards.dto.transfer.AsyncTransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.entity.TransferStatus;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+import ru.noleg.bankcards.exception.error.TransferNotFoundException;
+import ru.noleg.bankcards.service.impl.AsyncTransferServiceImpl;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceImplTest {
+
+    @Mock
+    private CardTransferService cardTransferService;
+
+    private AsyncTransferServiceImpl asyncTransferService;
+
+    @BeforeEach
+    void setUp() {
+        asyncTransferService = new AsyncTransferServiceImpl(
+                cardTransferService, new SyncTaskExecutor(), Duration.ofHours(1), 100
+        );
+    }
+
+    @Test
+    void submit_shouldCompleteTransfer_whenTransferSucceeds() {
+        // Arrange
+        TransferDto transfer = new TransferDto(1L, 2L, BigDecimal.TEN);
+
+        // Act
+        AsyncTransferDto accepted = asyncTransferService.submit(5L, transfer);
+
+        // Assert
+        assertEquals(TransferStatus.PENDING, accepted.status());
+        assertEquals(TransferStatus.COMPLETED, asyncTransferService.getStatus(5L, accepted.id()).status());
+        verify(cardTransferService, times(1)).transfer(5L, 1L, 2L, BigDecimal.TEN);
+    }
+
+    @Test
+    void submit_shouldRecordFailure_whenTransferIsRejected() {
+        // Arrange
+        TransferDto transfer = new TransferDto(1L, 2L, BigDecimal.TEN);
+        doThrow(new BusinessLogicException("Insufficient funds on the sender card."))
+                .when(cardTransferService).transfer(5L, 1L, 2L, BigDecimal.TEN);
+
+        // Act
+        AsyncTransferDto accepted = asyncTransferService.submit(5L, transfer);
+
+        // Assert
+        AsyncTransferDto status = asyncTransferService.getStatus(5L, accepted.id());
+        assertEquals(TransferStatus.FAILED, status.status());
+        assertEquals("Insufficient funds on the sender card.", status.error());
+    }
+
+    @Test
+    void getStatus_shouldThrowTransferNotFoundException_whenOwnerDiffers() {
+        // Arrange
+        AsyncTransferDto accepted = asyncTransferService.submit(5L, new TransferDto(1L, 2L, BigDecimal.TEN));
+
+        // Act | Assert
+        assertThrows(TransferNotFoundException.class, () -> asyncTransferService.getStatus(6L, accepted.id()));
+    }
+
+    @Test
+    void submit_shouldNotTrackTransfer_whenExecutorRejects() {
+        // Arrange
+        asyncTransferService = new AsyncTransferServiceImpl(cardTransferService, task -> {
+            throw new TaskRejectedException("Queue is full");
+        }, Duration.ofHours(1), 100);
+
+        // Act | Assert
+        assertThrows(TaskRejectedException.class,
+                () -> asyncTransferService.submit(5L, new TransferDto(1L, 2L, BigDecimal.TEN)));
+        verifyNoInteractions(cardTransferService);
+    }
+
+    @Test
+    void getStatus_shouldKeepPendingTransfers_whenStatusCacheIsFull() {
+        // Arrange
+        List<Runnable> queued = new ArrayList<>();
+        asyncTransferService = new AsyncTransferServiceImpl(cardTransferService, queued::add, Duration.ofHours(1), 1);
+
+        // Act
+        List<AsyncTransferDto> accepted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            accepted.add(asyncTransferService.submit(5L, new TransferDto(1L, 2L, BigDecimal.TEN)));
+        }
+
+        // Assert
+        for (AsyncTransferDto transfer : accepted) {
+            assertEquals(TransferStatus.PENDING, asyncTransferService.getStatus(5L, transfer.id()).status());
+        }
+    }
+}
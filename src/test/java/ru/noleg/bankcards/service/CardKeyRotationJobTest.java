@@ -0,0 +1,196 @@
+package ru.noleg.bankcards.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.noleg.bankcards.entity.KeyRotationCheckpoint;
+import ru.noleg.bankcards.repository.CardEncryptedNumber;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.KeyRotationCheckpointRepository;
+import ru.noleg.bankcards.service.impl.CardKeyRotationJob;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardKeyRotationJobTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private KeyRotationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AesEncryptionUtil legacy = new AesEncryptionUtil("0123456789abcdef");
+    private final AesEncryptionUtil rotated = new AesEncryptionUtil("0123456789abcdef", "k2:fedcba9876543210", "k2");
+
+    private CardKeyRotationJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new CardKeyRotationJob(
+                cardRepository, checkpointRepository, rotated, transactionManager, new SimpleMeterRegistry(),
+                2, 2, Duration.ZERO
+        );
+        lenient().when(checkpointRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.stop();
+    }
+
+    @Test
+    void rotate_shouldReencryptStaleNumbersAndCheckpointEveryChunk() throws InterruptedException {
+        // Arrange
+        String stale = legacy.encrypt("1111222233334444");
+        String fresh = rotated.encrypt("5555666677778888");
+        when(checkpointRepository.findById("k2")).thenReturn(Optional.empty());
+        String reencrypted = rotated.encrypt("1111222233334444");
+        when(cardRepository.findEncryptedNumbersAfter(eq(2L), any())).thenReturn(List.of());
+        // Stubbed last: stubbing another call would consume the first of these consecutive answers.
+        when(cardRepository.findEncryptedNumbersAfter(eq(0L), any()))
+                .thenReturn(List.of(card(1L, stale), card(2L, fresh)))
+                .thenReturn(List.of(card(1L, reencrypted), card(2L, fresh)));
+        when(cardRepository.replaceEncryptedNumber(eq(1L), eq(stale), anyString())).thenReturn(1);
+
+        // Act
+        job.rotate();
+
+        // Assert
+        verify(cardRepository, times(1)).replaceEncryptedNumber(eq(1L), eq(stale),
+                argThat(number -> number.startsWith("k2:") && rotated.decrypt(number).equals("1111222233334444")));
+        verify(cardRepository, never()).replaceEncryptedNumber(eq(2L), anyString(), anyString());
+        // Once after the chunk and once when the pass is finished; both calls save the same checkpoint object.
+        verify(checkpointRepository, times(2)).save(argThat(checkpoint -> checkpoint.isCompleted()
+                && checkpoint.getLastCardId() == 2L && checkpoint.getReencrypted() == 1L));
+    }
+
+    @Test
+    void rotate_shouldResumeAfterCheckpoint() throws InterruptedException {
+        // Arrange
+        KeyRotationCheckpoint checkpoint = new KeyRotationCheckpoint("k2", LocalDateTime.now());
+        checkpoint.setLastCardId(100L);
+        when(checkpointRepository.findById("k2")).thenReturn(Optional.of(checkpoint));
+        when(cardRepository.findEncryptedNumbersAfter(eq(100L), any())).thenReturn(List.of());
+        when(cardRepository.findEncryptedNumbersAfter(eq(0L), any())).thenReturn(List.of());
+
+        // Act
+        job.rotate();
+
+        // Assert: the walk resumes at the checkpoint, only the final sweep starts from the first card.
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).findEncryptedNumbersAfter(eq(100L), any());
+        inOrder.verify(cardRepository).findEncryptedNumbersAfter(eq(0L), any());
+        verify(cardRepository, never()).replaceEncryptedNumber(anyLong(), anyString(), anyString());
+        assertTrue(checkpoint.isCompleted());
+    }
+
+    @Test
+    void rotate_shouldStartOver_whenSweepFindsNumberWrittenWithOldKeyBehindCheckpoint() throws InterruptedException {
+        // Arrange
+        KeyRotationCheckpoint checkpoint = new KeyRotationCheckpoint("k2", LocalDateTime.now());
+        checkpoint.setLastCardId(100L);
+        when(checkpointRepository.findById("k2")).thenReturn(Optional.of(checkpoint));
+        when(cardRepository.findEncryptedNumbersAfter(eq(100L), any())).thenReturn(List.of());
+        when(cardRepository.findEncryptedNumbersAfter(eq(0L), any()))
+                .thenReturn(List.of(card(5L, legacy.encrypt("1111222233334444"))));
+        when(cardRepository.findEncryptedNumbersAfter(eq(5L), any())).thenReturn(List.of());
+
+        // Act
+        job.rotate();
+
+        // Assert
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(0L, checkpoint.getLastCardId());
+    }
+
+    @Test
+    void rotate_shouldStartOver_whenPassHadFailures() throws InterruptedException {
+        // Arrange
+        when(checkpointRepository.findById("k2")).thenReturn(Optional.empty());
+        when(cardRepository.findEncryptedNumbersAfter(eq(0L), any())).thenReturn(List.of(card(1L, "broken")));
+        when(cardRepository.findEncryptedNumbersAfter(eq(1L), any())).thenReturn(List.of());
+
+        // Act
+        job.rotate();
+
+        // Assert
+        verify(cardRepository, never()).replaceEncryptedNumber(anyLong(), anyString(), anyString());
+        verify(checkpointRepository, atLeastOnce()).save(argThat(checkpoint -> !checkpoint.isCompleted()
+                && checkpoint.getLastCardId() == 0L && checkpoint.getFailed() == 0L));
+    }
+
+    @Test
+    void rotate_shouldDoNothing_whenRotationIsCompleted() throws InterruptedException {
+        // Arrange
+        KeyRotationCheckpoint checkpoint = new KeyRotationCheckpoint("k2", LocalDateTime.now());
+        checkpoint.setCompleted(true);
+        when(checkpointRepository.findById("k2")).thenReturn(Optional.of(checkpoint));
+
+        // Act
+        job.rotate();
+
+        // Assert
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void scheduleRotation_shouldRunPassOnOwnThread_andSkipTicksWhilePassIsRunning() throws InterruptedException {
+        // Arrange
+        CountDownLatch passStarted = new CountDownLatch(1);
+        CountDownLatch releasePass = new CountDownLatch(1);
+        AtomicReference<String> passThread = new AtomicReference<>();
+        when(checkpointRepository.findById("k2")).thenAnswer(invocation -> {
+            passThread.set(Thread.currentThread().getName());
+            passStarted.countDown();
+            releasePass.await();
+            return Optional.empty();
+        });
+        when(cardRepository.findEncryptedNumbersAfter(eq(0L), any())).thenReturn(List.of());
+
+        // Act
+        job.scheduleRotation();
+        assertTrue(passStarted.await(5, TimeUnit.SECONDS));
+        job.scheduleRotation();
+        releasePass.countDown();
+
+        // Assert
+        verify(checkpointRepository, timeout(5000)).save(any());
+        verify(checkpointRepository, times(1)).findById("k2");
+        assertEquals("card-key-rotation", passThread.get());
+    }
+
+    private CardEncryptedNumber card(Long id, String encryptedNumber) {
+        return new CardEncryptedNumber() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEncryptedNumber() {
+                return encryptedNumber;
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package ru.noleg.bankcards.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.noleg.bankcards.repository.CardEncryptedNumber;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.service.impl.CardNumberBackfill;
+import ru.noleg.bankcards.util.AesEncryptionUtil;
+import ru.noleg.bankcards.util.CardNumberHasher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberBackfillTest {
+
+    private static final String CARD_NUMBER = "1111222233334444";
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AesEncryptionUtil aesEncryptionUtil = new AesEncryptionUtil("0123456789abcdef");
+    private final CardNumberHasher cardNumberHasher = new CardNumberHasher("test-card-number-hmac-key-32-bytes");
+
+    private CardNumberBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        backfill = new CardNumberBackfill(cardRepository, aesEncryptionUtil, cardNumberHasher, transactionManager, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        backfill.stop();
+    }
+
+    @Test
+    void scheduleBackfill_shouldReturnImmediately_andBackfillOnOwnThread() throws InterruptedException {
+        // Arrange
+        CountDownLatch passStarted = new CountDownLatch(1);
+        CountDownLatch releasePass = new CountDownLatch(1);
+        AtomicReference<String> passThread = new AtomicReference<>();
+        String encryptedNumber = aesEncryptionUtil.encrypt(CARD_NUMBER);
+        when(cardRepository.findEncryptedNumbersToBackfill(eq(1L), any())).thenReturn(List.of());
+        when(cardRepository.findEncryptedNumbersToBackfill(eq(0L), any())).thenAnswer(invocation -> {
+            passThread.set(Thread.currentThread().getName());
+            passStarted.countDown();
+            releasePass.await();
+            return List.of(card(1L, encryptedNumber));
+        });
+
+        // Act: the pass is blocked, so returning here shows the scheduler thread isn't held by it.
+        backfill.scheduleBackfill();
+        assertTrue(passStarted.await(5, TimeUnit.SECONDS));
+        backfill.scheduleBackfill();
+        releasePass.countDown();
+
+        // Assert
+        verify(cardRepository, timeout(5000)).backfillNumberData(1L, "4444", cardNumberHasher.hash(CARD_NUMBER));
+        verify(cardRepository, timeout(5000)).findEncryptedNumbersToBackfill(eq(1L), any());
+        verify(cardRepository, times(1)).findEncryptedNumbersToBackfill(eq(0L), any());
+        assertEquals("card-number-backfill", passThread.get());
+    }
+
+    @Test
+    void stop_shouldEndRunningPass() throws InterruptedException {
+        // Arrange: every query returns one more card, so the pass never runs out of work by itself.
+        CountDownLatch passStarted = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        String encryptedNumber = aesEncryptionUtil.encrypt(CARD_NUMBER);
+        when(cardRepository.findEncryptedNumbersToBackfill(anyLong(), any())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            passStarted.countDown();
+            return List.of(card((Long) invocation.getArgument(0) + 1, encryptedNumber));
+        });
+
+        backfill.scheduleBackfill();
+        assertTrue(passStarted.await(5, TimeUnit.SECONDS));
+
+        // Act
+        assertTimeoutPreemptively(Duration.ofSeconds(5), backfill::stop);
+
+        // Assert
+        int queriesAfterStop = queries.get();
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(queriesAfterStop, queries.get());
+    }
+
+    @Test
+    void backfill_shouldStopQuerying_onceFullPassFindsNothing() {
+        // Arrange
+        when(cardRepository.findEncryptedNumbersToBackfill(eq(0L), any())).thenReturn(List.of());
+
+        // Act
+        backfill.backfill();
+        backfill.backfill();
+        backfill.scheduleBackfill();
+
+        // Assert
+        verify(cardRepository, times(1)).findEncryptedNumbersToBackfill(eq(0L), any());
+    }
+
+    private CardEncryptedNumber card(Long id, String encryptedNumber) {
+        return new CardEncryptedNumber() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEncryptedNumber() {
+                return encryptedNumber;
+            }
+        };
+    }
+}
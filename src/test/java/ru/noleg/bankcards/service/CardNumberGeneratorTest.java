@@ -0,0 +1,118 @@
+package ru.noleg.bankcards.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.service.impl.CardNumberGenerator;
+import ru.noleg.bankcards.util.CardNumberHasher;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberGeneratorTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    private final CardNumberHasher cardNumberHasher = new CardNumberHasher("test-card-number-hmac-key-32-bytes");
+
+    @Test
+    void next_shouldReturnLuhnValidNumberWithBin() {
+        // Arrange
+        CardNumberGenerator generator = generator(10);
+
+        // Act
+        CardNumberGenerator.GeneratedCardNumber number = generator.next();
+
+        // Assert
+        assertEquals(16, number.number().length());
+        assertTrue(number.number().startsWith("220000"));
+        assertTrue(isLuhnValid(number.number()));
+        assertEquals(cardNumberHasher.hash(number.number()), number.hash());
+    }
+
+    @Test
+    void next_shouldSkipNumber_whenItIsAlreadyIssued() {
+        // Arrange
+        CardNumberGenerator generator = generator(10);
+        when(cardRepository.findExistingNumberHashes(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<String>>getArgument(0)))
+                .thenReturn(List.of());
+
+        // Act
+        CardNumberGenerator.GeneratedCardNumber number = generator.next();
+
+        // Assert
+        assertTrue(isLuhnValid(number.number()));
+        verify(cardRepository, times(2)).findExistingNumberHashes(anyCollection());
+    }
+
+    @Test
+    void next_shouldTakeDistinctNumbersFromPool_whenRefillerIsRunning() throws InterruptedException {
+        // Arrange
+        CardNumberGenerator generator = generator(50);
+        generator.start();
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        // Act
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            numbers.add(generator.next().number());
+        }
+        generator.stop();
+
+        // Assert
+        assertEquals(50, numbers.size());
+        assertTrue(numbers.stream().allMatch(CardNumberGeneratorTest::isLuhnValid));
+    }
+
+    @Test
+    void next_shouldCheckUniquenessInChunks_whenManyNumbersAreRequested() {
+        // Arrange
+        CardNumberGenerator generator = generator(10);
+
+        // Act
+        List<CardNumberGenerator.GeneratedCardNumber> numbers = generator.next(2500);
+
+        // Assert
+        assertEquals(2500, numbers.stream().map(CardNumberGenerator.GeneratedCardNumber::hash).distinct().count());
+        verify(cardRepository, times(3)).findExistingNumberHashes(anyCollection());
+        verify(cardRepository, never()).existsByNumberHash(anyString());
+    }
+
+    @Test
+    void constructor_shouldThrowIllegalArgumentException_whenBinIsInvalid() {
+        // Act | Assert
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberGenerator(
+                cardRepository, cardNumberHasher, new SimpleMeterRegistry(), "22a0", 10
+        ));
+    }
+
+    private CardNumberGenerator generator(int poolSize) {
+        return new CardNumberGenerator(cardRepository, cardNumberHasher, new SimpleMeterRegistry(), "220000", poolSize);
+    }
+
+    private static boolean isLuhnValid(String number) {
+        int sum = 0;
+        for (int i = 0; i < number.length(); i++) {
+            int digit = number.charAt(number.length() - 1 - i) - '0';
+            if (i % 2 == 1) {
+                digit = digit * 2 > 9 ? digit * 2 - 9 : digit * 2;
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+}
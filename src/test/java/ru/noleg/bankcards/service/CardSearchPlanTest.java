@@ -0,0 +1,182 @@
+package ru.noleg.bankcards.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.noleg.bankcards.AbstractPostgresIntegrationTest;
+import ru.noleg.bankcards.dto.card.CardSearchFilter;
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.repository.CardSummary;
+import ru.noleg.bankcards.util.Money;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the plans of the card search on a million cards: every combination of filters must be answered
+ * from an index. The SQL is taken from the real query and explained with the same values it was run with.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.noleg.bankcards.service.CardSearchPlanTest$SearchStatementCapture")
+class CardSearchPlanTest extends AbstractPostgresIntegrationTest {
+
+    private static final long ID_BASE = 900_000_000L;
+    private static final int CARDS = 1_000_000;
+    private static final int OWNERS = 10_000;
+    private static final int LIMIT = 21;
+
+    private static final long OWNER_ID = ID_BASE + 42;
+    private static final YearMonth EXPIRES_FROM = YearMonth.of(2027, 3);
+    private static final YearMonth EXPIRES_TO = YearMonth.of(2027, 4);
+    private static final BigDecimal BALANCE_FROM = new BigDecimal("100.00");
+    private static final BigDecimal BALANCE_TO = new BigDecimal("500.00");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static class SearchStatementCapture implements StatementInspector {
+
+        static volatile String lastSearchSql;
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.contains("from t_cards") && sql.contains("fetch first")) {
+                lastSearchSql = sql;
+            }
+            return sql;
+        }
+    }
+
+    @BeforeAll
+    void loadCards() {
+        jdbcTemplate.update("""
+                INSERT INTO t_users (c_id, c_email, c_password, c_first_name, c_last_name, c_role)
+                SELECT ? + g, 'plan-' || g || '@test.com', 'password', 'Plan', 'Owner', 'ROLE_USER'
+                  FROM generate_series(1, ?) g
+                """, ID_BASE, OWNERS);
+        // One card in ten is blocked and about one in a hundred timed out; expiration dates spread over ten years.
+        jdbcTemplate.update("""
+                INSERT INTO t_cards (c_id, c_number, c_number_hash, c_last4, c_owner_id, c_expiration_date,
+                                     c_card_status, c_balance_minor, c_balance_stripes, c_version)
+                SELECT ? + g, 'plan-' || g, md5('plan-' || g), lpad((g % 10000)::text, 4, '0'), ? + 1 + g % ?,
+                       to_char(DATE '2025-01-01' + make_interval(months => g % 120), 'YYYY-MM'),
+                       CASE WHEN g % 97 = 0 THEN 'TIMED_OUT' WHEN g % 10 = 0 THEN 'BLOCKED' ELSE 'ACTIVE' END,
+                       (g * 7919::bigint) % 10000000, 0, 0
+                  FROM generate_series(1, ?) g
+                """, ID_BASE, ID_BASE, OWNERS, CARDS);
+        jdbcTemplate.execute("ANALYZE t_users");
+        jdbcTemplate.execute("ANALYZE t_cards");
+    }
+
+    @AfterAll
+    void deleteCards() {
+        jdbcTemplate.update("DELETE FROM t_cards WHERE c_id > ?", ID_BASE);
+        jdbcTemplate.update("DELETE FROM t_users WHERE c_id > ?", ID_BASE);
+    }
+
+    static Stream<CardSearchFilter> filters() {
+        List<CardSearchFilter> filters = new ArrayList<>();
+        for (int mask = 0; mask < 16; mask++) {
+            boolean owner = (mask & 1) != 0;
+            boolean status = (mask & 2) != 0;
+            boolean expiration = (mask & 4) != 0;
+            boolean balance = (mask & 8) != 0;
+            filters.add(new CardSearchFilter(
+                    owner ? OWNER_ID : null,
+                    status ? CardStatus.BLOCKED : null,
+                    expiration ? EXPIRES_FROM : null,
+                    expiration ? EXPIRES_TO : null,
+                    balance ? BALANCE_FROM : null,
+                    balance ? BALANCE_TO : null
+            ));
+        }
+        filters.add(new CardSearchFilter(null, CardStatus.TIMED_OUT, null, null, null, null));
+        filters.add(new CardSearchFilter(null, CardStatus.ACTIVE, EXPIRES_FROM, EXPIRES_TO, null, null));
+        filters.add(new CardSearchFilter(null, CardStatus.ACTIVE, null, null, BALANCE_FROM, BALANCE_TO));
+        filters.add(new CardSearchFilter(null, null, EXPIRES_FROM, null, null, null));
+        filters.add(new CardSearchFilter(null, null, null, null, null, BALANCE_TO));
+        return filters.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void search_shouldNotScanWholeTable(CardSearchFilter filter) {
+        // Arrange
+        SearchStatementCapture.lastSearchSql = null;
+        cardService.search(filter, null, LIMIT);
+        String sql = SearchStatementCapture.lastSearchSql;
+        assertNotNull(sql);
+
+        // Act
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, bindValues(filter)));
+
+        // Assert
+        assertFalse(plan.contains("Seq Scan"), () -> filter + "\n" + sql + "\n" + plan);
+    }
+
+    @Test
+    void search_shouldReturnOnlyMatchingCardsInIdOrder() {
+        // Arrange
+        CardSearchFilter filter = new CardSearchFilter(
+                null, CardStatus.BLOCKED, EXPIRES_FROM, EXPIRES_TO, null, null
+        );
+
+        // Act
+        List<CardSummary> firstPage = cardService.search(filter, null, LIMIT);
+        List<CardSummary> secondPage = cardService.search(filter, firstPage.get(LIMIT - 1).id(), LIMIT);
+
+        // Assert
+        assertEquals(LIMIT, firstPage.size());
+        assertTrue(secondPage.get(0).id() > firstPage.get(LIMIT - 1).id());
+        Stream.concat(firstPage.stream(), secondPage.stream()).forEach(card -> {
+            assertEquals(CardStatus.BLOCKED, card.status());
+            assertFalse(card.expirationDate().isBefore(EXPIRES_FROM));
+            assertFalse(card.expirationDate().isAfter(EXPIRES_TO));
+        });
+    }
+
+    /**
+     * Values in the order the search adds its conditions; the status is inlined as a literal,
+     * and the id of the previous page and the limit come last.
+     */
+    private static Object[] bindValues(CardSearchFilter filter) {
+        List<Object> values = new ArrayList<>();
+        if (filter.ownerId() != null) {
+            values.add(filter.ownerId());
+        }
+        if (filter.expiresFrom() != null) {
+            values.add(filter.expiresFrom().toString());
+        }
+        if (filter.expiresTo() != null) {
+            values.add(filter.expiresTo().toString());
+        }
+        if (filter.balanceFrom() != null) {
+            values.add(Money.toMinor(filter.balanceFrom()));
+        }
+        if (filter.balanceTo() != null) {
+            values.add(Money.toMinor(filter.balanceTo()));
+        }
+        values.add(0L);
+        values.add(LIMIT);
+        return values.toArray();
+    }
+}
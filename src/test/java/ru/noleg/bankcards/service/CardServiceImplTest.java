@@ -1,33 +1,56 @@
 package ru.noleg.bankcards.service;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.noleg.bankcards.dto.card.CardSearchFilter;
+import ru.noleg.bankcards.dto.card.CardSort;
 import ru.noleg.bankcards.entity.Card;
 import ru.noleg.bankcards.entity.CardStatus;
 import ru.noleg.bankcards.entity.User;
 import ru.noleg.bankcards.exception.error.BusinessLogicException;
 import ru.noleg.bankcards.exception.error.CardNotFoundException;
 import ru.noleg.bankcards.exception.error.UserNotFoundException;
+import ru.noleg.bankcards.repository.CardPendingBalance;
 import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.CardSummary;
 import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.service.impl.CardNumberGenerator;
 import ru.noleg.bankcards.service.impl.CardServiceImpl;
 import ru.noleg.bankcards.util.AesEncryptionUtil;
+import ru.noleg.bankcards.util.CardNumberHasher;
+import ru.noleg.bankcards.util.CursorCodec;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +65,18 @@ class CardServiceImplTest {
     @Mock
     private AesEncryptionUtil aesEncryptionUtil;
 
+    @Mock
+    private CardNumberHasher cardNumberHasher;
+
+    @Mock
+    private CardNumberGenerator cardNumberGenerator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -61,7 +96,8 @@ class CardServiceImplTest {
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
         when(aesEncryptionUtil.encrypt(any())).thenReturn("encryptedNumber");
-        when(cardRepository.save(any())).thenReturn(savedCard);
+        when(cardNumberGenerator.next()).thenReturn(new CardNumberGenerator.GeneratedCardNumber("2200001234567895", "hash"));
+        when(cardRepository.saveAndFlush(any())).thenReturn(savedCard);
 
         // Act
         Long result = cardService.create(card);
@@ -70,7 +106,172 @@ class CardServiceImplTest {
         assertEquals(100L, result);
         verify(userRepository, times(1)).findById(1L);
         verify(aesEncryptionUtil, times(1)).encrypt(any());
-        verify(cardRepository, times(1)).save(any());
+        verify(cardRepository, times(1)).saveAndFlush(argThat(saved -> "7895".equals(saved.getLast4())));
+        verify(cardRepository, times(1)).saveAndFlush(argThat(saved -> "hash".equals(saved.getNumberHash())));
+    }
+
+    @Test
+    void create_shouldIssueNewNumber_whenNumberIsTakenMeanwhile() {
+        // Arrange
+        User owner = new User();
+        owner.setId(1L);
+
+        Card card = new Card();
+        card.setOwner(owner);
+
+        Card savedCard = new Card();
+        savedCard.setId(100L);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(aesEncryptionUtil.encrypt(any())).thenReturn("encryptedNumber");
+        when(cardNumberGenerator.next()).thenReturn(
+                new CardNumberGenerator.GeneratedCardNumber("2200001234567895", "taken"),
+                new CardNumberGenerator.GeneratedCardNumber("2200001234567804", "free")
+        );
+        when(cardRepository.saveAndFlush(any()))
+                .thenAnswer(invocation -> {
+                    invocation.<Card>getArgument(0).setId(99L);
+                    throw uniqueViolation("idx_cards_number_hash");
+                })
+                .thenReturn(savedCard);
+
+        // Act
+        Long result = cardService.create(card);
+
+        // Assert
+        assertEquals(100L, result);
+        assertEquals("free", card.getNumberHash());
+        assertEquals("7804", card.getLast4());
+        assertNull(card.getId());
+        verify(cardRepository, times(2)).saveAndFlush(card);
+        verify(entityManager, times(1)).clear();
+    }
+
+    @Test
+    void create_shouldThrowBusinessLogicException_whenEveryNumberIsTaken() {
+        // Arrange
+        User owner = new User();
+        owner.setId(1L);
+
+        Card card = new Card();
+        card.setOwner(owner);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(aesEncryptionUtil.encrypt(any())).thenReturn("encryptedNumber");
+        when(cardNumberGenerator.next()).thenReturn(new CardNumberGenerator.GeneratedCardNumber("2200001234567895", "taken"));
+        when(cardRepository.saveAndFlush(any())).thenThrow(uniqueViolation("idx_cards_number_hash"));
+
+        // Act | Assert
+        BusinessLogicException ex = assertThrows(BusinessLogicException.class, () -> cardService.create(card));
+        assertEquals("Could not issue a unique card number, please retry", ex.getMessage());
+        verify(cardRepository, times(3)).saveAndFlush(card);
+    }
+
+    @Test
+    void create_shouldRethrow_whenOtherConstraintIsViolated() {
+        // Arrange
+        User owner = new User();
+        owner.setId(1L);
+
+        Card card = new Card();
+        card.setOwner(owner);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(aesEncryptionUtil.encrypt(any())).thenReturn("encryptedNumber");
+        when(cardNumberGenerator.next()).thenReturn(new CardNumberGenerator.GeneratedCardNumber("2200001234567895", "hash"));
+        when(cardRepository.saveAndFlush(any())).thenThrow(uniqueViolation("fk_cards_owner"));
+
+        // Act | Assert
+        assertThrows(DataIntegrityViolationException.class, () -> cardService.create(card));
+        verify(cardRepository, times(1)).saveAndFlush(card);
+        verify(cardNumberGenerator, times(1)).next();
+    }
+
+    @Test
+    void createAll_shouldCheckEachOwnerOnceAndFlushInBatches() {
+        // Arrange
+        User first = new User();
+        first.setId(1L);
+        User second = new User();
+        second.setId(2L);
+
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            User owner = new User();
+            owner.setId(i % 2 == 0 ? 1L : 2L);
+            Card card = new Card();
+            card.setOwner(owner);
+            cards.add(card);
+        }
+
+        List<CardNumberGenerator.GeneratedCardNumber> numbers = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            numbers.add(new CardNumberGenerator.GeneratedCardNumber(String.format("2200000000%06d", i), "hash" + i));
+        }
+
+        when(userRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(cardNumberGenerator.next(1500)).thenReturn(numbers);
+        when(aesEncryptionUtil.encrypt(any())).thenReturn("encryptedNumber");
+
+        // Act
+        List<Long> result = cardService.createAll(cards);
+
+        // Assert
+        assertEquals(1500, result.size());
+        assertEquals("hash1499", cards.get(1499).getNumberHash());
+        assertEquals(second, cards.get(1499).getOwner());
+        verify(userRepository, times(1)).findAllById(any());
+        verify(cardRepository, times(2)).saveAll(any());
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void createAll_shouldThrowUserNotFoundException_whenOwnerNotExists() {
+        // Arrange
+        User owner = new User();
+        owner.setId(1L);
+        Card card = new Card();
+        card.setOwner(owner);
+
+        when(userRepository.findAllById(Set.of(1L))).thenReturn(List.of());
+
+        // Act | Assert
+        UserNotFoundException ex = assertThrows(UserNotFoundException.class,
+                () -> cardService.createAll(List.of(card)));
+        assertEquals("User not found by id 1", ex.getMessage());
+        verifyNoInteractions(cardNumberGenerator);
+        verify(cardRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void getByNumber_shouldLookUpByHash_whenCardExists() {
+        // Arrange
+        Card card = new Card();
+        card.setId(1L);
+        card.setLast4("5678");
+
+        when(cardNumberHasher.hash("1234567812345678")).thenReturn("hash");
+        when(cardRepository.findByNumberHash("hash")).thenReturn(Optional.of(card));
+
+        // Act
+        Card result = cardService.getByNumber("1234567812345678");
+
+        // Assert
+        assertEquals(1L, result.getId());
+        verifyNoInteractions(aesEncryptionUtil);
+    }
+
+    @Test
+    void getByNumber_shouldThrowCardNotFoundException_whenCardNotExists() {
+        // Arrange
+        when(cardNumberHasher.hash("1234567812345678")).thenReturn("hash");
+        when(cardRepository.findByNumberHash("hash")).thenReturn(Optional.empty());
+
+        // Act | Assert
+        CardNotFoundException ex = assertThrows(CardNotFoundException.class,
+                () -> cardService.getByNumber("1234567812345678"));
+        assertEquals("Card not found by number", ex.getMessage());
     }
 
     @Test
@@ -92,11 +293,30 @@ class CardServiceImplTest {
 
         verify(userRepository, times(1)).findById(1L);
         verify(aesEncryptionUtil, never()).encrypt(any());
-        verify(cardRepository, never()).save(any());
+        verify(cardRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void get_shouldNotDecrypt_whenLast4IsStored() {
+        // Arrange
+        Long cardId = 1L;
+        Card card = new Card();
+        card.setId(cardId);
+        card.setEncryptedNumber("enc");
+        card.setLast4("5678");
+
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+
+        // Act
+        Card result = cardService.get(cardId);
+
+        // Assert
+        assertEquals("5678", result.getLast4());
+        verifyNoInteractions(aesEncryptionUtil);
     }
 
     @Test
-    void get_shouldReturnDecryptedCard_whenExists() {
+    void get_shouldDecryptLast4_whenCardIsNotBackfilledYet() {
         // Arrange
         String encryptedNumber = "enc";
         String decryptedNumber = "1234567812345678";
@@ -107,15 +327,44 @@ class CardServiceImplTest {
         card.setEncryptedNumber(encryptedNumber);
 
         when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
-        when(aesEncryptionUtil.decrypt(encryptedNumber)).thenReturn(decryptedNumber);
+        when(aesEncryptionUtil.decryptAll(List.of(encryptedNumber))).thenReturn(List.of(decryptedNumber));
 
         // Act
         Card result = cardService.get(cardId);
 
         // Assert
-        assertEquals(decryptedNumber, result.getMaskedNumber());
+        assertEquals("5678", result.getLast4());
         verify(cardRepository, times(1)).findById(cardId);
-        verify(aesEncryptionUtil, times(1)).decrypt(encryptedNumber);
+        verify(aesEncryptionUtil, times(1)).decryptAll(List.of(encryptedNumber));
+    }
+
+    @Test
+    void revealNumber_shouldReturnDecryptedNumber_whenCardExists() {
+        // Arrange
+        Long cardId = 1L;
+        Card card = new Card();
+        card.setId(cardId);
+        card.setEncryptedNumber("enc");
+        card.setLast4("5678");
+
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(aesEncryptionUtil.decrypt("enc")).thenReturn("1234567812345678");
+
+        // Act
+        String result = cardService.revealNumber(cardId);
+
+        // Assert
+        assertEquals("1234567812345678", result);
+    }
+
+    @Test
+    void revealNumber_shouldThrowCardNotFoundException_whenCardNotExists() {
+        // Arrange
+        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act | Assert
+        assertThrows(CardNotFoundException.class, () -> cardService.revealNumber(1L));
+        verifyNoInteractions(aesEncryptionUtil);
     }
 
     @Test
@@ -143,17 +392,19 @@ class CardServiceImplTest {
         Sort sort = mock(Sort.class);
         PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
 
-        List<Card> cardList = List.of(mock(Card.class), mock(Card.class));
-        Page<Card> cards = new PageImpl<>(cardList, pageRequest, cardList.size());
+        List<CardSummary> cardList = List.of(summary(1L, "1234", 0), summary(2L, "5678", 0));
+        Page<CardSummary> cards = new PageImpl<>(cardList, pageRequest, cardList.size());
 
-        when(cardRepository.findAllByOwnerId(ownerId, pageRequest)).thenReturn(cards);
+        when(cardRepository.findSummariesByOwnerId(ownerId, pageRequest)).thenReturn(cards);
 
         // Act
-        List<Card> result = cardService.getAllByOwner(ownerId, pageNumber, pageSize, sort);
+        List<CardSummary> result = cardService.getAllByOwner(ownerId, pageNumber, pageSize, sort);
 
         // Assert
-        assertEquals(2, result.size());
-        verify(cardRepository, times(1)).findAllByOwnerId(ownerId, pageRequest);
+        assertEquals(cardList, result);
+        verify(cardRepository, times(1)).findSummariesByOwnerId(ownerId, pageRequest);
+        verify(cardRepository, never()).sumStripesByCardIds(any());
+        verifyNoInteractions(aesEncryptionUtil);
     }
 
     @Test
@@ -164,28 +415,193 @@ class CardServiceImplTest {
         Sort sort = mock(Sort.class);
         PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
 
-        List<Card> cardList = List.of(mock(Card.class), mock(Card.class));
-        Page<Card> cards = new PageImpl<>(cardList, pageRequest, cardList.size());
+        List<CardSummary> cardList = List.of(summary(1L, "1234", 0), summary(2L, "5678", 0));
+        Page<CardSummary> cards = new PageImpl<>(cardList, pageRequest, cardList.size());
 
-        when(cardRepository.findAll(pageRequest)).thenReturn(cards);
+        when(cardRepository.findSummaries(pageRequest)).thenReturn(cards);
 
         // Act
-        List<Card> result = cardService.getAll(pageNumber, pageSize, sort);
+        List<CardSummary> result = cardService.getAll(pageNumber, pageSize, sort);
 
         // Assert
-        assertEquals(2, result.size());
-        verify(cardRepository, times(1)).findAll(pageRequest);
+        assertEquals(cardList, result);
+        verify(cardRepository, times(1)).findSummaries(pageRequest);
+        verifyNoInteractions(aesEncryptionUtil);
+    }
+
+    @Test
+    void findAll_shouldFillLast4AndPendingBalance_whenPageHasLegacyAndStripedCards() {
+        // Arrange
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        CardSummary plainCard = summary(1L, "1234", 0);
+        CardSummary legacyCard = new CardSummary(
+                2L, null, "encrypted", 1L, YearMonth.of(2030, 1), CardStatus.ACTIVE, 100L, 0
+        );
+        CardSummary stripedCard = summary(3L, "5678", 4);
+        List<CardSummary> cardList = List.of(plainCard, legacyCard, stripedCard);
+
+        CardPendingBalance pending = mock(CardPendingBalance.class);
+        when(pending.getCardId()).thenReturn(3L);
+        when(pending.getAmountMinor()).thenReturn(250L);
+
+        when(cardRepository.findSummaries(pageRequest)).thenReturn(new PageImpl<>(cardList, pageRequest, 3));
+        when(aesEncryptionUtil.decryptAll(List.of("encrypted"))).thenReturn(List.of("2200000000009999"));
+        when(cardRepository.sumStripesByCardIds(List.of(3L))).thenReturn(List.of(pending));
+
+        // Act
+        List<CardSummary> result = cardService.getAll(0, 10, Sort.unsorted());
+
+        // Assert
+        assertEquals(3, result.size());
+        assertEquals(plainCard, result.get(0));
+        assertEquals("9999", result.get(1).last4());
+        assertEquals(250L, result.get(2).pendingBalanceMinor());
+        assertEquals(new BigDecimal("3.50"), result.get(2).totalBalance());
+    }
+
+    @Test
+    void scrollAll_shouldSeekByExpirationDateAndId_whenCursorGiven() {
+        // Arrange
+        CardSummary card = summary(8L, "1234", 0);
+        when(cardRepository.findSummariesAfterExpirationDate(YearMonth.of(2030, 1), 7L, Limit.of(3)))
+                .thenReturn(List.of(card));
+
+        // Act
+        List<CardSummary> result = cardService.scrollAll(CardSort.DATE_ASC, new CursorCodec.Keyset(7L, "2030-01"), 3);
+
+        // Assert
+        assertEquals(List.of(card), result);
+        verify(cardRepository, never()).findSummaries(any(PageRequest.class));
+        verifyNoInteractions(aesEncryptionUtil);
+    }
+
+    @Test
+    void scrollAllByOwner_shouldStartAfterZero_whenNoCursor() {
+        // Arrange
+        when(cardRepository.findSummariesByOwnerIdAfterId(1L, 0L, Limit.of(3))).thenReturn(List.of());
+
+        // Act
+        List<CardSummary> result = cardService.scrollAllByOwner(1L, CardSort.ID_ASC, null, 3);
+
+        // Assert
+        assertEquals(0, result.size());
+        verify(cardRepository, times(1)).findSummariesByOwnerIdAfterId(1L, 0L, Limit.of(3));
+    }
+
+    @Test
+    void scrollAll_shouldThrowBusinessLogicException_whenDateCursorIsInvalid() {
+        // Act | Assert
+        assertThrows(BusinessLogicException.class,
+                () -> cardService.scrollAll(CardSort.DATE_ASC, new CursorCodec.Keyset(7L, "garbage"), 3));
+        assertThrows(BusinessLogicException.class,
+                () -> cardService.scrollAll(CardSort.DATE_ASC, new CursorCodec.Keyset(7L, null), 3));
+
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void search_shouldQueryWithLimit_andFillPendingBalances() {
+        // Arrange
+        CardSearchFilter filter = new CardSearchFilter(
+                1L, CardStatus.BLOCKED, YearMonth.of(2030, 1), YearMonth.of(2030, 6), BigDecimal.ZERO, new BigDecimal("100.00")
+        );
+        CardSummary card = summary(8L, "1234", 2);
+        CardPendingBalance pending = mock(CardPendingBalance.class);
+        when(pending.getCardId()).thenReturn(8L);
+        when(pending.getAmountMinor()).thenReturn(300L);
+
+        when(cardRepository.searchSummaries(any(), eq(Limit.of(3)))).thenReturn(List.of(card));
+        when(cardRepository.sumStripesByCardIds(List.of(8L))).thenReturn(List.of(pending));
+
+        // Act
+        List<CardSummary> result = cardService.search(filter, 7L, 3);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(300L, result.get(0).pendingBalanceMinor());
+        verifyNoInteractions(aesEncryptionUtil);
+    }
+
+    @Test
+    void search_shouldThrowBusinessLogicException_whenBalanceHasTooManyDecimals() {
+        // Arrange
+        CardSearchFilter filter = new CardSearchFilter(null, null, null, null, new BigDecimal("0.001"), null);
+
+        // Act | Assert
+        assertThrows(BusinessLogicException.class, () -> cardService.search(filter, null, 3));
+
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void exportAll_shouldPassFilledCardsInOrder_andClearPersistenceContext() {
+        // Arrange
+        Card plainCard = new Card();
+        plainCard.setId(1L);
+        plainCard.setLast4("1234");
+
+        Card legacyCard = new Card();
+        legacyCard.setId(2L);
+        legacyCard.setEncryptedNumber("encrypted");
+
+        Card stripedCard = new Card();
+        stripedCard.setId(3L);
+        stripedCard.setLast4("5678");
+        stripedCard.setBalanceStripes(4);
+
+        CardPendingBalance pending = mock(CardPendingBalance.class);
+        when(pending.getCardId()).thenReturn(3L);
+        when(pending.getAmountMinor()).thenReturn(250L);
+
+        when(cardRepository.streamAll()).thenReturn(Stream.of(plainCard, legacyCard, stripedCard));
+        when(aesEncryptionUtil.decryptAll(List.of("encrypted"))).thenReturn(List.of("2200000000009999"));
+        when(cardRepository.sumStripesByCardIds(Set.of(3L))).thenReturn(List.of(pending));
+
+        List<Card> exported = new ArrayList<>();
+
+        // Act
+        long count = cardService.exportAll(exported::add);
+
+        // Assert
+        assertEquals(3, count);
+        assertEquals(List.of(plainCard, legacyCard, stripedCard), exported);
+        assertEquals("9999", legacyCard.getLast4());
+        assertEquals(250L, stripedCard.getPendingBalanceMinor());
+        verify(entityManager, times(1)).clear();
+    }
+
+    @Test
+    void exportAll_shouldClearPersistenceContextAfterEveryChunk() {
+        // Arrange
+        List<Card> cards = LongStream.rangeClosed(1, 2001)
+                .mapToObj(id -> {
+                    Card card = new Card();
+                    card.setId(id);
+                    card.setLast4("1234");
+                    return card;
+                })
+                .toList();
+        when(cardRepository.streamAll()).thenReturn(cards.stream());
+
+        // Act
+        long count = cardService.exportAll(card -> {
+        });
+
+        // Assert
+        assertEquals(2001, count);
+        verify(entityManager, times(3)).clear();
+        verify(cardRepository, never()).sumStripesByCardIds(any());
     }
 
     @Test
     void getBalance_shouldReturnBalance_whenCardExists() {
         // Arrange
         Long ownerId = 1L;
-        BigDecimal balance = BigDecimal.valueOf(1000.0);
+        BigDecimal balance = new BigDecimal("1000.00");
 
         Long cardId = 1L;
         Card card = new Card();
-        card.setBalance(balance);
+        card.setBalanceMinor(100_000L);
         card.setId(cardId);
         card.setStatus(CardStatus.ACTIVE);
         card.setExpirationDate(YearMonth.now().plusMonths(1));
@@ -201,6 +617,28 @@ class CardServiceImplTest {
         verify(cardRepository, times(1)).findByIdAndOwnerId(cardId, ownerId);
     }
 
+    @Test
+    void getBalance_shouldAddPendingStripes_whenCardIsStriped() {
+        // Arrange
+        Long ownerId = 1L;
+        Long cardId = 1L;
+        Card card = new Card();
+        card.setBalanceMinor(100_000L);
+        card.setBalanceStripes(4);
+        card.setId(cardId);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setExpirationDate(YearMonth.now().plusMonths(1));
+
+        when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
+        when(cardRepository.sumStripes(cardId)).thenReturn(25_000L);
+
+        // Act
+        BigDecimal result = cardService.getBalance(cardId, ownerId);
+
+        // Assert
+        assertEquals(new BigDecimal("1250.00"), result);
+    }
+
     @Test
     void getBalance_shouldThrowCardNotFoundException_whenCardNotExists() {
         // Arrange
@@ -403,7 +841,7 @@ class CardServiceImplTest {
         Card card = new Card();
         card.setId(cardId);
         card.setStatus(CardStatus.ACTIVE);
-        card.setBalance(BigDecimal.valueOf(0.0));
+        card.setBalanceMinor(0L);
         card.setExpirationDate(YearMonth.now().plusMonths(1));
 
         when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
@@ -412,11 +850,88 @@ class CardServiceImplTest {
         cardService.deposit(cardId, amount, ownerId);
 
         // Assert
-        assertEquals(BigDecimal.valueOf(100.0), card.getBalance());
+        assertEquals(10_000L, card.getBalanceMinor());
         verify(cardRepository, times(1)).findByIdAndOwnerId(cardId, ownerId);
         verify(cardRepository, times(1)).save(card);
     }
 
+    @Test
+    void deposit_shouldCreditStripe_whenCardIsStriped() {
+        // Arrange
+        Long ownerId = 1L;
+        Long cardId = 1L;
+        BigDecimal amount = BigDecimal.valueOf(100L);
+
+        Card card = new Card();
+        card.setId(cardId);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalanceMinor(0L);
+        card.setBalanceStripes(4);
+        card.setExpirationDate(YearMonth.now().plusMonths(1));
+
+        when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
+        when(cardRepository.creditStripe(eq(cardId), anyInt(), eq(10_000L))).thenReturn(1);
+
+        // Act
+        cardService.deposit(cardId, amount, ownerId);
+
+        // Assert
+        assertEquals(0L, card.getBalanceMinor());
+        verify(cardRepository, times(1)).creditStripe(eq(cardId), intThat(stripe -> stripe >= 0 && stripe < 4), eq(10_000L));
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void updateBalanceStripes_shouldFoldStripesBeforeSaving() {
+        // Arrange
+        Long cardId = 1L;
+        Card card = new Card();
+        card.setId(cardId);
+
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+
+        // Act
+        cardService.updateBalanceStripes(cardId, 8);
+
+        // Assert
+        assertEquals(8, card.getBalanceStripes());
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).lockAllByIdIn(List.of(cardId));
+        inOrder.verify(cardRepository).foldStripes(cardId);
+        inOrder.verify(cardRepository).findById(cardId);
+        inOrder.verify(cardRepository).saveAndFlush(card);
+        verify(cardRepository, times(1)).foldStripes(cardId);
+    }
+
+    @Test
+    void updateBalanceStripes_shouldFoldAgainAfterSaving_whenStripesAreDisabled() {
+        // Arrange
+        Long cardId = 1L;
+        Card card = new Card();
+        card.setId(cardId);
+        card.setBalanceStripes(8);
+
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+
+        // Act
+        cardService.updateBalanceStripes(cardId, 0);
+
+        // Assert
+        assertEquals(0, card.getBalanceStripes());
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).lockAllByIdIn(List.of(cardId));
+        inOrder.verify(cardRepository).foldStripes(cardId);
+        inOrder.verify(cardRepository).saveAndFlush(card);
+        inOrder.verify(cardRepository).foldStripes(cardId);
+    }
+
+    @Test
+    void updateBalanceStripes_shouldThrowBusinessLogicException_whenCountOutOfRange() {
+        // Act | Assert
+        assertThrows(BusinessLogicException.class, () -> cardService.updateBalanceStripes(1L, 65));
+        verifyNoInteractions(cardRepository);
+    }
+
     @Test
     void deposit_shouldThrowCardNotFoundException_whenCardNotExists() {
         // Arrange
@@ -463,7 +978,7 @@ class CardServiceImplTest {
         Card card = new Card();
         card.setId(cardId);
         card.setStatus(CardStatus.BLOCKED);
-        card.setBalance(BigDecimal.valueOf(0.0));
+        card.setBalanceMinor(0L);
         card.setExpirationDate(YearMonth.now().plusMonths(1));
 
         when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
@@ -488,7 +1003,7 @@ class CardServiceImplTest {
         Card card = new Card();
         card.setId(cardId);
         card.setStatus(CardStatus.ACTIVE);
-        card.setBalance(BigDecimal.valueOf(0.0));
+        card.setBalanceMinor(0L);
         card.setExpirationDate(YearMonth.now().minusMonths(1));
 
         when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
@@ -502,4 +1017,13 @@ class CardServiceImplTest {
         verify(cardRepository, times(1)).findByIdAndOwnerId(cardId, ownerId);
         verify(cardRepository, never()).save(card);
     }
-}
\ No newline at end of file
+
+    private static CardSummary summary(Long id, String last4, int balanceStripes) {
+        return new CardSummary(id, last4, null, 1L, YearMonth.of(2030, 1), CardStatus.ACTIVE, 100L, balanceStripes);
+    }
+
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key value", new SQLException(), constraintName));
+    }
+}
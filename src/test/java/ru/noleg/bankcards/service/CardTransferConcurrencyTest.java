@@ -0,0 +1,169 @@
+package ru.noleg.bankcards.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.noleg.bankcards.AbstractPostgresIntegrationTest;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.util.Money;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardTransferConcurrencyTest extends AbstractPostgresIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardTransferConcurrencyTest.class);
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+
+    @Autowired
+    private CardTransferService cardTransferService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long ownerId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User(null, UUID.randomUUID() + "@test.com", "password", "Test", "Owner", null, Role.ROLE_USER);
+        ownerId = userRepository.save(owner).getId();
+    }
+
+    @Test
+    void transfer_shouldNotLoseUpdates_whenHotCardIsUsedConcurrently() throws Exception {
+        // Arrange
+        Long hotCardId = createCard(BigDecimal.valueOf(1_000_000));
+        List<Long> otherCardIds = createCards(THREADS, BigDecimal.valueOf(1_000_000));
+
+        // Act
+        int completed = this.runOnHotCard(hotCardId, otherCardIds);
+
+        // Assert
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, completed);
+        assertEquals(0, BigDecimal.valueOf(1_000_000).compareTo(balanceOf(hotCardId)));
+        for (int i = 0; i < THREADS; i++) {
+            BigDecimal expected = BigDecimal.valueOf(1_000_000 + (i % 2 == 0 ? TRANSFERS_PER_THREAD : -TRANSFERS_PER_THREAD));
+            assertEquals(0, expected.compareTo(balanceOf(otherCardIds.get(i))));
+        }
+    }
+
+    @Test
+    void transfer_shouldNeverOverdraw_whenConcurrentTransfersExceedBalance() throws Exception {
+        // Arrange
+        Long fromCardId = createCard(BigDecimal.valueOf(100));
+        Long toCardId = createCard(BigDecimal.ZERO);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < THREADS * 20; i++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    cardTransferService.transfer(ownerId, fromCardId, toCardId, BigDecimal.ONE);
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException ignored) {
+                    // insufficient funds is the expected outcome once the card is drained
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(100, succeeded.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balanceOf(fromCardId)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(balanceOf(toCardId)));
+        assertTrue(balanceOf(fromCardId).signum() >= 0);
+    }
+
+    /**
+     * Even threads drain the hot card, odd threads fill it, so both lock orders are exercised.
+     * Failed transfers are logged, not rethrown, and left out of the returned count.
+     * Throughput against the read-modify-write path is measured by HotCardTransferBenchmark.
+     */
+    private int runOnHotCard(Long hotCardId, List<Long> otherCardIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            Long otherCardId = otherCardIds.get(i);
+            boolean fromHotCard = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    try {
+                        if (fromHotCard) {
+                            cardTransferService.transfer(ownerId, hotCardId, otherCardId, BigDecimal.ONE);
+                        } else {
+                            cardTransferService.transfer(ownerId, otherCardId, hotCardId, BigDecimal.ONE);
+                        }
+                        completed.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        logger.debug("Transfer failed under load: {}", e.getMessage());
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        return completed.get();
+    }
+
+    private List<Long> createCards(int count, BigDecimal balance) {
+        List<Long> cardIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cardIds.add(createCard(balance));
+        }
+        return cardIds;
+    }
+
+    private Long createCard(BigDecimal balance) {
+        Card card = new Card();
+        card.setOwner(userRepository.getReferenceById(ownerId));
+        card.setEncryptedNumber(UUID.randomUUID().toString());
+        card.setExpirationDate(YearMonth.now().plusYears(1));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalanceMinor(Money.toMinor(balance));
+        return cardRepository.save(card).getId();
+    }
+
+    private BigDecimal balanceOf(Long cardId) {
+        return Money.toDecimal(cardRepository.findById(cardId).orElseThrow().getBalanceMinor());
+    }
+}
@@ -1,24 +1,37 @@
 package ru.noleg.bankcards.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.noleg.bankcards.dto.transfer.BatchTransferMode;
+import ru.noleg.bankcards.dto.transfer.TransferDto;
+import ru.noleg.bankcards.dto.transfer.TransferResultDto;
 import ru.noleg.bankcards.entity.Card;
 import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.TransferStatus;
 import ru.noleg.bankcards.exception.error.BusinessLogicException;
 import ru.noleg.bankcards.exception.error.CardNotFoundException;
 import ru.noleg.bankcards.exception.error.CardTransferException;
 import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.service.impl.CardTransferOperations;
 import ru.noleg.bankcards.service.impl.CardTransferServiceImpl;
+import ru.noleg.bankcards.util.Money;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -28,9 +41,18 @@ class CardTransferServiceImplTest {
     @Mock
     private CardRepository cardRepository;
 
-    @InjectMocks
+    @Mock
+    private TransferJournalService transferJournalService;
+
     private CardTransferServiceImpl cardTransferService;
 
+    @BeforeEach
+    void setUp() {
+        cardTransferService = new CardTransferServiceImpl(
+                cardRepository, new CardTransferOperations(cardRepository, transferJournalService)
+        );
+    }
+
     @Test
     void transfer_shouldTransferToCard_whenAllValid() {
         // Arrange
@@ -38,35 +60,44 @@ class CardTransferServiceImplTest {
         BigDecimal amount = BigDecimal.valueOf(100L);
 
         Long fromCardId = 10L;
-        Card fromCard = new Card();
-        fromCard.setId(fromCardId);
-        fromCard.setBalance(BigDecimal.valueOf(200L));
-        fromCard.setStatus(CardStatus.ACTIVE);
-        fromCard.setExpirationDate(YearMonth.now().plusMonths(1));
-
         Long toCardId = 20L;
-        Card toCard = new Card();
-        toCard.setId(toCardId);
-        toCard.setBalance(BigDecimal.valueOf(50L));
-        toCard.setStatus(CardStatus.ACTIVE);
-        toCard.setExpirationDate(YearMonth.now().plusMonths(1));
 
-        when(cardRepository.findByIdAndOwnerId(fromCardId, ownerId)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerId(toCardId, ownerId)).thenReturn(Optional.of(toCard));
+        when(cardRepository.debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(1);
+        when(cardRepository.credit(eq(toCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(1);
 
         // Act
         cardTransferService.transfer(ownerId, fromCardId, toCardId, amount);
 
         // Assert
-        assertEquals(BigDecimal.valueOf(100L), fromCard.getBalance());
-        assertEquals(BigDecimal.valueOf(150L), toCard.getBalance());
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString());
+        inOrder.verify(cardRepository).credit(eq(toCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString());
+        verify(cardRepository, never()).findByIdAndOwnerId(any(), any());
+        verify(cardRepository, never()).save(any());
+        verify(transferJournalService, times(1)).record(argThat(record ->
+                record.getStatus() == TransferStatus.COMPLETED && record.getAmountMinor() == 10_000L
+        ));
+    }
 
-        verify(cardRepository, times(1))
-                .findByIdAndOwnerId(fromCardId, ownerId);
-        verify(cardRepository, times(1))
-                .findByIdAndOwnerId(toCardId, ownerId);
-        verify(cardRepository, times(1)).save(fromCard);
-        verify(cardRepository, times(1)).save(toCard);
+    @Test
+    void transfer_shouldTouchCardsInAscendingIdOrder_whenSenderIdIsGreater() {
+        // Arrange
+        Long ownerId = 1L;
+        Long fromCardId = 20L;
+        Long toCardId = 10L;
+        BigDecimal amount = BigDecimal.valueOf(100L);
+
+        when(cardRepository.credit(eq(toCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(1);
+        when(cardRepository.debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(1);
+
+        // Act
+        cardTransferService.transfer(ownerId, fromCardId, toCardId, amount);
+
+        // Assert
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).credit(eq(toCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString());
+        inOrder.verify(cardRepository).debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString());
+        verify(cardRepository, never()).findByIdAndOwnerId(any(), any());
     }
 
     @Test
@@ -82,9 +113,9 @@ class CardTransferServiceImplTest {
                 cardTransferService.transfer(ownerId, fromCardId, toCardId, negativeAmount));
         assertEquals("Amount can't be negative", ex.getMessage());
 
-        verify(cardRepository, never()).findByIdAndOwnerId(ownerId, fromCardId);
-        verify(cardRepository, never()).findByIdAndOwnerId(ownerId, toCardId);
-        verify(cardRepository, never()).save(any());
+        verify(cardRepository, never()).debit(any(), any(), anyLong(), any());
+        verify(cardRepository, never()).credit(any(), any(), anyLong(), any());
+        verifyNoInteractions(transferJournalService);
     }
 
     @Test
@@ -100,9 +131,32 @@ class CardTransferServiceImplTest {
                 cardTransferService.transfer(ownerId, fromCardId, toCardId, amount));
         assertEquals("Can't transfer to the same card", ex.getMessage());
 
-        verify(cardRepository, never()).findByIdAndOwnerId(ownerId, fromCardId);
-        verify(cardRepository, never()).findByIdAndOwnerId(ownerId, toCardId);
-        verify(cardRepository, never()).save(any());
+        verify(cardRepository, never()).debit(any(), any(), anyLong(), any());
+        verify(cardRepository, never()).credit(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void transfer_shouldFoldStripesAndRetryDebit_whenMainBalanceInsufficient() {
+        // Arrange
+        Long ownerId = 1L;
+        Long fromCardId = 10L;
+        Long toCardId = 20L;
+        BigDecimal amount = BigDecimal.valueOf(100L);
+
+        when(cardRepository.debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(0, 1);
+        when(cardRepository.foldStripes(fromCardId)).thenReturn(1);
+        when(cardRepository.credit(eq(toCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(1);
+
+        // Act
+        cardTransferService.transfer(ownerId, fromCardId, toCardId, amount);
+
+        // Assert
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString());
+        inOrder.verify(cardRepository).foldStripes(fromCardId);
+        inOrder.verify(cardRepository).debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString());
+        inOrder.verify(cardRepository).credit(eq(toCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString());
+        verify(cardRepository, never()).findByIdAndOwnerId(any(), any());
     }
 
     @Test
@@ -113,6 +167,7 @@ class CardTransferServiceImplTest {
         Long toCardId = 20L;
         BigDecimal amount = BigDecimal.valueOf(100L);
 
+        when(cardRepository.debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(0);
         when(cardRepository.findByIdAndOwnerId(fromCardId, ownerId)).thenReturn(Optional.empty());
 
         // Act | Assert
@@ -124,7 +179,7 @@ class CardTransferServiceImplTest {
                 .findByIdAndOwnerId(fromCardId, ownerId);
         verify(cardRepository, never())
                 .findByIdAndOwnerId(toCardId, ownerId);
-        verify(cardRepository, never()).save(any());
+        verify(cardRepository, never()).credit(any(), any(), anyLong(), any());
     }
 
     @Test
@@ -135,6 +190,8 @@ class CardTransferServiceImplTest {
         Long toCardId = 20L;
         BigDecimal amount = BigDecimal.valueOf(100L);
 
+        when(cardRepository.debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(1);
+        when(cardRepository.credit(eq(toCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(0);
         when(cardRepository.findByIdAndOwnerId(fromCardId, ownerId)).thenReturn(Optional.of(new Card()));
         when(cardRepository.findByIdAndOwnerId(toCardId, ownerId)).thenReturn(Optional.empty());
 
@@ -147,7 +204,6 @@ class CardTransferServiceImplTest {
                 .findByIdAndOwnerId(fromCardId, ownerId);
         verify(cardRepository, times(1))
                 .findByIdAndOwnerId(toCardId, ownerId);
-        verify(cardRepository, never()).save(any());
     }
 
     @Test
@@ -166,6 +222,7 @@ class CardTransferServiceImplTest {
         toCard.setId(toCardId);
         toCard.setStatus(CardStatus.ACTIVE);
 
+        when(cardRepository.debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(0);
         when(cardRepository.findByIdAndOwnerId(fromCardId, ownerId)).thenReturn(Optional.of(fromCard));
         when(cardRepository.findByIdAndOwnerId(toCardId, ownerId)).thenReturn(Optional.of(toCard));
 
@@ -178,8 +235,10 @@ class CardTransferServiceImplTest {
                 .findByIdAndOwnerId(fromCardId, ownerId);
         verify(cardRepository, times(1))
                 .findByIdAndOwnerId(toCardId, ownerId);
-        verify(cardRepository, never()).save(fromCard);
-        verify(cardRepository, never()).save(toCard);
+        verify(cardRepository, never()).credit(any(), any(), anyLong(), any());
+        verify(transferJournalService, times(1)).record(argThat(record ->
+                record.getStatus() == TransferStatus.FAILED && record.getError().contains("non active")
+        ));
     }
 
     @Test
@@ -199,6 +258,7 @@ class CardTransferServiceImplTest {
         toCard.setId(toCardId);
         toCard.setStatus(CardStatus.ACTIVE);
 
+        when(cardRepository.debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(0);
         when(cardRepository.findByIdAndOwnerId(fromCardId, ownerId)).thenReturn(Optional.of(fromCard));
         when(cardRepository.findByIdAndOwnerId(toCardId, ownerId)).thenReturn(Optional.of(toCard));
 
@@ -211,8 +271,7 @@ class CardTransferServiceImplTest {
                 .findByIdAndOwnerId(fromCardId, ownerId);
         verify(cardRepository, times(1))
                 .findByIdAndOwnerId(toCardId, ownerId);
-        verify(cardRepository, never()).save(fromCard);
-        verify(cardRepository, never()).save(toCard);
+        verify(cardRepository, never()).credit(any(), any(), anyLong(), any());
     }
 
     @Test
@@ -224,17 +283,18 @@ class CardTransferServiceImplTest {
         Long fromCardId = 10L;
         Card fromCard = new Card();
         fromCard.setId(fromCardId);
-        fromCard.setBalance(BigDecimal.valueOf(50L));
+        fromCard.setBalanceMinor(5_000L);
         fromCard.setStatus(CardStatus.ACTIVE);
         fromCard.setExpirationDate(YearMonth.now().plusMonths(1));
 
         Long toCardId = 20L;
         Card toCard = new Card();
         toCard.setId(toCardId);
-        toCard.setBalance(BigDecimal.valueOf(50L));
+        toCard.setBalanceMinor(5_000L);
         toCard.setStatus(CardStatus.ACTIVE);
         toCard.setExpirationDate(YearMonth.now().plusMonths(1));
 
+        when(cardRepository.debit(eq(fromCardId), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(0);
         when(cardRepository.findByIdAndOwnerId(fromCardId, ownerId)).thenReturn(Optional.of(fromCard));
         when(cardRepository.findByIdAndOwnerId(toCardId, ownerId)).thenReturn(Optional.of(toCard));
 
@@ -247,7 +307,122 @@ class CardTransferServiceImplTest {
                 .findByIdAndOwnerId(fromCardId, ownerId);
         verify(cardRepository, times(1))
                 .findByIdAndOwnerId(toCardId, ownerId);
-        verify(cardRepository, never()).save(fromCard);
-        verify(cardRepository, never()).save(toCard);
+        verify(cardRepository, never()).credit(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void transferBatch_shouldApplyAllTransfers_whenAllValid() {
+        // Arrange
+        Long ownerId = 1L;
+        Card first = activeCard(10L, 300L);
+        Card second = activeCard(20L, 0L);
+        Card third = activeCard(30L, 0L);
+
+        List<TransferDto> transfers = List.of(
+                new TransferDto(10L, 20L, BigDecimal.valueOf(100L)),
+                new TransferDto(10L, 30L, BigDecimal.valueOf(150L)),
+                new TransferDto(20L, 30L, BigDecimal.valueOf(50L))
+        );
+
+        when(cardRepository.findAllForUpdateByIdInAndOwnerId(anyCollection(), eq(ownerId)))
+                .thenReturn(List.of(first, second, third));
+
+        // Act
+        List<TransferResultDto> results =
+                cardTransferService.transferBatch(ownerId, transfers, BatchTransferMode.ALL_OR_NOTHING);
+
+        // Assert
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(result -> result.status() == TransferStatus.COMPLETED));
+        assertEquals(5_000L, first.getBalanceMinor());
+        assertEquals(5_000L, second.getBalanceMinor());
+        assertEquals(20_000L, third.getBalanceMinor());
+
+        verify(cardRepository, times(1)).findAllForUpdateByIdInAndOwnerId(anyCollection(), eq(ownerId));
+        verify(cardRepository, never()).findByIdAndOwnerId(any(), any());
+    }
+
+    @Test
+    void transferBatch_shouldThrowBusinessLogicException_whenAllOrNothingAndItemFails() {
+        // Arrange
+        Long ownerId = 1L;
+        Card first = activeCard(10L, 100L);
+        Card second = activeCard(20L, 0L);
+
+        List<TransferDto> transfers = List.of(
+                new TransferDto(10L, 20L, BigDecimal.valueOf(100L)),
+                new TransferDto(10L, 20L, BigDecimal.valueOf(1L))
+        );
+
+        when(cardRepository.findAllForUpdateByIdInAndOwnerId(anyCollection(), eq(ownerId)))
+                .thenReturn(List.of(first, second));
+
+        // Act | Assert
+        BusinessLogicException ex = assertThrows(BusinessLogicException.class, () ->
+                cardTransferService.transferBatch(ownerId, transfers, BatchTransferMode.ALL_OR_NOTHING));
+        assertEquals("Insufficient funds on the sender card.", ex.getMessage());
+    }
+
+    @Test
+    void transferBatch_shouldReportFailedItems_whenPerItemMode() {
+        // Arrange
+        Long ownerId = 1L;
+        Card first = activeCard(10L, 100L);
+        Card second = activeCard(20L, 0L);
+
+        List<TransferDto> transfers = List.of(
+                new TransferDto(10L, 20L, BigDecimal.valueOf(80L)),
+                new TransferDto(10L, 20L, BigDecimal.valueOf(50L)),
+                new TransferDto(10L, 99L, BigDecimal.valueOf(10L)),
+                new TransferDto(10L, 20L, BigDecimal.valueOf(20L))
+        );
+
+        when(cardRepository.findAllForUpdateByIdInAndOwnerId(anyCollection(), eq(ownerId)))
+                .thenReturn(List.of(first, second));
+
+        // Act
+        List<TransferResultDto> results =
+                cardTransferService.transferBatch(ownerId, transfers, BatchTransferMode.PER_ITEM);
+
+        // Assert
+        assertEquals(TransferStatus.COMPLETED, results.get(0).status());
+        assertEquals(TransferStatus.FAILED, results.get(1).status());
+        assertEquals("Insufficient funds on the sender card.", results.get(1).error());
+        assertEquals(TransferStatus.FAILED, results.get(2).status());
+        assertEquals("Recipient card not found with ID 99", results.get(2).error());
+        assertEquals(TransferStatus.COMPLETED, results.get(3).status());
+
+        assertEquals(0L, first.getBalanceMinor());
+        assertEquals(10_000L, second.getBalanceMinor());
+    }
+
+    @Test
+    void transfer_shouldThrowBusinessLogicException_whenRecipientBalanceWouldOverflow() {
+        // Arrange
+        Long ownerId = 1L;
+        BigDecimal amount = BigDecimal.valueOf(100L);
+
+        Card fromCard = activeCard(10L, 1_000L);
+        Card toCard = activeCard(20L, 0L);
+        toCard.setBalanceMinor(Long.MAX_VALUE - 1);
+
+        when(cardRepository.debit(eq(10L), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(1);
+        when(cardRepository.credit(eq(20L), eq(ownerId), eq(Money.toMinor(amount)), anyString())).thenReturn(0);
+        when(cardRepository.findByIdAndOwnerId(10L, ownerId)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerId(20L, ownerId)).thenReturn(Optional.of(toCard));
+
+        // Act | Assert
+        BusinessLogicException ex = assertThrows(BusinessLogicException.class,
+                () -> cardTransferService.transfer(ownerId, 10L, 20L, amount));
+        assertEquals("Resulting amount is out of the supported range", ex.getMessage());
+    }
+
+    private Card activeCard(Long id, long balance) {
+        Card card = new Card();
+        card.setId(id);
+        card.setBalanceMinor(balance * 100);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setExpirationDate(YearMonth.now().plusMonths(1));
+        return card;
     }
-}
\ No newline at end of file
+}
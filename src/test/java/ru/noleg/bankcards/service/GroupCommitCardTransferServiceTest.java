@@ -0,0 +1,187 @@
+package ru.noleg.bankcards.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+import ru.noleg.bankcards.exception.error.TransferUnavailableException;
+import ru.noleg.bankcards.service.impl.CardTransferOperations;
+import ru.noleg.bankcards.service.impl.CardTransferServiceImpl;
+import ru.noleg.bankcards.service.impl.GroupCommitCardTransferService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitCardTransferServiceTest {
+
+    @Mock
+    private CardTransferServiceImpl delegate;
+
+    @Mock
+    private CardTransferOperations cardTransferOperations;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GroupCommitCardTransferService groupCommitService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        groupCommitService = new GroupCommitCardTransferService(
+                delegate, cardTransferOperations, transactionManager, entityManager, meterRegistry,
+                10, Duration.ofMillis(50), 100, Duration.ofSeconds(1)
+        );
+        groupCommitService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        groupCommitService.stop();
+    }
+
+    @Test
+    void transfer_shouldApplyTransferInSharedTransaction() {
+        // Act
+        groupCommitService.transfer(1L, 1L, 2L, BigDecimal.TEN);
+
+        // Assert
+        InOrder inOrder = inOrder(cardTransferOperations);
+        inOrder.verify(cardTransferOperations).lockCards(Set.of(1L, 2L));
+        inOrder.verify(cardTransferOperations).transfer(1L, 1L, 2L, BigDecimal.TEN);
+        verifyNoInteractions(delegate);
+        DistributionSummary batchSize = meterRegistry.get("bankcards.transfer.group.commit.batch.size").summary();
+        assertEquals(1, batchSize.count());
+    }
+
+    @Test
+    void transfer_shouldFailOnlyInvalidTransfer_whenBatchedWithOthers() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            if (invocation.getArgument(1).equals(3L)) {
+                throw new BusinessLogicException("Insufficient funds on the sender card.");
+            }
+            return null;
+        }).when(cardTransferOperations).transfer(any(), any(), any(), any());
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            results.add(executor.submit(() -> awaitAndTransfer(start, 1L, 2L)));
+            results.add(executor.submit(() -> awaitAndTransfer(start, 3L, 4L)));
+            results.add(executor.submit(() -> awaitAndTransfer(start, 5L, 6L)));
+
+            // Act
+            start.countDown();
+
+            // Assert
+            assertDoesNotThrow(() -> results.get(0).get());
+            Exception failure = assertThrows(Exception.class, () -> results.get(1).get());
+            assertInstanceOf(BusinessLogicException.class, failure.getCause());
+            assertDoesNotThrow(() -> results.get(2).get());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(transactionManager, atLeastOnce()).rollback(any());
+        verify(entityManager, times(1)).clear();
+    }
+
+    @Test
+    void transfer_shouldThrowTransferUnavailable_whenResultTimesOut() {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(cardTransferOperations).lockCards(any());
+
+        try {
+            // Act & Assert
+            TransferUnavailableException e = assertThrows(TransferUnavailableException.class,
+                    () -> groupCommitService.transfer(1L, 1L, 2L, BigDecimal.TEN));
+            assertEquals("Transfer is still being processed, check the card balance before retrying", e.getMessage());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void transfer_shouldKeepCommitting_whenCommitterHitsError() {
+        // Arrange
+        doThrow(new AssertionError("Unexpected"))
+                .doNothing()
+                .when(cardTransferOperations).lockCards(any());
+
+        // Act & Assert
+        assertThrows(AssertionError.class, () -> groupCommitService.transfer(1L, 1L, 2L, BigDecimal.TEN));
+        assertDoesNotThrow(() -> groupCommitService.transfer(1L, 3L, 4L, BigDecimal.TEN));
+        verify(cardTransferOperations, times(1)).transfer(1L, 3L, 4L, BigDecimal.TEN);
+    }
+
+    @Test
+    void transfer_shouldApplyDirectly_whenServiceIsStopped() throws InterruptedException {
+        // Arrange
+        groupCommitService.stop();
+
+        // Act
+        groupCommitService.transfer(1L, 1L, 2L, BigDecimal.TEN);
+
+        // Assert
+        verify(delegate, times(1)).transfer(1L, 1L, 2L, BigDecimal.TEN);
+        verifyNoInteractions(cardTransferOperations);
+    }
+
+    @Test
+    void transfer_shouldFailCaller_whenCommitFails() {
+        // Arrange
+        doAnswer(invocation -> {
+            throw new TransactionSystemException("Commit failed");
+        }).when(transactionManager).commit(any());
+
+        // Act & Assert
+        assertThrows(TransactionSystemException.class,
+                () -> groupCommitService.transfer(1L, 1L, 2L, BigDecimal.TEN));
+    }
+
+    @Test
+    void transferBatch_shouldDelegateDirectly() {
+        // Act
+        groupCommitService.transferBatch(1L, List.of(), null);
+
+        // Assert
+        verify(delegate, times(1)).transferBatch(1L, List.of(), null);
+        verifyNoInteractions(transactionManager);
+    }
+
+    private Void awaitAndTransfer(CountDownLatch start, Long fromCardId, Long toCardId) throws InterruptedException {
+        start.await();
+        groupCommitService.transfer(1L, fromCardId, toCardId, BigDecimal.ONE);
+        return null;
+    }
+}
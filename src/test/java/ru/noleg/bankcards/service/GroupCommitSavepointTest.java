@@ -0,0 +1,117 @@
+package ru.noleg.bankcards.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import ru.noleg.bankcards.AbstractPostgresIntegrationTest;
+import ru.noleg.bankcards.entity.Card;
+import ru.noleg.bankcards.entity.CardStatus;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+import ru.noleg.bankcards.repository.CardRepository;
+import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.service.impl.GroupCommitCardTransferService;
+import ru.noleg.bankcards.util.Money;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.transfer.group-commit.enabled=true",
+        "app.transfer.group-commit.max-batch-size=3",
+        "app.transfer.group-commit.max-delay=2s"
+})
+class GroupCommitSavepointTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private CardTransferService cardTransferService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long ownerId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User(null, UUID.randomUUID() + "@test.com", "password", "Test", "Owner", null, Role.ROLE_USER);
+        ownerId = userRepository.save(owner).getId();
+    }
+
+    @Test
+    void transfer_shouldCommitOtherTransfersOfGroup_whenOneTransferFails() throws Exception {
+        // Arrange
+        assertInstanceOf(GroupCommitCardTransferService.class, cardTransferService);
+
+        Long firstFromId = createCard(BigDecimal.valueOf(100));
+        Long firstToId = createCard(BigDecimal.ZERO);
+        Long poorFromId = createCard(BigDecimal.ONE);
+        Long poorToId = createCard(BigDecimal.ZERO);
+        Long lastFromId = createCard(BigDecimal.valueOf(100));
+        Long lastToId = createCard(BigDecimal.ZERO);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?> first = executor.submit(() -> awaitAndTransfer(start, firstFromId, firstToId));
+            Future<?> poor = executor.submit(() -> awaitAndTransfer(start, poorFromId, poorToId));
+            Future<?> last = executor.submit(() -> awaitAndTransfer(start, lastFromId, lastToId));
+
+            // Act
+            start.countDown();
+
+            // Assert
+            assertDoesNotThrow(() -> first.get(1, TimeUnit.MINUTES));
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> poor.get(1, TimeUnit.MINUTES));
+            assertInstanceOf(BusinessLogicException.class, failure.getCause());
+            assertDoesNotThrow(() -> last.get(1, TimeUnit.MINUTES));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(3.0, meterRegistry.get("bankcards.transfer.group.commit.batch.size").summary().max());
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(balanceOf(firstFromId)));
+        assertEquals(0, BigDecimal.TEN.compareTo(balanceOf(firstToId)));
+        assertEquals(0, BigDecimal.ONE.compareTo(balanceOf(poorFromId)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(balanceOf(poorToId)));
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(balanceOf(lastFromId)));
+        assertEquals(0, BigDecimal.TEN.compareTo(balanceOf(lastToId)));
+    }
+
+    private Void awaitAndTransfer(CountDownLatch start, Long fromCardId, Long toCardId) throws InterruptedException {
+        start.await();
+        cardTransferService.transfer(ownerId, fromCardId, toCardId, BigDecimal.TEN);
+        return null;
+    }
+
+    private Long createCard(BigDecimal balance) {
+        Card card = new Card();
+        card.setOwner(userRepository.getReferenceById(ownerId));
+        card.setEncryptedNumber(UUID.randomUUID().toString());
+        card.setExpirationDate(YearMonth.now().plusYears(1));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalanceMinor(Money.toMinor(balance));
+        return cardRepository.save(card).getId();
+    }
+
+    private BigDecimal balanceOf(Long cardId) {
+        return Money.toDecimal(cardRepository.findById(cardId).orElseThrow().getBalanceMinor());
+    }
+}
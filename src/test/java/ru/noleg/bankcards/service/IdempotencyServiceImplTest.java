@@ -0,0 +1,176 @@
+package ru.noleg.bankcards.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.noleg.bankcards.entity.IdempotencyKey;
+import ru.noleg.bankcards.entity.IdempotentOperation;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+import ru.noleg.bankcards.exception.error.ReplayedFailureException;
+import ru.noleg.bankcards.jpa.retry.OptimisticLockRetry;
+import ru.noleg.bankcards.repository.IdempotencyKeyRepository;
+import ru.noleg.bankcards.service.impl.IdempotencyServiceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(
+                idempotencyKeyRepository,
+                transactionManager,
+                new OptimisticLockRetry(new SimpleMeterRegistry(), 3, Duration.ZERO, Duration.ZERO),
+                Duration.ofHours(1),
+                100
+        );
+    }
+
+    @Test
+    void execute_shouldRunActionAndStoreKey_whenKeyIsNew() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        when(idempotencyKeyRepository.findByOwnerIdAndKey(1L, "key")).thenReturn(Optional.empty());
+
+        // Act
+        IdempotencyService.Outcome outcome = idempotencyService.execute(
+                1L, "key", IdempotentOperation.TRANSFER, "1:2:100", calls::incrementAndGet
+        );
+
+        // Assert
+        assertEquals(204, outcome.responseStatus());
+        assertFalse(outcome.replayed());
+        assertEquals(1, calls.get());
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void execute_shouldReplayFromCacheWithoutTransaction_whenKeyIsRepeated() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        when(idempotencyKeyRepository.findByOwnerIdAndKey(1L, "key")).thenReturn(Optional.empty());
+        idempotencyService.execute(1L, "key", IdempotentOperation.TRANSFER, "1:2:100", calls::incrementAndGet);
+        clearInvocations(idempotencyKeyRepository, transactionManager);
+
+        // Act
+        IdempotencyService.Outcome outcome = idempotencyService.execute(
+                1L, "key", IdempotentOperation.TRANSFER, "1:2:100", calls::incrementAndGet
+        );
+
+        // Assert
+        assertTrue(outcome.replayed());
+        assertEquals(204, outcome.responseStatus());
+        assertEquals(1, calls.get());
+        verifyNoInteractions(idempotencyKeyRepository, transactionManager);
+    }
+
+    @Test
+    void execute_shouldReplayStoredOutcome_whenKeyIsOnlyInDatabase() throws Exception {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        IdempotencyKey stored = storedKey(IdempotentOperation.DEPOSIT, "5:10");
+        when(idempotencyKeyRepository.findByOwnerIdAndKey(1L, "key")).thenReturn(Optional.of(stored));
+
+        // Act
+        IdempotencyService.Outcome outcome = idempotencyService.execute(
+                1L, "key", IdempotentOperation.DEPOSIT, "5:10", calls::incrementAndGet
+        );
+
+        // Assert
+        assertTrue(outcome.replayed());
+        assertEquals(0, calls.get());
+        verify(idempotencyKeyRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void execute_shouldThrowBusinessLogicException_whenKeyIsReusedForDifferentRequest() {
+        // Arrange
+        when(idempotencyKeyRepository.findByOwnerIdAndKey(1L, "key")).thenReturn(Optional.empty());
+        idempotencyService.execute(1L, "key", IdempotentOperation.TRANSFER, "1:2:100", () -> {
+        });
+
+        // Act | Assert
+        BusinessLogicException ex = assertThrows(BusinessLogicException.class, () ->
+                idempotencyService.execute(1L, "key", IdempotentOperation.TRANSFER, "1:2:200", () -> {
+                }));
+        assertEquals("Idempotency key was already used for a different request", ex.getMessage());
+    }
+
+    @Test
+    void execute_shouldReplay_whenConcurrentRequestClaimedKeyFirst() throws Exception {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        IdempotencyKey stored = storedKey(IdempotentOperation.TRANSFER, "1:2:100");
+        when(idempotencyKeyRepository.findByOwnerIdAndKey(1L, "key"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(stored));
+        when(idempotencyKeyRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        // Act
+        IdempotencyService.Outcome outcome = idempotencyService.execute(
+                1L, "key", IdempotentOperation.TRANSFER, "1:2:100", calls::incrementAndGet
+        );
+
+        // Assert
+        assertTrue(outcome.replayed());
+        assertEquals(0, calls.get());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void execute_shouldStoreAndReplayRejection_whenActionFails() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        when(idempotencyKeyRepository.findByOwnerIdAndKey(1L, "key")).thenReturn(Optional.empty());
+        Runnable rejected = () -> {
+            calls.incrementAndGet();
+            throw new BusinessLogicException("Insufficient funds on the sender card.");
+        };
+
+        // Act
+        assertThrows(BusinessLogicException.class, () ->
+                idempotencyService.execute(1L, "key", IdempotentOperation.TRANSFER, "1:2:100", rejected));
+        ReplayedFailureException replayed = assertThrows(ReplayedFailureException.class, () ->
+                idempotencyService.execute(1L, "key", IdempotentOperation.TRANSFER, "1:2:100", rejected));
+
+        // Assert
+        assertEquals(1, calls.get());
+        assertEquals(422, replayed.getResponseStatus());
+        assertEquals("Insufficient funds on the sender card.", replayed.getMessage());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(argThat(stored ->
+                stored.getResponseStatus() == 422 && "Insufficient funds on the sender card.".equals(stored.getError())
+        ));
+    }
+
+    private IdempotencyKey storedKey(IdempotentOperation operation, String request) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+        return new IdempotencyKey(1L, "key", operation, HexFormat.of().formatHex(digest), 204, null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,156 @@
+package ru.noleg.bankcards.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.noleg.bankcards.entity.TransferRecord;
+import ru.noleg.bankcards.entity.TransferStatus;
+import ru.noleg.bankcards.repository.TransferRecordRepository;
+import ru.noleg.bankcards.service.impl.TransferJournalServiceImpl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferJournalServiceImplTest {
+
+    @Mock
+    private TransferRecordRepository transferRecordRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void record_shouldInsertImmediately_whenSyncMode() {
+        // Arrange
+        TransferJournalServiceImpl journal = journal(TransferJournalServiceImpl.Mode.SYNC);
+
+        // Act
+        journal.record(record(TransferStatus.COMPLETED));
+
+        // Assert
+        verify(jdbcTemplate, times(1)).update(anyString(), any(Object[].class));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void record_shouldInsertFailureInNewTransaction_whenSyncModeInsideTransaction() {
+        // Arrange
+        TransferJournalServiceImpl journal = journal(TransferJournalServiceImpl.Mode.SYNC);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        journal.record(record(TransferStatus.FAILED));
+
+        // Assert
+        verify(transactionManager, times(1)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+        ));
+        verify(jdbcTemplate, times(1)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void record_shouldQueueCompletedTransferOnlyAfterCommit_whenAsyncMode() {
+        // Arrange
+        TransferJournalServiceImpl journal = journal(TransferJournalServiceImpl.Mode.ASYNC);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        journal.record(record(TransferStatus.COMPLETED));
+        double queuedBeforeCommit = queueDepth();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertEquals(0, queuedBeforeCommit);
+        assertEquals(1, queueDepth());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void record_shouldWriteQueuedRecordsWithOneMultiRowInsert_whenAsyncMode() throws InterruptedException {
+        // Arrange
+        TransferJournalServiceImpl journal = journal(TransferJournalServiceImpl.Mode.ASYNC);
+        journal.record(record(TransferStatus.COMPLETED));
+        journal.record(record(TransferStatus.FAILED));
+        journal.record(record(TransferStatus.COMPLETED));
+
+        // Act
+        journal.start();
+        journal.stop();
+
+        // Assert
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(1)).update(sql.capture(), args.capture());
+        assertEquals(3, sql.getValue().split("\\(\\?").length - 1);
+        assertEquals(21, args.getValue().length);
+    }
+
+    @Test
+    void record_shouldRetryRowByRowAndCountDropped_whenBatchInsertFails() throws InterruptedException {
+        // Arrange
+        TransferJournalServiceImpl journal = journal(TransferJournalServiceImpl.Mode.ASYNC);
+        journal.record(record(TransferStatus.COMPLETED));
+        journal.record(new TransferRecord(1L, 10L, 20L, 10_000L, TransferStatus.FAILED, "bad", LocalDateTime.now()));
+        journal.record(record(TransferStatus.COMPLETED));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            // Mockito expands the varargs: the SQL string is followed by 7 values per row.
+            boolean multiRow = invocation.getArguments().length > 8;
+            if (multiRow || "bad".equals(invocation.getArgument(6))) {
+                throw new DataIntegrityViolationException("Insert failed");
+            }
+            return 1;
+        });
+
+        // Act
+        journal.start();
+        journal.stop();
+
+        // Assert
+        verify(jdbcTemplate, times(4)).update(anyString(), any(Object[].class));
+        assertEquals(1, meterRegistry.get("bankcards.transfer.journal.dropped").counter().count());
+    }
+
+    private TransferJournalServiceImpl journal(TransferJournalServiceImpl.Mode mode) {
+        return new TransferJournalServiceImpl(
+                transferRecordRepository, jdbcTemplate, transactionManager, meterRegistry,
+                mode, 100, 500, Duration.ofMillis(200)
+        );
+    }
+
+    private double queueDepth() {
+        return meterRegistry.get("bankcards.transfer.journal.queue.depth").gauge().value();
+    }
+
+    private TransferRecord record(TransferStatus status) {
+        return new TransferRecord(1L, 10L, 20L, 10_000L, status, null, LocalDateTime.now());
+    }
+}
@@ -5,16 +5,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import ru.noleg.bankcards.dto.user.UserSort;
 import ru.noleg.bankcards.entity.Role;
 import ru.noleg.bankcards.entity.User;
 import ru.noleg.bankcards.exception.error.BusinessLogicException;
 import ru.noleg.bankcards.exception.error.UserNotFoundException;
+import ru.noleg.bankcards.repository.RevokedUserRepository;
 import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.service.event.UserDeletedEvent;
+import ru.noleg.bankcards.service.event.UserRoleChangedEvent;
 import ru.noleg.bankcards.service.impl.UserServiceImpl;
+import ru.noleg.bankcards.util.CursorCodec;
 
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +36,12 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private RevokedUserRepository revokedUserRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -47,6 +60,8 @@ class UserServiceImplTest {
         // Assert
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, times(1)).delete(user);
+        verify(revokedUserRepository, times(1)).save(argThat(revoked -> revoked.getUserId().equals(userId)));
+        verify(eventPublisher, times(1)).publishEvent(new UserDeletedEvent(userId, null));
     }
 
     @Test
@@ -62,6 +77,7 @@ class UserServiceImplTest {
 
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, never()).delete(any(User.class));
+        verifyNoInteractions(revokedUserRepository);
     }
 
     @Test
@@ -80,6 +96,7 @@ class UserServiceImplTest {
 
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, never()).delete(any(User.class));
+        verifyNoInteractions(revokedUserRepository);
     }
 
     @Test
@@ -147,8 +164,10 @@ class UserServiceImplTest {
 
         // Assert
         assertEquals(Role.ROLE_ADMIN, user.getRole());
+        assertEquals(1, user.getSecurityVersion());
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, times(1)).save(user);
+        verify(eventPublisher, times(1)).publishEvent(new UserRoleChangedEvent(userId, null, Role.ROLE_ADMIN, 1));
     }
 
     @Test
@@ -166,4 +185,40 @@ class UserServiceImplTest {
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, never()).save(user);
     }
-}
\ No newline at end of file
+
+    @Test
+    void scrollAll_shouldSeekByLastNameAndId_whenCursorGiven() {
+        // Arrange
+        List<User> users = List.of(new User(), new User());
+        when(userRepository.findAllAfterLastName("Иванов", 7L, Limit.of(3))).thenReturn(users);
+
+        // Act
+        List<User> result = userService.scrollAll(UserSort.LAST_NAME_ASC, new CursorCodec.Keyset(7L, "Иванов"), 3);
+
+        // Assert
+        assertEquals(users, result);
+        verify(userRepository, never()).findAll(any(PageRequest.class));
+    }
+
+    @Test
+    void scrollAll_shouldStartFromFirstUser_whenNoCursor() {
+        // Arrange
+        when(userRepository.findAllByIdLessThanOrderByIdDesc(Long.MAX_VALUE, Limit.of(3))).thenReturn(List.of());
+
+        // Act
+        List<User> result = userService.scrollAll(UserSort.ID_DESC, null, 3);
+
+        // Assert
+        assertEquals(0, result.size());
+        verify(userRepository, times(1)).findAllByIdLessThanOrderByIdDesc(Long.MAX_VALUE, Limit.of(3));
+    }
+
+    @Test
+    void scrollAll_shouldThrowBusinessLogicException_whenLastNameCursorHasNoKey() {
+        // Act | Assert
+        assertThrows(BusinessLogicException.class,
+                () -> userService.scrollAll(UserSort.LAST_NAME_ASC, new CursorCodec.Keyset(7L, null), 3));
+
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.noleg.bankcards.service.security.auth;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import ru.noleg.bankcards.AbstractPostgresIntegrationTest;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.security.auth.AuthenticationService;
+import ru.noleg.bankcards.security.user.UserDetailsServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Counts the statements a sign-in sends to the database. Sign-in reads the user row past the user details cache,
+ * so the user is loaded exactly once even when the cache already holds it.
+ */
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.noleg.bankcards.service.security.auth.SignInQueryCountTest$ThreadStatementRecorder"
+})
+class SignInQueryCountTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    /**
+     * Records statements of the test thread only, so scheduled jobs running meanwhile don't affect the count.
+     */
+    public static class ThreadStatementRecorder implements StatementInspector {
+
+        static final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public String inspect(String sql) {
+            statements.get().add(sql);
+            return sql;
+        }
+    }
+
+    @Test
+    void signIn_shouldLoadUserOnce_whenUserIsCached() {
+        // Arrange
+        String email = UUID.randomUUID() + "@test.com";
+        authenticationService.signUp(new User(null, email, "password", "Test", "User", null, Role.ROLE_USER));
+        userDetailsService.loadUserByUsername(email);
+        ThreadStatementRecorder.statements.get().clear();
+
+        // Act
+        String token = authenticationService.signIn(email, "password");
+
+        // Assert
+        List<String> statements = ThreadStatementRecorder.statements.get();
+        assertNotNull(token);
+        assertEquals(1, statements.size(), () -> String.join("\n", statements));
+    }
+}
@@ -0,0 +1,184 @@
+package ru.noleg.bankcards.service.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.security.jwt.JwtRequestFilter;
+import ru.noleg.bankcards.security.jwt.SecurityVersionRegistry;
+import ru.noleg.bankcards.security.jwt.TokenProvider;
+import ru.noleg.bankcards.security.jwt.VerifiedClaims;
+import ru.noleg.bankcards.security.jwt.VerifiedTokenCache;
+import ru.noleg.bankcards.security.user.UserDetailsImpl;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtRequestFilterTest {
+
+    @Mock
+    private TokenProvider tokenProvider;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private SecurityVersionRegistry securityVersionRegistry;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private JwtRequestFilter jwtRequestFilter;
+
+    @BeforeEach
+    void setUp() {
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), true, 100);
+        jwtRequestFilter = new JwtRequestFilter(
+                tokenProvider, userDetailsService, securityVersionRegistry, verifiedTokenCache, true
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_shouldVerifyTokenOnce_andLoadUser_whenTokenHasNoIdentityClaims() throws Exception {
+        // Arrange
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@mail.ru");
+        user.setRole(Role.ROLE_USER);
+        UserDetailsImpl userDetails = new UserDetailsImpl(user);
+        VerifiedClaims claims = new VerifiedClaims("user@mail.ru", Instant.now().plusSeconds(60));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(tokenProvider.verify("token")).thenReturn(claims);
+        when(userDetailsService.loadUserByUsername("user@mail.ru")).thenReturn(userDetails);
+        when(tokenProvider.isTokenValid(claims, userDetails)).thenReturn(true);
+
+        // Act
+        jwtRequestFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertSame(userDetails, authentication.getPrincipal());
+
+        verify(tokenProvider, times(1)).verify("token");
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_shouldSkipVerification_whenNoBearerToken() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        jwtRequestFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        verify(tokenProvider, never()).verify(any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_shouldAuthenticateFromClaims_withoutLoadingUser() throws Exception {
+        // Arrange
+        VerifiedClaims claims = new VerifiedClaims(
+                "user@mail.ru", Instant.now().plusSeconds(60), 7L, Role.ROLE_ADMIN, 2
+        );
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(tokenProvider.verify("token")).thenReturn(claims);
+        when(securityVersionRegistry.isCurrent(7L, 2)).thenReturn(true);
+        when(tokenProvider.isTokenValid(eq(claims), any())).thenReturn(true);
+
+        // Act
+        jwtRequestFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        UserDetailsImpl principal = (UserDetailsImpl) authentication.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("user@mail.ru", principal.getUsername());
+        assertEquals(Role.ROLE_ADMIN, principal.getRole());
+        assertEquals("ROLE_ADMIN", authentication.getAuthorities().iterator().next().getAuthority());
+
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_shouldNotAuthenticate_whenSecurityVersionIsRevoked() throws Exception {
+        // Arrange
+        VerifiedClaims claims = new VerifiedClaims(
+                "user@mail.ru", Instant.now().plusSeconds(60), 7L, Role.ROLE_ADMIN, 1
+        );
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(tokenProvider.verify("token")).thenReturn(claims);
+        when(securityVersionRegistry.isCurrent(7L, 1)).thenReturn(false);
+
+        // Act
+        jwtRequestFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        verifyNoInteractions(userDetailsService);
+        verify(tokenProvider, never()).isTokenValid(any(), any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_shouldVerifyRepeatedTokenOnce_whenCacheIsEnabled() throws Exception {
+        // Arrange
+        VerifiedClaims claims = new VerifiedClaims(
+                "user@mail.ru", Instant.now().plusSeconds(60), 7L, Role.ROLE_USER, 0
+        );
+        when(tokenProvider.verify("token")).thenReturn(claims);
+        when(securityVersionRegistry.isCurrent(7L, 0)).thenReturn(true);
+        when(tokenProvider.isTokenValid(eq(claims), any())).thenReturn(true);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader("Authorization", "Bearer token");
+            jwtRequestFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+            SecurityContextHolder.clearContext();
+        }
+
+        // Assert
+        verify(tokenProvider, times(1)).verify("token");
+        verify(securityVersionRegistry, times(3)).isCurrent(7L, 0);
+    }
+}
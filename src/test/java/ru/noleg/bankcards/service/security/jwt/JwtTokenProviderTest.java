@@ -0,0 +1,84 @@
+package ru.noleg.bankcards.service.security.jwt;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.entity.User;
+import ru.noleg.bankcards.security.jwt.JwtTokenProvider;
+import ru.noleg.bankcards.security.jwt.VerifiedClaims;
+import ru.noleg.bankcards.security.user.UserDetailsImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private static final String SIGNING_KEY =
+            Base64.getEncoder().encodeToString("test-signing-key-of-at-least-256-bits".getBytes(StandardCharsets.UTF_8));
+
+    private final JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(SIGNING_KEY, 60_000L);
+
+    @Test
+    void verify_shouldReturnClaims_whenTokenIsSignedWithSameKey() {
+        // Arrange
+        UserDetailsImpl userDetails = new UserDetailsImpl(user("user@mail.ru"));
+        String token = jwtTokenProvider.generateToken(userDetails);
+
+        // Act
+        VerifiedClaims claims = jwtTokenProvider.verify(token);
+
+        // Assert
+        assertEquals("user@mail.ru", claims.username());
+        assertTrue(claims.expiration().isAfter(Instant.now()));
+        assertEquals(1L, claims.userId());
+        assertEquals(Role.ROLE_USER, claims.role());
+        assertEquals(3, claims.securityVersion());
+        assertTrue(claims.hasIdentity());
+        assertTrue(jwtTokenProvider.isTokenValid(claims, userDetails));
+    }
+
+    @Test
+    void verify_shouldThrowSignatureException_whenTokenIsSignedWithOtherKey() {
+        // Arrange
+        String otherKey = Base64.getEncoder()
+                .encodeToString("another-signing-key-of-at-least-256-bits".getBytes(StandardCharsets.UTF_8));
+        String token = new JwtTokenProvider(otherKey, 60_000L).generateToken(new UserDetailsImpl(user("user@mail.ru")));
+
+        // Act | Assert
+        assertThrows(SignatureException.class, () -> jwtTokenProvider.verify(token));
+    }
+
+    @Test
+    void verify_shouldThrowExpiredJwtException_whenTokenIsExpired() {
+        // Arrange
+        String token = new JwtTokenProvider(SIGNING_KEY, -60_000L).generateToken(new UserDetailsImpl(user("user@mail.ru")));
+
+        // Act | Assert
+        assertThrows(ExpiredJwtException.class, () -> jwtTokenProvider.verify(token));
+    }
+
+    @Test
+    void isTokenValid_shouldReturnFalse_whenTokenBelongsToOtherUser() {
+        // Arrange
+        VerifiedClaims claims = new VerifiedClaims("other@mail.ru", Instant.now().plusSeconds(60));
+
+        // Act
+        boolean valid = jwtTokenProvider.isTokenValid(claims, new UserDetailsImpl(user("user@mail.ru")));
+
+        // Assert
+        assertFalse(valid);
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(email);
+        user.setRole(Role.ROLE_USER);
+        user.setSecurityVersion(3);
+        return user;
+    }
+}
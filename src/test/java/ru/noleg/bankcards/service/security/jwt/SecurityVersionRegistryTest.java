@@ -0,0 +1,133 @@
+package ru.noleg.bankcards.service.security.jwt;
+
+import org.junit.jupiter.api.Test;
+import ru.noleg.bankcards.entity.RevokedUser;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.repository.RevokedUserRepository;
+import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.repository.UserSecurityVersion;
+import ru.noleg.bankcards.security.jwt.SecurityVersionRegistry;
+import ru.noleg.bankcards.service.event.UserDeletedEvent;
+import ru.noleg.bankcards.service.event.UserRoleChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SecurityVersionRegistryTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final RevokedUserRepository revokedUserRepository = mock(RevokedUserRepository.class);
+
+    @Test
+    void isCurrent_shouldAcceptAnyVersion_whenUserNeverChanged() {
+        // Arrange
+        SecurityVersionRegistry registry = new SecurityVersionRegistry(userRepository, revokedUserRepository, 60_000L);
+
+        // Act | Assert
+        assertTrue(registry.isCurrent(1L, 0));
+    }
+
+    @Test
+    void advance_shouldRejectOlderVersions_andNeverGoBack() {
+        // Arrange
+        SecurityVersionRegistry registry = new SecurityVersionRegistry(userRepository, revokedUserRepository, 60_000L);
+
+        // Act
+        registry.advance(1L, 2);
+        registry.advance(1L, 1);
+
+        // Assert
+        assertFalse(registry.isCurrent(1L, 1));
+        assertTrue(registry.isCurrent(1L, 2));
+        assertTrue(registry.isCurrent(2L, 0));
+    }
+
+    @Test
+    void revokeAll_shouldRejectEveryVersionOfDeletedUser() {
+        // Arrange
+        SecurityVersionRegistry registry = new SecurityVersionRegistry(userRepository, revokedUserRepository, 60_000L);
+
+        // Act
+        registry.revokeAll(1L);
+
+        // Assert
+        assertFalse(registry.isCurrent(1L, 0));
+        assertFalse(registry.isCurrent(1L, 5));
+    }
+
+    @Test
+    void reload_shouldApplyVersionsChangedElsewhere() {
+        // Arrange
+        SecurityVersionRegistry registry = new SecurityVersionRegistry(userRepository, revokedUserRepository, 60_000L);
+        UserSecurityVersion version = mock(UserSecurityVersion.class);
+        when(version.getId()).thenReturn(1L);
+        when(version.getSecurityVersion()).thenReturn(3);
+        when(userRepository.findChangedSecurityVersions()).thenReturn(List.of(version));
+
+        // Act
+        registry.reload();
+
+        // Assert
+        assertFalse(registry.isCurrent(1L, 2));
+        assertTrue(registry.isCurrent(1L, 3));
+    }
+
+    @Test
+    void reload_shouldApplyDeletionsStoredElsewhere() {
+        // Arrange
+        SecurityVersionRegistry registry = new SecurityVersionRegistry(userRepository, revokedUserRepository, 60_000L);
+        when(revokedUserRepository.findAllByRevokedAtAfter(any()))
+                .thenReturn(List.of(new RevokedUser(1L, LocalDateTime.now())));
+
+        // Act
+        registry.reload();
+
+        // Assert
+        assertFalse(registry.isCurrent(1L, 0));
+        assertTrue(registry.isCurrent(2L, 0));
+    }
+
+    @Test
+    void reload_shouldPurgeStoredDeletions_olderThanTokenLifetime() {
+        // Arrange
+        SecurityVersionRegistry registry = new SecurityVersionRegistry(userRepository, revokedUserRepository, 60_000L);
+        LocalDateTime before = LocalDateTime.now().minusMinutes(1);
+
+        // Act
+        registry.reload();
+
+        // Assert
+        verify(revokedUserRepository).deleteAllRevokedBefore(argThat(threshold -> !threshold.isBefore(before)));
+    }
+
+    @Test
+    void reload_shouldForgetDeletedUsers_afterTokenLifetime() {
+        // Arrange: a negative lifetime makes every remembered deletion already outlived.
+        SecurityVersionRegistry registry = new SecurityVersionRegistry(userRepository, revokedUserRepository, -1_000L);
+        registry.revokeAll(1L);
+
+        // Act
+        registry.reload();
+
+        // Assert
+        assertTrue(registry.isCurrent(1L, 0));
+    }
+
+    @Test
+    void onRoleChanged_andOnUserDeleted_shouldUpdateTable() {
+        // Arrange
+        SecurityVersionRegistry registry = new SecurityVersionRegistry(userRepository, revokedUserRepository, 60_000L);
+
+        // Act
+        registry.onRoleChanged(new UserRoleChangedEvent(1L, "user@mail.ru", Role.ROLE_ADMIN, 1));
+        registry.onUserDeleted(new UserDeletedEvent(2L, "other@mail.ru"));
+
+        // Assert
+        assertFalse(registry.isCurrent(1L, 0));
+        assertTrue(registry.isCurrent(1L, 1));
+        assertFalse(registry.isCurrent(2L, 0));
+    }
+}
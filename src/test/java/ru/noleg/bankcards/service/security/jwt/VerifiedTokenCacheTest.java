@@ -0,0 +1,115 @@
+package ru.noleg.bankcards.service.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.noleg.bankcards.entity.Role;
+import ru.noleg.bankcards.security.jwt.VerifiedClaims;
+import ru.noleg.bankcards.security.jwt.VerifiedTokenCache;
+import ru.noleg.bankcards.service.event.UserDeletedEvent;
+import ru.noleg.bankcards.service.event.UserRoleChangedEvent;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void get_shouldVerifyTokenOnce_andCountHitsAndMisses() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, true, 100);
+        CountingVerifier verifier = new CountingVerifier(Instant.now().plusSeconds(60));
+
+        // Act
+        VerifiedClaims first = cache.get("token", verifier);
+        VerifiedClaims second = cache.get("token", verifier);
+        cache.get("other-token", verifier);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(2, verifier.calls.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "verifiedTokens").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_shouldVerifyAgain_whenCachedTokenHasExpired() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, true, 100);
+        CountingVerifier verifier = new CountingVerifier(Instant.now().minusSeconds(1));
+
+        // Act
+        cache.get("token", verifier);
+        cache.get("token", verifier);
+
+        // Assert
+        assertEquals(2, verifier.calls.get());
+    }
+
+    @Test
+    void get_shouldNotCacheFailedVerification() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, true, 100);
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, VerifiedClaims> verifier = token -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("Invalid token");
+        };
+
+        // Act | Assert
+        assertThrows(IllegalArgumentException.class, () -> cache.get("token", verifier));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("token", verifier));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void onRoleChanged_andOnUserDeleted_shouldEvictTokensOfUser() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, true, 100);
+        CountingVerifier verifier = new CountingVerifier(Instant.now().plusSeconds(60));
+        cache.get("token", verifier);
+
+        // Act
+        cache.onRoleChanged(new UserRoleChangedEvent(1L, "user@mail.ru", Role.ROLE_ADMIN, 1));
+        cache.get("token", verifier);
+        cache.onUserDeleted(new UserDeletedEvent(1L, "user@mail.ru"));
+        cache.get("token", verifier);
+
+        // Assert
+        assertEquals(3, verifier.calls.get());
+    }
+
+    @Test
+    void get_shouldAlwaysVerify_whenCacheIsDisabled() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, false, 100);
+        CountingVerifier verifier = new CountingVerifier(Instant.now().plusSeconds(60));
+
+        // Act
+        cache.get("token", verifier);
+        cache.get("token", verifier);
+
+        // Assert
+        assertEquals(2, verifier.calls.get());
+    }
+
+    private static final class CountingVerifier implements Function<String, VerifiedClaims> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final Instant expiration;
+
+        private CountingVerifier(Instant expiration) {
+            this.expiration = expiration;
+        }
+
+        @Override
+        public VerifiedClaims apply(String token) {
+            calls.incrementAndGet();
+            return new VerifiedClaims("user@mail.ru", expiration, 1L, Role.ROLE_USER, 0);
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package ru.noleg.bankcards.service.security.user;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import ru.noleg.bankcards.entity.Role;
 import ru.noleg.bankcards.entity.User;
 import ru.noleg.bankcards.repository.UserRepository;
+import ru.noleg.bankcards.security.user.UserDetailsImpl;
 import ru.noleg.bankcards.security.user.UserDetailsServiceImpl;
+import ru.noleg.bankcards.service.event.UserDeletedEvent;
+import ru.noleg.bankcards.service.event.UserRoleChangedEvent;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,9 +28,16 @@ class UserDetailsServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private UserDetailsServiceImpl userDetailsService;
 
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsService = new UserDetailsServiceImpl(userRepository, meterRegistry, Duration.ofMinutes(5), 100);
+    }
+
     @Test
     void loadUserByUsername_shouldReturnUserDetails_whenUserExists() {
         // Arrange
@@ -61,4 +74,98 @@ class UserDetailsServiceImplTest {
 
         verify(userRepository, times(1)).findByEmail(email);
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadUserByUsername_shouldServeRepeatedLookupsFromCache_andRecordHitsAndMisses() {
+        // Arrange
+        String email = "user123@gmail.com";
+        User user = new User();
+        user.setEmail(email);
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+
+        // Act
+        UserDetails first = userDetailsService.loadUserByUsername(email);
+        UserDetails second = userDetailsService.loadUserByUsername(email);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "miss")
+                .functionCounter().count());
+
+        verify(userRepository, times(1)).findByEmail(email);
+    }
+
+    @Test
+    void onRoleChanged_shouldEvictCachedUser() {
+        // Arrange
+        String email = "user123@gmail.com";
+        User user = new User();
+        user.setEmail(email);
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        userDetailsService.loadUserByUsername(email);
+
+        // Act
+        userDetailsService.onRoleChanged(new UserRoleChangedEvent(1L, email, Role.ROLE_ADMIN, 1));
+        userDetailsService.loadUserByUsername(email);
+
+        // Assert
+        verify(userRepository, times(2)).findByEmail(email);
+    }
+
+    @Test
+    void onUserDeleted_shouldEvictCachedUser() {
+        // Arrange
+        String email = "user123@gmail.com";
+        User user = new User();
+        user.setEmail(email);
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user)).thenReturn(Optional.empty());
+        userDetailsService.loadUserByUsername(email);
+
+        // Act
+        userDetailsService.onUserDeleted(new UserDeletedEvent(1L, email));
+
+        // Assert
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername(email));
+    }
+
+    @Test
+    void loadUserByUsername_shouldQueryEveryTime_whenTtlIsZero() {
+        // Arrange
+        String email = "user123@gmail.com";
+        User user = new User();
+        user.setEmail(email);
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        UserDetailsServiceImpl uncached = new UserDetailsServiceImpl(userRepository, meterRegistry, Duration.ZERO, 100);
+
+        // Act
+        uncached.loadUserByUsername(email);
+        uncached.loadUserByUsername(email);
+
+        // Assert
+        verify(userRepository, times(2)).findByEmail(email);
+    }
+
+    @Test
+    void loadCurrentUserByUsername_shouldReadChangedUser_whenCachedEntryIsStale() {
+        // Arrange
+        String email = "user123@gmail.com";
+        User cached = new User();
+        cached.setEmail(email);
+        User changed = new User();
+        changed.setEmail(email);
+        changed.setRole(Role.ROLE_ADMIN);
+        changed.setSecurityVersion(1);
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(cached)).thenReturn(Optional.of(changed));
+        userDetailsService.loadUserByUsername(email);
+
+        // Act
+        UserDetailsImpl current = (UserDetailsImpl) userDetailsService.loadCurrentUserByUsername(email);
+
+        // Assert
+        assertEquals(1, current.getSecurityVersion());
+        assertEquals(0, ((UserDetailsImpl) userDetailsService.loadUserByUsername(email)).getSecurityVersion());
+        verify(userRepository, times(2)).findByEmail(email);
+    }
+}
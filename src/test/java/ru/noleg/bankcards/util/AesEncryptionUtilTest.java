@@ -0,0 +1,84 @@
+package ru.noleg.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AesEncryptionUtilTest {
+
+    private final AesEncryptionUtil aesEncryptionUtil = new AesEncryptionUtil("0123456789abcdef");
+
+    @Test
+    void decrypt_shouldReturnOriginal_whenCipherIsReused() {
+        // Arrange
+        String first = aesEncryptionUtil.encrypt("1111222233334444");
+        String second = aesEncryptionUtil.encrypt("5555666677778888");
+
+        // Act | Assert
+        assertEquals("1111222233334444", aesEncryptionUtil.decrypt(first));
+        assertEquals("5555666677778888", aesEncryptionUtil.decrypt(second));
+        assertEquals("1111222233334444", aesEncryptionUtil.decrypt(first));
+    }
+
+    @Test
+    void decryptAll_shouldKeepInputOrder() {
+        // Arrange
+        List<String> numbers = List.of("1111222233334444", "5555666677778888", "9999000011112222");
+        List<String> encrypted = numbers.stream().map(aesEncryptionUtil::encrypt).toList();
+
+        // Act
+        List<String> result = aesEncryptionUtil.decryptAll(encrypted);
+
+        // Assert
+        assertEquals(numbers, result);
+    }
+
+    @Test
+    void decrypt_shouldRecover_afterInvalidCiphertext() {
+        // Arrange
+        String encrypted = aesEncryptionUtil.encrypt("1111222233334444");
+
+        // Act
+        assertThrows(RuntimeException.class, () -> aesEncryptionUtil.decryptAll(List.of(encrypted, "AAAA")));
+
+        // Assert
+        assertEquals("1111222233334444", aesEncryptionUtil.decrypt(encrypted));
+    }
+
+    @Test
+    void decrypt_shouldReadBothKeys_whenKeyIsRotated() {
+        // Arrange
+        AesEncryptionUtil rotated = new AesEncryptionUtil("0123456789abcdef", "k2:fedcba9876543210", "k2");
+        String legacy = aesEncryptionUtil.encrypt("1111222233334444");
+
+        // Act
+        String versioned = rotated.encrypt("5555666677778888");
+
+        // Assert
+        assertTrue(versioned.startsWith("k2:"));
+        assertTrue(rotated.isEncryptedWithActiveKey(versioned));
+        assertFalse(rotated.isEncryptedWithActiveKey(legacy));
+        assertEquals("1111222233334444", rotated.decrypt(legacy));
+        assertEquals("5555666677778888", rotated.decrypt(versioned));
+        assertEquals(List.of("1111222233334444", "5555666677778888"), rotated.decryptAll(List.of(legacy, versioned)));
+    }
+
+    @Test
+    void decrypt_shouldThrow_whenKeyIdIsUnknown() {
+        // Arrange
+        AesEncryptionUtil rotated = new AesEncryptionUtil("0123456789abcdef", "k2:fedcba9876543210", "k2");
+        String encrypted = rotated.encrypt("1111222233334444");
+
+        // Act | Assert
+        assertThrows(RuntimeException.class, () -> aesEncryptionUtil.decrypt(encrypted));
+    }
+
+    @Test
+    void constructor_shouldThrowIllegalArgumentException_whenActiveKeyIsNotConfigured() {
+        // Act | Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new AesEncryptionUtil("0123456789abcdef", "k2:fedcba9876543210", "k3"));
+    }
+}
@@ -0,0 +1,37 @@
+package ru.noleg.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberHasherTest {
+
+    private final CardNumberHasher cardNumberHasher = new CardNumberHasher("test-card-number-hmac-key-32-bytes");
+
+    @Test
+    void hash_shouldBeStable_forSameNumber() {
+        // Act
+        String first = cardNumberHasher.hash("1234567812345678");
+        String second = cardNumberHasher.hash("1234567812345678");
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(64, first.length());
+    }
+
+    @Test
+    void hash_shouldDiffer_forDifferentNumbersAndKeys() {
+        // Arrange
+        CardNumberHasher otherKey = new CardNumberHasher("another-card-number-hmac-key-32-bytes");
+
+        // Act | Assert
+        assertNotEquals(cardNumberHasher.hash("1234567812345678"), cardNumberHasher.hash("1234567812345679"));
+        assertNotEquals(cardNumberHasher.hash("1234567812345678"), otherKey.hash("1234567812345678"));
+    }
+
+    @Test
+    void constructor_shouldThrowIllegalArgumentException_whenKeyIsTooShort() {
+        // Act | Assert
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberHasher("short"));
+    }
+}
@@ -0,0 +1,36 @@
+package ru.noleg.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorCodecTest {
+
+    @Test
+    void decodeKeyset_shouldReturnIdAndKey_whenEncodedWithKey() {
+        // Act
+        CursorCodec.Keyset keyset = CursorCodec.decodeKeyset(CursorCodec.encode(42L, "Иванов:2"));
+
+        // Assert
+        assertEquals(42L, keyset.id());
+        assertEquals("Иванов:2", keyset.key());
+    }
+
+    @Test
+    void decodeKeyset_shouldReturnNullKey_whenEncodedWithIdOnly() {
+        // Act
+        CursorCodec.Keyset keyset = CursorCodec.decodeKeyset(CursorCodec.encode(42L));
+
+        // Assert
+        assertEquals(new CursorCodec.Keyset(42L, null), keyset);
+        assertEquals(CursorCodec.encode(42L), CursorCodec.encode(42L, null));
+    }
+
+    @Test
+    void decodeKeyset_shouldThrowBusinessLogicException_whenCursorIsMalformed() {
+        // Act | Assert
+        assertThrows(BusinessLogicException.class, () -> CursorCodec.decodeKeyset("not a cursor"));
+        assertThrows(BusinessLogicException.class, () -> CursorCodec.decodeKeyset(CursorCodec.encode(1L, "x").substring(1)));
+    }
+}
@@ -0,0 +1,42 @@
+package ru.noleg.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+import ru.noleg.bankcards.exception.error.BusinessLogicException;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void toMinor_shouldConvertDecimalAmount() {
+        assertEquals(15_075L, Money.toMinor(new BigDecimal("150.75")));
+        assertEquals(10_000L, Money.toMinor(BigDecimal.valueOf(100)));
+        assertEquals(10L, Money.toMinor(new BigDecimal("0.1")));
+    }
+
+    @Test
+    void toMinor_shouldThrowBusinessLogicException_whenAmountHasFractionsOfMinorUnit() {
+        assertThrows(BusinessLogicException.class, () -> Money.toMinor(new BigDecimal("1.005")));
+    }
+
+    @Test
+    void toMinor_shouldThrowBusinessLogicException_whenAmountOverflowsLong() {
+        assertThrows(BusinessLogicException.class, () -> Money.toMinor(new BigDecimal("1e20")));
+    }
+
+    @Test
+    void toDecimal_shouldKeepTwoDecimalPlaces() {
+        assertEquals(new BigDecimal("150.75"), Money.toDecimal(15_075L));
+        assertEquals(new BigDecimal("0.00"), Money.toDecimal(0L));
+    }
+
+    @Test
+    void arithmetic_shouldThrowBusinessLogicException_whenResultOverflowsLong() {
+        assertThrows(BusinessLogicException.class, () -> Money.add(Long.MAX_VALUE, 1L));
+        assertThrows(BusinessLogicException.class, () -> Money.subtract(Long.MIN_VALUE, 1L));
+        assertTrue(Money.covers(100L, 100L));
+        assertFalse(Money.covers(99L, 100L));
+    }
+}